@@ -16,10 +16,10 @@
 
 package com.google.debugging.sourcemap;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
 import com.google.debugging.sourcemap.Base64VLQ.CharIterator;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping.Builder;
@@ -46,11 +46,34 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
   private String[] sourcesContent;
   private String[] names;
   private int lineCount;
-  // Slots in the lines list will be null if the line does not have any entries.
-  private ArrayList<ArrayList<Entry>> lines = null;
-  /** originalFile path ==> original line ==> target mappings */
-  private Map<String, Map<Integer, Collection<OriginalMapping>>>
-      reverseSourceMapping;
+
+  // The decoded entries are stored by field, entry i of the map is at generated column
+  // generatedColumns[i]. The source fields are UNMAPPED for unmapped entries, and nameIds is
+  // UNMAPPED for entries without a name.
+  private int entryCount;
+  private int[] generatedColumns;
+  private int[] sourceFileIds;
+  private int[] sourceLines;
+  private int[] sourceColumns;
+  private int[] nameIds;
+
+  /**
+   * The entries of generated line i are [lineStarts[i], lineStarts[i + 1]), so an empty line has
+   * no entries. Null until a map is parsed.
+   */
+  private int[] lineStarts = null;
+
+  /** originalFile path ==> index into reverseSourceStarts, built on demand. */
+  private Map<String, Integer> reverseSourceIndex;
+
+  /**
+   * The mapped entries, ordered by original file then original line. The entries of the original
+   * file with index i in reverseSourceIndex are [reverseSourceStarts[i], reverseSourceStarts[i +
+   * 1]).
+   */
+  private int[] reverseEntries;
+
+  private int[] reverseSourceStarts;
   private String sourceRoot;
   private final Map<String, Object> extensions = new LinkedHashMap<>();
 
@@ -93,12 +116,9 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     sources = sourceMapObject.getSources();
     sourcesContent = sourceMapObject.getSourcesContent();
     names = sourceMapObject.getNames();
-
-    if (lineCount >= 0) {
-      lines = new ArrayList<>(lineCount);
-    } else {
-      lines = new ArrayList<>();
-    }
+    reverseSourceIndex = null;
+    reverseEntries = null;
+    reverseSourceStarts = null;
 
     // The value type of each extension is the native JSON type (e.g. JsonObject, or JSONObject
     // when compiled with GWT).
@@ -154,28 +174,83 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     lineNumber--;
     column--;
 
-    if (lineNumber < 0 || lineNumber >= lines.size()) {
+    if (lineNumber < 0 || lineNumber >= getDecodedLineCount()) {
       return null;
     }
 
     checkState(lineNumber >= 0);
     checkState(column >= 0);
 
-    // If the line is empty return the previous mapping.
-    if (lines.get(lineNumber) == null) {
-      return getPreviousMapping(lineNumber);
+    int start = lineStarts[lineNumber];
+    int end = lineStarts[lineNumber + 1];
+    // If the line is empty, or the first entry starts after the column, return the previous
+    // mapping. As empty lines have no entries, that is the entry before this line.
+    if (start == end || generatedColumns[start] > column) {
+      return start == 0 ? null : getOriginalMappingForEntry(start - 1);
     }
 
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    // No empty lists.
-    checkState(!entries.isEmpty());
-    if (entries.get(0).getGeneratedColumn() > column) {
-      return getPreviousMapping(lineNumber);
-    }
+    int index = search(generatedColumns, column, start, end - 1);
+    Preconditions.checkState(index >= start, "unexpected:%s", index);
+    return getOriginalMappingForEntry(index);
+  }
+
+  /**
+   * Returns the mappings for several generated positions, as {@link #getMappingForLine} would for
+   * each of them. The positions are resolved with a single forward sweep over the entries while
+   * they are sorted by line and column, so sorting them first avoids a search per position.
+   * Positions that resolve to the same entry as the position before them share its mapping.
+   *
+   * @param lineNumbers The line numbers, 1-based.
+   * @param columns The column indexes, 1-based, of the same length as {@code lineNumbers}.
+   */
+  public OriginalMapping[] getMappingsForLines(int[] lineNumbers, int[] columns) {
+    checkArgument(lineNumbers.length == columns.length);
+    OriginalMapping[] result = new OriginalMapping[lineNumbers.length];
+    int lastEntry = UNMAPPED;
+    OriginalMapping lastMapping = null;
+    for (int i = 0; i < lineNumbers.length; i++) {
+      // Normalize the line and column numbers to 0.
+      int lineNumber = lineNumbers[i] - 1;
+      int column = columns[i] - 1;
+      if (lineNumber < 0 || lineNumber >= getDecodedLineCount()) {
+        continue;
+      }
+      checkState(column >= 0);
+
+      int start = lineStarts[lineNumber];
+      int end = lineStarts[lineNumber + 1];
+      int entry;
+      if (start == end || generatedColumns[start] > column) {
+        if (start == 0) {
+          continue;
+        }
+        entry = start - 1;
+      } else {
+        // Continue from the previous entry when it is on this line and not past the column, and
+        // search otherwise.
+        if (lastEntry >= start && lastEntry < end && generatedColumns[lastEntry] <= column) {
+          entry = lastEntry;
+          while (entry + 1 < end && generatedColumns[entry + 1] <= column) {
+            entry++;
+          }
+        } else {
+          entry = search(generatedColumns, column, start, end - 1);
+        }
+        if (entry > start
+            && generatedColumns[entry] == column
+            && generatedColumns[entry - 1] == column) {
+          // Entries sharing a column resolve to the one the binary search finds.
+          entry = search(generatedColumns, column, start, end - 1);
+        }
+      }
 
-    int index = search(entries, column, 0, entries.size() - 1);
-    Preconditions.checkState(index >= 0, "unexpected:%s", index);
-    return getOriginalMappingForEntry(entries.get(index));
+      if (entry != lastEntry) {
+        lastEntry = entry;
+        lastMapping = getOriginalMappingForEntry(entry);
+      }
+      result[i] = lastMapping;
+    }
+    return result;
   }
 
   @Override
@@ -194,25 +269,42 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     // parameter.
 
     // Synchronization needs to be handled by callers.
-    if (reverseSourceMapping == null) {
+    if (reverseSourceIndex == null) {
       createReverseMapping();
     }
 
-    Map<Integer, Collection<OriginalMapping>> sourceLineToCollectionMap =
-        reverseSourceMapping.get(originalFile);
-
-    if (sourceLineToCollectionMap == null) {
+    Integer sourceIndex = reverseSourceIndex.get(originalFile);
+    if (sourceIndex == null) {
       return Collections.emptyList();
-    } else {
-      Collection<OriginalMapping> mappings =
-          sourceLineToCollectionMap.get(line);
+    }
 
-      if (mappings == null) {
-        return Collections.emptyList();
+    // Find the first entry for the line, the entries of an original file are ordered by line.
+    int start = reverseSourceStarts[sourceIndex];
+    int end = reverseSourceStarts[sourceIndex + 1];
+    while (start < end) {
+      int mid = (start + end) >>> 1;
+      if (sourceLines[reverseEntries[mid]] < line) {
+        start = mid + 1;
       } else {
-        return mappings;
+        end = mid;
       }
     }
+
+    Collection<OriginalMapping> mappings = null;
+    for (int i = start;
+        i < reverseSourceStarts[sourceIndex + 1] && sourceLines[reverseEntries[i]] == line;
+        i++) {
+      if (mappings == null) {
+        mappings = new ArrayList<>(1);
+      }
+      int entry = reverseEntries[i];
+      mappings.add(
+          OriginalMapping.newBuilder()
+              .setLineNumber(getGeneratedLine(entry))
+              .setColumnPosition(generatedColumns[entry])
+              .build());
+    }
+    return mappings == null ? Collections.<OriginalMapping>emptyList() : mappings;
   }
 
   public String getSourceRoot(){
@@ -245,17 +337,24 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     }
 
     void build() throws SourceMapParseException {
+      int capacity = Math.max(16, content.length / 4);
+      generatedColumns = new int[capacity];
+      sourceFileIds = new int[capacity];
+      sourceLines = new int[capacity];
+      sourceColumns = new int[capacity];
+      nameIds = new int[capacity];
+      entryCount = 0;
+      lineStarts = new int[Math.max(16, lineCount + 1)];
+      lineStarts[0] = 0;
+
       int [] temp = new int[MAX_ENTRY_VALUES];
-      ArrayList<Entry> entries = new ArrayList<>();
+      int lineStart = 0;
       while (content.hasNext()) {
         // ';' denotes a new line.
         if (tryConsumeToken(';')) {
           // The line is complete, store the result
-          completeLine(entries);
-          if (!entries.isEmpty()) {
-            // A new array list for the next line.
-            entries = new ArrayList<>();
-          }
+          completeLine();
+          lineStart = entryCount;
         } else {
           // grab the next entry for the current line.
           int entryValues = 0;
@@ -263,10 +362,9 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
             temp[entryValues] = nextValue();
             entryValues++;
           }
-          Entry entry = decodeEntry(temp, entryValues);
+          decodeEntry(temp, entryValues);
 
-          validateEntry(entry);
-          entries.add(entry);
+          validateEntry(entryCount - 1);
 
           // Consume the separating token, if there is one.
           tryConsumeToken(',');
@@ -275,40 +373,44 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
       // Some source map generator (e.g.UglifyJS) generates lines without
       // a trailing line separator. So add the rest of the content.
-      if (!entries.isEmpty()) {
-        completeLine(entries);
+      if (entryCount > lineStart) {
+        completeLine();
       }
+
+      // Release the unused capacity, the decoded maps are kept for the whole compilation.
+      generatedColumns = Arrays.copyOf(generatedColumns, entryCount);
+      sourceFileIds = Arrays.copyOf(sourceFileIds, entryCount);
+      sourceLines = Arrays.copyOf(sourceLines, entryCount);
+      sourceColumns = Arrays.copyOf(sourceColumns, entryCount);
+      nameIds = Arrays.copyOf(nameIds, entryCount);
+      lineStarts = Arrays.copyOf(lineStarts, line + 1);
     }
 
-    private void completeLine(ArrayList<Entry> entries) {
-      // The line is complete, store the result for the line,
-      // null if the line is empty.
-      if (!entries.isEmpty()) {
-        lines.add(entries);
-      } else {
-        lines.add(null);
-      }
+    private void completeLine() {
+      // The line is complete, store where the next line starts.
       line++;
+      if (line == lineStarts.length) {
+        lineStarts = Arrays.copyOf(lineStarts, line * 2);
+      }
+      lineStarts[line] = entryCount;
       previousCol = 0;
     }
 
-    private void validateEntry(Entry entry) {
+    private void validateEntry(int entry) {
       Preconditions.checkState((lineCount < 0) || (line < lineCount),
           "line=%s, lineCount=%s", line, lineCount);
-      checkState(entry.getSourceFileId() == UNMAPPED || entry.getSourceFileId() < sources.length);
-      checkState(entry.getNameId() == UNMAPPED || entry.getNameId() < names.length);
+      checkState(sourceFileIds[entry] == UNMAPPED || sourceFileIds[entry] < sources.length);
+      checkState(nameIds[entry] == UNMAPPED || nameIds[entry] < names.length);
     }
 
     /**
      * Decodes the next entry, using the previous encountered values to
-     * decode the relative values.
+     * decode the relative values, and appends it to the entries.
      *
      * @param vals An array of integers that represent values in the entry.
      * @param entryValues The number of entries in the array.
-     * @return The entry object.
      */
-    private Entry decodeEntry(int[] vals, int entryValues) throws SourceMapParseException {
-      Entry entry;
+    private void decodeEntry(int[] vals, int entryValues) throws SourceMapParseException {
       switch (entryValues) {
         // The first values, if present are in the following order:
         //   0: the starting column in the current line of the generated file
@@ -323,42 +425,30 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
         case 1:
           // An unmapped section of the generated file.
-          entry = new UnmappedEntry(
-              vals[0] + previousCol);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          return entry;
+          previousCol += vals[0];
+          addEntry(previousCol, UNMAPPED, UNMAPPED, UNMAPPED, UNMAPPED);
+          return;
 
         case 4:
           // A mapped section of the generated file.
-          entry = new UnnamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          return entry;
+          previousCol += vals[0];
+          previousSrcId += vals[1];
+          previousSrcLine += vals[2];
+          previousSrcColumn += vals[3];
+          addEntry(previousCol, previousSrcId, previousSrcLine, previousSrcColumn, UNMAPPED);
+          return;
 
         case 5:
           // A mapped section of the generated file, that has an associated
           // name.
-          entry = new NamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn,
-              vals[4] + previousNameId);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          previousNameId = entry.getNameId();
-          return entry;
+          previousCol += vals[0];
+          previousSrcId += vals[1];
+          previousSrcLine += vals[2];
+          previousSrcColumn += vals[3];
+          previousNameId += vals[4];
+          addEntry(
+              previousCol, previousSrcId, previousSrcLine, previousSrcColumn, previousNameId);
+          return;
 
         default:
           throw new SourceMapParseException(
@@ -366,6 +456,23 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       }
     }
 
+    private void addEntry(int column, int srcFile, int srcLine, int srcColumn, int name) {
+      if (entryCount == generatedColumns.length) {
+        int capacity = entryCount * 2;
+        generatedColumns = Arrays.copyOf(generatedColumns, capacity);
+        sourceFileIds = Arrays.copyOf(sourceFileIds, capacity);
+        sourceLines = Arrays.copyOf(sourceLines, capacity);
+        sourceColumns = Arrays.copyOf(sourceColumns, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+      }
+      generatedColumns[entryCount] = column;
+      sourceFileIds[entryCount] = srcFile;
+      sourceLines[entryCount] = srcLine;
+      sourceColumns[entryCount] = srcColumn;
+      nameIds[entryCount] = name;
+      entryCount++;
+    }
+
     private boolean tryConsumeToken(char token) {
       if (content.hasNext() && content.peek() == token) {
         // consume the comma
@@ -393,10 +500,10 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
    * Perform a binary search on the array to find a section that covers
    * the target column.
    */
-  private static int search(ArrayList<Entry> entries, int target, int start, int end) {
+  private static int search(int[] columns, int target, int start, int end) {
     while (true) {
       int mid = ((end - start) / 2) + start;
-      int compare = compareEntry(entries, mid, target);
+      int compare = columns[mid] - target;
       if (compare == 0) {
         return mid;
       } else if (compare < 0) {
@@ -415,90 +522,112 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     }
   }
 
-  /**
-   * Compare an array entry's column value to the target column value.
-   */
-  private static int compareEntry(ArrayList<Entry> entries, int entry, int target) {
-    return entries.get(entry).getGeneratedColumn() - target;
+  /** Returns the number of generated lines that were decoded. */
+  private int getDecodedLineCount() {
+    return lineStarts.length - 1;
   }
 
-  /**
-   * Returns the mapping entry that proceeds the supplied line or null if no
-   * such entry exists.
-   */
-  private OriginalMapping getPreviousMapping(int lineNumber) {
-    do {
-      if (lineNumber == 0) {
-        return null;
+  /** Returns the generated line of the given entry. */
+  private int getGeneratedLine(int entry) {
+    // Find the last line starting at or before the entry. Empty lines share their start with the
+    // following line, so take the last of them.
+    int low = 0;
+    int high = getDecodedLineCount() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (lineStarts[mid] <= entry) {
+        low = mid;
+      } else {
+        high = mid - 1;
       }
-      lineNumber--;
-    } while (lines.get(lineNumber) == null);
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    return getOriginalMappingForEntry(Iterables.getLast(entries));
+    }
+    return low;
   }
 
   /**
-   * Creates an "OriginalMapping" object for the given entry object.
+   * Creates an "OriginalMapping" object for the given entry.
    */
-  private OriginalMapping getOriginalMappingForEntry(Entry entry) {
-    if (entry.getSourceFileId() == UNMAPPED) {
+  private OriginalMapping getOriginalMappingForEntry(int entry) {
+    if (sourceFileIds[entry] == UNMAPPED) {
       return null;
     } else {
       // Adjust the line/column here to be start at 1.
       Builder x = OriginalMapping.newBuilder()
-        .setOriginalFile(sources[entry.getSourceFileId()])
-        .setLineNumber(entry.getSourceLine() + 1)
-        .setColumnPosition(entry.getSourceColumn() + 1);
-      if (entry.getNameId() != UNMAPPED) {
-        x.setIdentifier(names[entry.getNameId()]);
+        .setOriginalFile(sources[sourceFileIds[entry]])
+        .setLineNumber(sourceLines[entry] + 1)
+        .setColumnPosition(sourceColumns[entry] + 1);
+      if (nameIds[entry] != UNMAPPED) {
+        x.setIdentifier(names[nameIds[entry]]);
       }
       return x.build();
     }
   }
 
   /**
-   * Reverse the source map; the created mapping will allow us to quickly go
-   * from a source file and line number to a collection of target
-   * OriginalMappings.
+   * Reverse the source map; the created index will allow us to quickly go
+   * from a source file and line number to the entries mapped from it.
    */
   private void createReverseMapping() {
-    reverseSourceMapping = new HashMap<>();
-
-    for (int targetLine = 0; targetLine < lines.size(); targetLine++) {
-      ArrayList<Entry> entries = lines.get(targetLine);
-
-      if (entries != null) {
-        for (Entry entry : entries) {
-          if (entry.getSourceFileId() != UNMAPPED
-              && entry.getSourceLine() != UNMAPPED) {
-            String originalFile = sources[entry.getSourceFileId()];
-
-            if (!reverseSourceMapping.containsKey(originalFile)) {
-              reverseSourceMapping.put(originalFile,
-                  new HashMap<Integer, Collection<OriginalMapping>>());
-            }
-
-            Map<Integer, Collection<OriginalMapping>> lineToCollectionMap =
-                reverseSourceMapping.get(originalFile);
+    // Sources that are listed more than once share one index.
+    Map<String, Integer> sourceIndex = new HashMap<>();
+    int sourceCount = sources == null ? 0 : sources.length;
+    int[] sourceIds = new int[sourceCount];
+    for (int i = 0; i < sourceCount; i++) {
+      Integer index = sourceIndex.get(sources[i]);
+      if (index == null) {
+        index = sourceIndex.size();
+        sourceIndex.put(sources[i], index);
+      }
+      sourceIds[i] = index;
+    }
 
-            int sourceLine = entry.getSourceLine();
+    // Order the mapped entries by original line, then by original file, with two stable
+    // counting sorts. Entries for the same line stay in generated order.
+    int maxSourceLine = -1;
+    int mappedCount = 0;
+    for (int i = 0; i < entryCount; i++) {
+      if (isReversible(i)) {
+        maxSourceLine = Math.max(maxSourceLine, sourceLines[i]);
+        mappedCount++;
+      }
+    }
 
-            if (!lineToCollectionMap.containsKey(sourceLine)) {
-              lineToCollectionMap.put(sourceLine,
-                  new ArrayList<OriginalMapping>(1));
-            }
+    int[] byLine = new int[mappedCount];
+    int[] sourceLineStarts = new int[maxSourceLine + 2];
+    for (int i = 0; i < entryCount; i++) {
+      if (isReversible(i)) {
+        sourceLineStarts[sourceLines[i] + 1]++;
+      }
+    }
+    for (int i = 1; i < sourceLineStarts.length; i++) {
+      sourceLineStarts[i] += sourceLineStarts[i - 1];
+    }
+    for (int i = 0; i < entryCount; i++) {
+      if (isReversible(i)) {
+        byLine[sourceLineStarts[sourceLines[i]]++] = i;
+      }
+    }
 
-            Collection<OriginalMapping> mappings =
-                lineToCollectionMap.get(sourceLine);
+    int[] entries = new int[mappedCount];
+    int[] sourceStarts = new int[sourceIndex.size() + 1];
+    for (int entry : byLine) {
+      sourceStarts[sourceIds[sourceFileIds[entry]] + 1]++;
+    }
+    for (int i = 1; i < sourceStarts.length; i++) {
+      sourceStarts[i] += sourceStarts[i - 1];
+    }
+    int[] next = Arrays.copyOf(sourceStarts, sourceStarts.length - 1);
+    for (int entry : byLine) {
+      entries[next[sourceIds[sourceFileIds[entry]]]++] = entry;
+    }
 
-            Builder builder = OriginalMapping.newBuilder().setLineNumber(
-                targetLine).setColumnPosition(entry.getGeneratedColumn());
+    reverseEntries = entries;
+    reverseSourceStarts = sourceStarts;
+    reverseSourceIndex = sourceIndex;
+  }
 
-            mappings.add(builder.build());
-          }
-        }
-      }
-    }
+  private boolean isReversible(int entry) {
+    return sourceFileIds[entry] != UNMAPPED && sourceLines[entry] >= 0;
   }
 
   /**
@@ -530,109 +659,6 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     }
   }
 
-  /**
-   * Represents a mapping entry in the source map.
-   */
-  private interface Entry {
-    int getGeneratedColumn();
-    int getSourceFileId();
-    int getSourceLine();
-    int getSourceColumn();
-    int getNameId();
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is not mapped
-   * to a section in the original source.
-   */
-  private static class UnmappedEntry implements Entry {
-    private final int column;
-
-    UnmappedEntry(int column) {
-      this.column = column;
-    }
-
-    @Override
-    public int getGeneratedColumn() {
-      return column;
-    }
-
-    @Override
-    public int getSourceFileId() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getSourceLine() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getSourceColumn() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
-    }
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source.
-   */
-  private static class UnnamedEntry extends UnmappedEntry {
-    private final int srcFile;
-    private final int srcLine;
-    private final int srcColumn;
-
-    UnnamedEntry(int column, int srcFile, int srcLine, int srcColumn) {
-      super(column);
-      this.srcFile = srcFile;
-      this.srcLine = srcLine;
-      this.srcColumn = srcColumn;
-    }
-
-    @Override
-    public int getSourceFileId() {
-      return srcFile;
-    }
-
-    @Override
-    public int getSourceLine() {
-      return srcLine;
-    }
-
-    @Override
-    public int getSourceColumn() {
-      return srcColumn;
-    }
-
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
-    }
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source, and is associated with a name.
-   */
-  private static class NamedEntry extends UnnamedEntry {
-    private final int name;
-
-    NamedEntry(int column, int srcFile, int srcLine, int srcColumn, int name) {
-      super(column, srcFile, srcLine, srcColumn);
-      this.name = name;
-    }
-
-    @Override
-    public int getNameId() {
-      return name;
-    }
-  }
-
   public static interface EntryVisitor {
     void visit(String sourceName,
                String symbolName,
@@ -648,35 +674,31 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     FilePosition sourceStartPosition = null;
     FilePosition startPosition = null;
 
-    final int lineCount = lines.size();
+    final int lineCount = getDecodedLineCount();
     for (int i = 0; i < lineCount; i++) {
-      ArrayList<Entry> line = lines.get(i);
-      if (line != null) {
-        final int entryCount = line.size();
-        for (int j = 0; j < entryCount; j++) {
-          Entry entry = line.get(j);
-          if (pending) {
-            FilePosition endPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
-            visitor.visit(
-                sourceName,
-                symbolName,
-                sourceStartPosition,
-                startPosition,
-                endPosition);
-            pending = false;
-          }
+      final int end = lineStarts[i + 1];
+      for (int entry = lineStarts[i]; entry < end; entry++) {
+        if (pending) {
+          FilePosition endPosition = new FilePosition(
+              i, generatedColumns[entry]);
+          visitor.visit(
+              sourceName,
+              symbolName,
+              sourceStartPosition,
+              startPosition,
+              endPosition);
+          pending = false;
+        }
 
-          if (entry.getSourceFileId() != UNMAPPED) {
-            pending = true;
-            sourceName = sources[entry.getSourceFileId()];
-            symbolName = (entry.getNameId() != UNMAPPED)
-                ? names[entry.getNameId()] : null;
-            sourceStartPosition = new FilePosition(
-                entry.getSourceLine(), entry.getSourceColumn());
-            startPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
-          }
+        if (sourceFileIds[entry] != UNMAPPED) {
+          pending = true;
+          sourceName = sources[sourceFileIds[entry]];
+          symbolName = (nameIds[entry] != UNMAPPED)
+              ? names[nameIds[entry]] : null;
+          sourceStartPosition = new FilePosition(
+              sourceLines[entry], sourceColumns[entry]);
+          startPosition = new FilePosition(
+              i, generatedColumns[entry]);
         }
       }
     }
@@ -24,6 +24,7 @@ import com.google.debugging.sourcemap.SourceMapConsumerV3.EntryVisitor;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedHashMap;
@@ -64,13 +65,18 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
         Object newValue);
   }
 
-  private static final int UNMAPPED = -1;
-
-
   /**
-   * A pre-order traversal ordered list of mappings stored in this map.
+   * The "mappings" field encoded so far, in coordinates that do not account for the wrapper
+   * prefix. A mapping is encoded as soon as the extent of generated code it covers is known, so
+   * only the mappings enclosing the most recent one are retained.
    */
-  private final List<Mapping> mappings = new ArrayList<>();
+  private final EncodedMappings encodedMappings = new EncodedMappings();
+
+  /** Encodes mappings into {@link #encodedMappings} as they are added. */
+  private MappingEncoder encoder = new MappingEncoder();
+
+  /** Whether the first mapping added did not start at the beginning of the generated code. */
+  private boolean hasLeadingGap = false;
 
   /**
    * A map of source names to source name index
@@ -136,7 +142,9 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    */
   @Override
   public void reset() {
-    mappings.clear();
+    encodedMappings.clear();
+    encoder = new MappingEncoder();
+    hasLeadingGap = false;
     lastMapping = null;
     sourceFileMap.clear();
     sourceFileContentMap.clear();
@@ -263,10 +271,12 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
           "Incorrect source mappings order, previous : (%s,%s)\n"
           + "new : (%s,%s)",
           lastLine, lastColumn, nextLine, nextColumn);
+    } else {
+      hasLeadingGap = adjustedStart.getLine() != 0 || adjustedStart.getColumn() != 0;
     }
 
     lastMapping = mapping;
-    mappings.add(mapping);
+    encoder.add(mapping);
   }
 
   @Override public void addSourcesContent(String source, String content) {
@@ -368,7 +378,22 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    */
   @Override
   public void appendTo(Appendable out, @Nullable String name) throws IOException {
-    int maxLine = prepMappings() + 1;
+    // Close the mappings that are still open on a copy of the encoder, so that more mappings can
+    // be added afterwards.
+    int encodedSize = encodedMappings.size();
+    int encodedLineCount = encodedMappings.lineCount();
+    MappingEncoder finished = new MappingEncoder(encoder);
+    finished.finish();
+    try {
+      appendTo(out, name, finished);
+    } finally {
+      encodedMappings.truncate(encodedSize, encodedLineCount);
+    }
+  }
+
+  private void appendTo(Appendable out, @Nullable String name, MappingEncoder finished)
+      throws IOException {
+    int maxLine = finished.maxMappedLine + prefixPosition.getLine() + 1;
 
     // Add the header fields.
     out.append("{\n");
@@ -385,10 +410,10 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
 
     // Add the mappings themselves.
     appendFieldStart(out, "mappings");
-    // out.append("[");
-    (new LineMapper(out, maxLine)).appendLineMappings();
-
-    // out.append("]");
+    out.append('"');
+    appendLineMappings(out, finished.maxMappedLine + 1);
+    // Close the final line.
+    out.append(";\"");
     appendFieldEnd(out);
 
     // Files names
@@ -586,25 +611,51 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
   }
 
   /**
-   * Assigns sequential ids to used mappings, and returns the last line mapped.
+   * Writes the encoded line mappings, adjusted for the wrapper prefix.
+   *
+   * @param maxLine The number of lines that have mapped code, not counting the prefix. Nothing is
+   *     written for the unmapped lines beyond it.
    */
-  private int prepMappings() throws IOException {
-    // Mark any unused mappings.
-    (new MappingTraversal()).traverse(new UsedMappingCheck());
+  private void appendLineMappings(Appendable out, int maxLine) throws IOException {
+    int end =
+        encodedMappings.lineCount() >= maxLine
+            ? encodedMappings.lineEnd(maxLine - 1)
+            : encodedMappings.size();
+    int prefixLine = prefixPosition.getLine();
+    int prefixColumn = prefixPosition.getColumn();
+    if (lastMapping == null || (prefixLine == 0 && prefixColumn == 0)) {
+      encodedMappings.appendTo(out, 0, end);
+      return;
+    }
 
-    // Renumber used mappings and keep track of the last line.
-    int id = 0;
-    int maxLine = 0;
-    for (Mapping m : mappings) {
-      if (m.used) {
-        m.id = id++;
-        int endPositionLine = m.endPosition.getLine();
-        maxLine = Math.max(maxLine, endPositionLine);
+    // The prefix only changes the first line of the encoded mappings. The generated code before
+    // the first mapping is always covered by an unmapped segment, which now spans the prefix.
+    int firstLineEnd =
+        encodedMappings.lineCount() > 0 ? encodedMappings.lineEnd(0) - 1 : encodedMappings.size();
+    int segmentsStart = 0;
+    if (hasLeadingGap) {
+      // Drop the unmapped segment, it is replaced by the one written here.
+      segmentsStart = encodedMappings.indexOf(',', 0, firstLineEnd) + 1;
+      if (segmentsStart == 0) {
+        segmentsStart = firstLineEnd;
       }
     }
-
-    // Adjust for the prefix.
-    return maxLine + prefixPosition.getLine();
+    Base64VLQ.encode(out, 0);
+    for (int i = 0; i < prefixLine; i++) {
+      out.append(';');
+    }
+    if (segmentsStart < firstLineEnd) {
+      if (prefixLine == 0) {
+        out.append(',');
+      }
+      // The first segment of a line holds its absolute column, shift it past the prefix. The
+      // columns of the following segments are relative to it.
+      EncodedMappings.Reader reader = encodedMappings.reader(segmentsStart);
+      int column = Base64VLQ.decode(reader);
+      Base64VLQ.encode(out, column + prefixColumn);
+      segmentsStart = reader.position();
+    }
+    encodedMappings.appendTo(out, segmentsStart, end);
   }
 
   /**
@@ -612,11 +663,6 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    * in the generated code.
    */
   static class Mapping {
-    /**
-     * A unique ID for this mapping for record keeping purposes.
-     */
-    int id = UNMAPPED;
-
     /**
      * The source file index.
      */
@@ -646,110 +692,181 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * represented by this mapping (if any).
      */
     String originalName;
-
-    /**
-     * Whether the mapping is actually used by the source map.
-     */
-    boolean used = false;
   }
 
   /**
-   * Mark any visited mapping as "used".
+   * The encoded "mappings" field, stored as bytes since it only holds Base64 digits and
+   * separators.
    */
-  private static class UsedMappingCheck implements MappingVisitor {
-    /**
-     * @throws IOException
-     */
+  private static final class EncodedMappings implements Appendable {
+    private byte[] bytes = new byte[1024];
+    private int size = 0;
+    /** The offset just past each line separator. */
+    private int[] lineEnds = new int[64];
+    private int lineCount = 0;
+
     @Override
-    public void visit(Mapping m, int line, int col, int nextLine, int nextCol)
-        throws IOException {
-      if (m != null) {
-        m.used = true;
+    public Appendable append(char c) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, size * 2);
       }
+      bytes[size++] = (byte) c;
+      return this;
     }
-  }
 
-  private interface MappingVisitor {
-    /**
-     * @param m The mapping for the current code segment. null if the segment
-     *     is unmapped.
-     * @param line The starting line for this code segment.
-     * @param col The starting column for this code segment.
-     * @param endLine The ending line
-     * @param endCol The ending column
-     * @throws IOException
-     */
-    void visit(Mapping m, int line, int col, int endLine, int endCol)
-        throws IOException;
+    @Override
+    public Appendable append(CharSequence csq) {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      for (int i = start; i < end; i++) {
+        append(csq.charAt(i));
+      }
+      return this;
+    }
+
+    void endLine() {
+      append(';');
+      if (lineCount == lineEnds.length) {
+        lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+      }
+      lineEnds[lineCount++] = size;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int lineCount() {
+      return lineCount;
+    }
+
+    int lineEnd(int line) {
+      return lineEnds[line];
+    }
+
+    int indexOf(char c, int start, int end) {
+      for (int i = start; i < end; i++) {
+        if (bytes[i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    void truncate(int size, int lineCount) {
+      this.size = size;
+      this.lineCount = lineCount;
+    }
+
+    void clear() {
+      truncate(0, 0);
+    }
+
+    void appendTo(Appendable out, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        out.append((char) bytes[i]);
+      }
+    }
+
+    Reader reader(int position) {
+      return new Reader(position);
+    }
+
+    /** Reads back encoded values. */
+    final class Reader implements Base64VLQ.CharIterator {
+      private int position;
+
+      Reader(int position) {
+        this.position = position;
+      }
+
+      int position() {
+        return position;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return position < size;
+      }
+
+      @Override
+      public char next() {
+        return (char) bytes[position++];
+      }
+    }
   }
 
   /**
-   * Walk the mappings and visit each segment of the mappings, unmapped
-   * segments are visited with a null mapping, unused mapping are not visited.
+   * Encodes mappings as they are added. The mappings are added in a pre-order traversal, and
+   * their positions give enough information to rebuild the stack of enclosing mappings. The code
+   * up to the start of each new mapping is therefore fully known, and is encoded right away.
    */
-  private class MappingTraversal {
-    // The last line and column written
+  private final class MappingEncoder {
+    private final Deque<Mapping> openMappings;
+
+    // The end of the generated code encoded so far.
     private int line;
     private int col;
 
-    MappingTraversal() {
-    }
-
-    // Append the line mapping entries.
-    void traverse(MappingVisitor v) throws IOException {
-      // The mapping list is ordered as a pre-order traversal.  The mapping
-      // positions give us enough information to rebuild the stack and this
-      // allows the building of the source map in O(n) time.
-      Deque<Mapping> stack = new ArrayDeque<>();
-      for (Mapping m : mappings) {
-        // Find the closest ancestor of the current mapping:
-        // An overlapping mapping is an ancestor of the current mapping, any
-        // non-overlapping mappings are siblings (or cousins) and must be
-        // closed in the reverse order of when they encountered.
-        while (!stack.isEmpty() && !isOverlapped(stack.peek(), m)) {
-          Mapping previous = stack.pop();
-          maybeVisit(v, previous);
-        }
+    /** The last line covered by an encoded mapping. */
+    private int maxMappedLine;
 
-        // Any gaps between the current line position and the start of the
-        // current mapping belong to the parent.
-        Mapping parent = stack.peek();
-        maybeVisitParent(v, parent, m);
+    private int previousLine = -1;
+    private int previousColumn = 0;
 
-        stack.push(m);
-      }
+    // Previous values used for storing relative ids.
+    private int previousSourceFileId;
+    private int previousSourceLine;
+    private int previousSourceColumn;
+    private int previousNameId;
 
-      // There are no more children to be had, simply close the remaining
-      // mappings in the reverse order of when they encountered.
-      while (!stack.isEmpty()) {
-        Mapping m = stack.pop();
-        maybeVisit(v, m);
-      }
+    MappingEncoder() {
+      this.openMappings = new ArrayDeque<>();
     }
 
-    /**
-     * @return The line adjusted for the prefix position.
-     */
-    private int getAdjustedLine(FilePosition p) {
-      return p.getLine() + prefixPosition.getLine();
+    MappingEncoder(MappingEncoder other) {
+      this.openMappings = new ArrayDeque<>(other.openMappings);
+      this.line = other.line;
+      this.col = other.col;
+      this.maxMappedLine = other.maxMappedLine;
+      this.previousLine = other.previousLine;
+      this.previousColumn = other.previousColumn;
+      this.previousSourceFileId = other.previousSourceFileId;
+      this.previousSourceLine = other.previousSourceLine;
+      this.previousSourceColumn = other.previousSourceColumn;
+      this.previousNameId = other.previousNameId;
     }
 
-    /**
-     * @return The column adjusted for the prefix position.
-     */
-    private int getAdjustedCol(FilePosition p) {
-      int rawLine = p.getLine();
-      int rawCol = p.getColumn();
-      // Only the first line needs the character position adjusted.
-      return (rawLine != 0)
-          ? rawCol : rawCol + prefixPosition.getColumn();
+    void add(Mapping m) {
+      // Find the closest ancestor of the current mapping:
+      // An overlapping mapping is an ancestor of the current mapping, any
+      // non-overlapping mappings are siblings (or cousins) and must be
+      // closed in the reverse order of when they encountered.
+      while (!openMappings.isEmpty() && !isOverlapped(openMappings.peek(), m)) {
+        maybeVisit(openMappings.pop());
+      }
+
+      // Any gaps between the current line position and the start of the
+      // current mapping belong to the parent.
+      maybeVisitParent(openMappings.peek(), m);
+
+      openMappings.push(m);
+    }
+
+    /** Closes the remaining mappings in the reverse order of when they were encountered. */
+    void finish() {
+      while (!openMappings.isEmpty()) {
+        maybeVisit(openMappings.pop());
+      }
     }
 
     /**
      * @return Whether m1 ends before m2 starts.
      */
     private boolean isOverlapped(Mapping m1, Mapping m2) {
-      // No need to use adjusted values here, relative positions are sufficient.
       int l1 = m1.endPosition.getLine();
       int l2 = m2.startPosition.getLine();
       int c1 = m1.endPosition.getColumn();
@@ -762,50 +879,98 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * Write any needed entries from the current position to the end of the
      * provided mapping.
      */
-    private void maybeVisit(MappingVisitor v, Mapping m) throws IOException {
-      int nextLine = getAdjustedLine(m.endPosition);
-      int nextCol = getAdjustedCol(m.endPosition);
+    private void maybeVisit(Mapping m) {
+      int nextLine = m.endPosition.getLine();
+      int nextCol = m.endPosition.getColumn();
       // If this anything remaining in this mapping beyond the
       // current line and column position, write it out now.
       if (line < nextLine || (line == nextLine && col < nextCol)) {
-        visit(v, m, nextLine, nextCol);
+        visit(m, nextLine, nextCol);
       }
     }
 
     /**
      * Write any needed entries to complete the provided mapping.
      */
-    private void maybeVisitParent(MappingVisitor v, Mapping parent, Mapping m)
-        throws IOException {
-      int nextLine = getAdjustedLine(m.startPosition);
-      int nextCol = getAdjustedCol(m.startPosition);
+    private void maybeVisitParent(@Nullable Mapping parent, Mapping m) {
+      int nextLine = m.startPosition.getLine();
+      int nextCol = m.startPosition.getColumn();
       // If the previous value is null, no mapping exists.
       checkState(line < nextLine || col <= nextCol);
       if (line < nextLine || (line == nextLine && col < nextCol)) {
-        visit(v, parent, nextLine, nextCol);
+        visit(parent, nextLine, nextCol);
       }
     }
 
     /**
-     * Write any entries needed between the current position the next position
-     * and update the current position.
+     * Write the entry for the segment from the current position to the next position, and update
+     * the current position.
      */
-    private void visit(MappingVisitor v, Mapping m,
-        int nextLine, int nextCol)
-        throws IOException {
+    private void visit(@Nullable Mapping m, int nextLine, int nextCol) {
       checkState(line <= nextLine);
       checkState(line < nextLine || col < nextCol);
 
-      if (line == nextLine && col == nextCol) {
-        // Nothing to do.
-        throw new IllegalStateException();
+      if (previousLine != line) {
+        previousColumn = 0;
+      } else {
+        // not the first entry for the line
+        encodedMappings.append(',');
       }
+      writeEntry(m, col);
+      previousLine = line;
 
-      v.visit(m, line, col, nextLine, nextCol);
+      for (int i = line; i < nextLine; i++) {
+        encodedMappings.endLine();
+      }
 
       line = nextLine;
       col = nextCol;
     }
+
+    /**
+     * Writes an entry for the given column (of the generated text) and
+     * associated mapping.
+     * The values are stored as relative to the last seen values for each
+     * field and encoded as Base64VLQs.
+     */
+    private void writeEntry(@Nullable Mapping m, int column) {
+      // The relative generated column number
+      encode(column - previousColumn);
+      previousColumn = column;
+      if (m != null) {
+        maxMappedLine = Math.max(maxMappedLine, m.endPosition.getLine());
+
+        // The relative source file id
+        int sourceId = getSourceId(m.sourceFile);
+        encode(sourceId - previousSourceFileId);
+        previousSourceFileId = sourceId;
+
+        // The relative source file line and column
+        int srcline = m.originalPosition.getLine();
+        int srcColumn = m.originalPosition.getColumn();
+        encode(srcline - previousSourceLine);
+        previousSourceLine = srcline;
+
+        encode(srcColumn - previousSourceColumn);
+        previousSourceColumn = srcColumn;
+
+        if (m.originalName != null) {
+          // The relative id for the associated symbol name
+          int nameId = getNameId(m.originalName);
+          encode(nameId - previousNameId);
+          previousNameId = nameId;
+        }
+      }
+    }
+
+    private void encode(int value) {
+      try {
+        Base64VLQ.encode(encodedMappings, value);
+      } catch (IOException e) {
+        // EncodedMappings does not throw.
+        throw new IllegalStateException(e);
+      }
+    }
   }
 
   /**
@@ -887,125 +1052,4 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     }
     return originalNameIndex;
   }
-
-  private class LineMapper implements MappingVisitor {
-    // The destination.
-    private final Appendable out;
-    private final int maxLine; // TODO(johnlenz): This shouldn't be necessary to track.
-
-    private int previousLine = -1;
-    private int previousColumn = 0;
-
-    // Previous values used for storing relative ids.
-    private int previousSourceFileId;
-    private int previousSourceLine;
-    private int previousSourceColumn;
-    private int previousNameId;
-
-    LineMapper(Appendable out, int maxLine) {
-      this.out = out;
-      this.maxLine = maxLine;
-    }
-
-    /**
-     * As each segment is visited write out the appropriate line mapping.
-     */
-    @Override
-    public void visit(Mapping m, int line, int col, int nextLine, int nextCol)
-      throws IOException {
-      if (previousLine != line) {
-        previousColumn = 0;
-      }
-
-      if (line != nextLine || col != nextCol) {
-        // TODO(johnlenz): For some reason, we have mappings beyond the max line.
-        // So far they're just null mappings and we can ignore them.
-        // (If they're non-null, we assert-fail.)
-        if (line < maxLine) {
-          if (previousLine == line) { // not the first entry for the line
-            out.append(',');
-          }
-          writeEntry(m, col);
-          previousLine = line;
-          previousColumn = col;
-        } else {
-          checkState(m == null);
-        }
-      }
-
-      for (int i = line; i <= nextLine && i < maxLine; i++) {
-        if (i == nextLine) {
-          break;
-        }
-
-        closeLine(false);
-        openLine(false);
-      }
-    }
-
-    /**
-     * Writes an entry for the given column (of the generated text) and
-     * associated mapping.
-     * The values are stored as relative to the last seen values for each
-     * field and encoded as Base64VLQs.
-     */
-    void writeEntry(Mapping m, int column) throws IOException {
-      // The relative generated column number
-      Base64VLQ.encode(out, column - previousColumn);
-      previousColumn = column;
-      if (m != null) {
-        // The relative source file id
-        int sourceId = getSourceId(m.sourceFile);
-        Base64VLQ.encode(out, sourceId - previousSourceFileId);
-        previousSourceFileId = sourceId;
-
-        // The relative source file line and column
-        int srcline = m.originalPosition.getLine();
-        int srcColumn = m.originalPosition.getColumn();
-        Base64VLQ.encode(out, srcline - previousSourceLine);
-        previousSourceLine = srcline;
-
-        Base64VLQ.encode(out, srcColumn - previousSourceColumn);
-        previousSourceColumn = srcColumn;
-
-        if (m.originalName != null) {
-          // The relative id for the associated symbol name
-          int nameId = getNameId(m.originalName);
-          Base64VLQ.encode(out, (nameId - previousNameId));
-          previousNameId = nameId;
-        }
-      }
-    }
-
-    // Append the line mapping entries.
-    void appendLineMappings() throws IOException {
-      // Start the first line.
-      openLine(true);
-
-      (new MappingTraversal()).traverse(this);
-
-      // And close the final line.
-      closeLine(true);
-    }
-
-    /**
-     * Begin the entry for a new line.
-     */
-    private void openLine(boolean firstEntry) throws IOException {
-      if (firstEntry) {
-        out.append('\"');
-      }
-    }
-
-    /**
-     * End the entry for a line.
-     */
-    private void closeLine(boolean finalEntry) throws IOException {
-      out.append(';');
-      if (finalEntry) {
-        out.append('\"');
-      }
-    }
-  }
-
 }
@@ -29,6 +29,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -517,7 +518,9 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
   @GwtIncompatible("Unnecessary")
   public final void run() {
     int result;
-    try {
+    // Inputs are not expected to change during a single run, so check zip inputs for
+    // modifications only once.
+    try (ZipEntryReader.StatCheckBatch statChecks = ZipEntryReader.batchStatChecks()) {
       result = doRun();
     } catch (FlagUsageException e) {
       err.println(e.getMessage());
@@ -1033,8 +1036,37 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
     checkState(compiler.getOptions().outputJs == OutputJs.NORMAL);
 
-    String code = module == null ? compiler.toSource() : compiler.toSource(module);
-    writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
+    if (escaper != null) {
+      String code = module == null ? compiler.toSource() : compiler.toSource(module);
+      writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
+      return;
+    }
+
+    // Print the code straight into the output, one input at a time, so that the code for a whole
+    // module or binary is never held in memory at once.
+    int pos = wrapper.indexOf(codePlaceholder);
+    String prefix = pos == -1 ? "" : wrapper.substring(0, pos);
+    out.append(prefix);
+    try {
+      if (module == null) {
+        compiler.toSource(out);
+      } else {
+        compiler.toSource(module, out);
+      }
+    } catch (RuntimeException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw e;
+    }
+    if (pos != -1) {
+      out.append(wrapper.substring(pos + codePlaceholder.length()));
+    }
+    // Make sure we always end output with a line feed.
+    out.append('\n');
+
+    // If we have a source map, adjust its offsets to match the code WITHIN the wrapper.
+    if (pos != -1 && compiler.getSourceMap() != null) {
+      compiler.getSourceMap().setWrapperPrefix(prefix);
+    }
   }
 
   /**
@@ -458,6 +458,10 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
 
   abstract CompilerOptions getOptions();
 
+  /** Returns the tracker of the performance of passes, or null if it is not being tracked. */
+  @Nullable
+  abstract PerformanceTracker getPerformanceTracker();
+
   /**
    * The set of features defined by the input language mode that have not (yet) been transpiled
    * away.
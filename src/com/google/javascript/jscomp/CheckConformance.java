@@ -21,13 +21,16 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.TextFormat;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Provides a framework for checking code against a set of user configured conformance rules. The
@@ -59,14 +62,63 @@ public final class CheckConformance implements Callback, CompilerPass {
           "JSC_INVALID_REQUIREMENT_SPEC",
           "Invalid requirement. Reason: {0}\nRequirement spec:\n{1}");
 
+  private static final int[] NO_RULES = new int[0];
+
   private final AbstractCompiler compiler;
   private final ImmutableList<Rule> rules;
+  private final ImmutableList<String> ruleNames;
+
+  // The rules each node is offered, by index into rules and in increasing order. A node is offered
+  // the rules in rulesForAllNodes, the rules in rulesByToken for its token, and the rules in
+  // rulesByTokenAndString for its token and candidate string.
+  private final int[] rulesForAllNodes;
+  private final Map<Token, int[]> rulesByToken = new EnumMap<>(Token.class);
+  private final Map<Token, Map<String, int[]>> rulesByTokenAndString = new EnumMap<>(Token.class);
+
+  /** The time spent in each rule, in nanoseconds, or null if rules are not timed. */
+  @Nullable private long[] ruleRuntimes;
 
   public static interface Rule {
     /** Perform conformance check */
     void check(NodeTraversal t, Node n);
   }
 
+  /**
+   * A rule that can only report nodes with some tokens, and possibly only the nodes with some
+   * candidate strings. Such a rule is only offered the nodes it could report, rather than every
+   * node.
+   */
+  public static interface IndexableRule extends Rule {
+    /** Returns the tokens of the nodes this rule may report. */
+    ImmutableSet<Token> getCandidateTokens();
+
+    /**
+     * Returns the strings of the nodes this rule may report, as returned by {@link
+     * CheckConformance#getCandidateString}, or null if it may report nodes whatever their string.
+     */
+    @Nullable
+    ImmutableSet<String> getCandidateStrings();
+  }
+
+  /**
+   * Returns the string a node is indexed by for {@link IndexableRule}s: the name of a NAME node,
+   * and the property name of a GETPROP or GETELEM node with a string key. Returns null for other
+   * nodes.
+   */
+  @Nullable
+  public static String getCandidateString(Node n) {
+    switch (n.getToken()) {
+      case NAME:
+        return n.getString();
+      case GETPROP:
+      case GETELEM:
+        Node key = n.getLastChild();
+        return key.isString() ? key.getString() : null;
+      default:
+        return null;
+    }
+  }
+
   /**
    * @param configs The rules to check.
    */
@@ -74,15 +126,92 @@ public final class CheckConformance implements Callback, CompilerPass {
       AbstractCompiler compiler,
       ImmutableList<ConformanceConfig> configs) {
     this.compiler = compiler;
-    // Initialize the map of functions to inspect for renaming candidates.
-    this.rules = initRules(compiler, configs);
+    ImmutableList.Builder<Rule> rulesBuilder = ImmutableList.builder();
+    ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+    initRules(compiler, configs, rulesBuilder, namesBuilder);
+    this.rules = rulesBuilder.build();
+    this.ruleNames = namesBuilder.build();
+    this.rulesForAllNodes = indexRules();
+
+    ConformanceRules.WhitelistPrefixes whitelistPrefixes =
+        new ConformanceRules.WhitelistPrefixes();
+    for (Rule rule : rules) {
+      rule = unwrap(rule);
+      if (rule instanceof ConformanceRules.AbstractRule) {
+        ((ConformanceRules.AbstractRule) rule).indexWhitelistPrefixes(whitelistPrefixes);
+      }
+    }
+  }
+
+  /** Returns the rule a custom rule proxy loaded, or the rule itself for other rules. */
+  private static Rule unwrap(Rule rule) {
+    return rule instanceof ConformanceRules.CustomRuleProxy
+        ? ((ConformanceRules.CustomRuleProxy) rule).customRule
+        : rule;
   }
 
   @Override
   public void process(Node externs, Node root) {
     if (!rules.isEmpty()) {
+      PerformanceTracker tracker = compiler.getPerformanceTracker();
+      ruleRuntimes = tracker != null ? new long[rules.size()] : null;
       NodeTraversal.traverseRoots(compiler, this, externs, root);
+      if (tracker != null) {
+        for (int i = 0; i < rules.size(); i++) {
+          tracker.recordComponentRuntime(ruleNames.get(i), ruleRuntimes[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the indexable rules to rulesByToken and rulesByTokenAndString, and returns the rules
+   * that are offered every node.
+   */
+  private int[] indexRules() {
+    List<Integer> forAllNodes = new ArrayList<>();
+    Map<Token, List<Integer>> byToken = new EnumMap<>(Token.class);
+    Map<Token, Map<String, List<Integer>>> byTokenAndString = new EnumMap<>(Token.class);
+    for (int i = 0; i < rules.size(); i++) {
+      Rule rule = unwrap(rules.get(i));
+      if (!(rule instanceof IndexableRule)) {
+        forAllNodes.add(i);
+        continue;
+      }
+      IndexableRule indexable = (IndexableRule) rule;
+      ImmutableSet<String> strings = indexable.getCandidateStrings();
+      for (Token token : indexable.getCandidateTokens()) {
+        if (strings == null) {
+          byToken.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+        } else {
+          Map<String, List<Integer>> byString =
+              byTokenAndString.computeIfAbsent(token, k -> new HashMap<>());
+          for (String string : strings) {
+            byString.computeIfAbsent(string, k -> new ArrayList<>()).add(i);
+          }
+        }
+      }
+    }
+
+    for (Map.Entry<Token, List<Integer>> entry : byToken.entrySet()) {
+      rulesByToken.put(entry.getKey(), toIntArray(entry.getValue()));
+    }
+    for (Map.Entry<Token, Map<String, List<Integer>>> entry : byTokenAndString.entrySet()) {
+      Map<String, int[]> byString = new HashMap<>();
+      for (Map.Entry<String, List<Integer>> stringEntry : entry.getValue().entrySet()) {
+        byString.put(stringEntry.getKey(), toIntArray(stringEntry.getValue()));
+      }
+      rulesByTokenAndString.put(entry.getKey(), byString);
     }
+    return toIntArray(forAllNodes);
+  }
+
+  private static int[] toIntArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
   }
 
   @Override
@@ -93,9 +222,53 @@ public final class CheckConformance implements Callback, CompilerPass {
 
   @Override
   public void visit(NodeTraversal t, Node n, Node parent) {
-    for (int i = 0, len = rules.size(); i < len; i++) {
-      Rule rule = rules.get(i);
+    int[] tokenRules = rulesByToken.getOrDefault(n.getToken(), NO_RULES);
+    int[] stringRules = NO_RULES;
+    Map<String, int[]> byString = rulesByTokenAndString.get(n.getToken());
+    if (byString != null) {
+      String string = getCandidateString(n);
+      if (string != null) {
+        stringRules = byString.getOrDefault(string, NO_RULES);
+      }
+    }
+
+    // Each rule is in at most one of the lists, so merging them keeps the order of the rules.
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (true) {
+      int next = Integer.MAX_VALUE;
+      if (i < rulesForAllNodes.length) {
+        next = rulesForAllNodes[i];
+      }
+      if (j < tokenRules.length) {
+        next = Math.min(next, tokenRules[j]);
+      }
+      if (k < stringRules.length) {
+        next = Math.min(next, stringRules[k]);
+      }
+      if (next == Integer.MAX_VALUE) {
+        return;
+      }
+      if (i < rulesForAllNodes.length && rulesForAllNodes[i] == next) {
+        i++;
+      } else if (j < tokenRules.length && tokenRules[j] == next) {
+        j++;
+      } else {
+        k++;
+      }
+      check(next, t, n);
+    }
+  }
+
+  private void check(int ruleIndex, NodeTraversal t, Node n) {
+    Rule rule = rules.get(ruleIndex);
+    if (ruleRuntimes == null) {
+      rule.check(t, n);
+    } else {
+      long start = System.nanoTime();
       rule.check(t, n);
+      ruleRuntimes[ruleIndex] += System.nanoTime() - start;
     }
   }
 
@@ -103,17 +276,33 @@ public final class CheckConformance implements Callback, CompilerPass {
    * Build the data structures need by this pass from the provided
    * configurations.
    */
-  private static ImmutableList<Rule> initRules(
-      AbstractCompiler compiler, ImmutableList<ConformanceConfig> configs) {
-    ImmutableList.Builder<Rule> builder = ImmutableList.builder();
+  private static void initRules(
+      AbstractCompiler compiler,
+      ImmutableList<ConformanceConfig> configs,
+      ImmutableList.Builder<Rule> rules,
+      ImmutableList.Builder<String> names) {
     List<Requirement> requirements = mergeRequirements(compiler, configs);
-    for (Requirement requirement : requirements) {
+    for (int i = 0; i < requirements.size(); i++) {
+      Requirement requirement = requirements.get(i);
       Rule rule = initRule(compiler, requirement);
       if (rule != null) {
-        builder.add(rule);
+        rules.add(rule);
+        names.add(getRuleName(requirement, i));
       }
     }
-    return builder.build();
+  }
+
+  /** Returns the name the time spent in a rule is reported under. */
+  private static String getRuleName(Requirement requirement, int index) {
+    String name;
+    if (requirement.hasRuleId()) {
+      name = requirement.getRuleId();
+    } else if (requirement.hasJavaClass()) {
+      name = requirement.getJavaClass() + "#" + index;
+    } else {
+      name = requirement.getType() + "#" + index;
+    }
+    return "checkConformance:" + name;
   }
 
   private static final ImmutableSet<String> EXTENDABLE_FIELDS =
@@ -126,7 +126,7 @@ final class CheckJSDoc extends AbstractPostOrderCallback implements HotSwapCompi
 
     for (Comment comment : compiler.getComments(fileName)) {
       if (comment.type == Comment.Type.BLOCK) {
-        if (COMMENT_PATTERN.matcher(comment.value).find()) {
+        if (COMMENT_PATTERN.matcher(comment.getValue()).find()) {
           compiler.report(
               JSError.make(
                   fileName,
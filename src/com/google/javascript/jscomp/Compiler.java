@@ -15,6 +15,7 @@
  */
 package com.google.javascript.jscomp;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -2104,11 +2105,24 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    */
   @Override
   public String toSource() {
-    return runInCompilerThread(
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the main parse tree back to JS code, writing it to {@code out} one input at a time
+   * instead of building the whole output in memory.
+   */
+  public void toSource(Appendable out) {
+    toSource(new CodeBuilder(out));
+  }
+
+  private void toSource(final CodeBuilder cb) {
+    runInCompilerThread(
         () -> {
           Tracer tracer = newTracer("toSource");
           try {
-            CodeBuilder cb = new CodeBuilder();
             if (jsRoot != null) {
               int i = 0;
               if (options.shouldPrintExterns()) {
@@ -2124,7 +2138,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
                 toSource(cb, i++, scriptNode);
               }
             }
-            return cb.toString();
+            return null;
           } finally {
             stopTracer(tracer, "toSource");
           }
@@ -2135,14 +2149,24 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Converts the parse tree for a module back to JS code.
    */
   public String toSource(final JSModule module) {
-    return runInCompilerThread(
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb, module);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the parse tree for a module back to JS code, writing it to {@code out} one input at a
+   * time instead of building the whole module's output in memory.
+   */
+  public void toSource(final JSModule module, Appendable out) {
+    toSource(new CodeBuilder(out), module);
+  }
+
+  private void toSource(final CodeBuilder cb, final JSModule module) {
+    runInCompilerThread(
         () -> {
           List<CompilerInput> inputs = module.getInputs();
           int numInputs = inputs.size();
-          if (numInputs == 0) {
-            return "";
-          }
-          CodeBuilder cb = new CodeBuilder();
           for (int i = 0; i < numInputs; i++) {
             Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
             if (scriptNode == null) {
@@ -2150,7 +2174,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
             }
             toSource(cb, i, scriptNode);
           }
-          return cb.toString();
+          return null;
         });
   }
 
@@ -2301,21 +2325,58 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /**
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
+   *
+   * <p>A CodeBuilder can also write its text straight through to an {@link Appendable}, such as a
+   * file, in which case it only keeps the end of the text.
    */
   public static class CodeBuilder {
+    /** How much text a CodeBuilder writing to an Appendable keeps, for {@link #endsWith}. */
+    private static final int MAX_TAIL_LENGTH = 64;
+
+    /**
+     * All of the text, or only its last characters when writing to {@link #out}, in which case
+     * {@link #length} holds the length of all of the text.
+     */
     private final StringBuilder sb = new StringBuilder();
+
+    @Nullable private final Appendable out;
+    private int length = 0;
     private int lineCount = 0;
     private int colCount = 0;
     private final Set<String> uniqueLicenses = new HashSet<>();
 
+    public CodeBuilder() {
+      this.out = null;
+    }
+
+    /** Creates a CodeBuilder that writes all of its text to {@code out}. */
+    public CodeBuilder(Appendable out) {
+      this.out = checkNotNull(out);
+    }
+
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
+      checkState(out == null, "Cannot reset text that has already been written out");
       sb.setLength(0);
+      length = 0;
     }
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
-      sb.append(str);
+      length += str.length();
+      if (out == null) {
+        sb.append(str);
+      } else {
+        try {
+          out.append(str);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+        sb.append(str, Math.max(0, str.length() - MAX_TAIL_LENGTH), str.length());
+        if (sb.length() > MAX_TAIL_LENGTH) {
+          sb.delete(0, sb.length() - MAX_TAIL_LENGTH);
+        }
+      }
 
       // Adjust the line and column information for the new text.
       int index = -1;
@@ -2338,12 +2399,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
+      checkState(out == null, "The text has been written out");
       return sb.toString();
     }
 
     /** Returns the length of the text buffer. */
     public int getLength() {
-      return sb.length();
+      return length;
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -2358,7 +2420,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     /** Determines whether the text ends with the given suffix. */
     boolean endsWith(String suffix) {
-      return (sb.length() > suffix.length())
+      checkArgument(suffix.length() <= MAX_TAIL_LENGTH);
+      return (length > suffix.length())
+          && (sb.length() >= suffix.length())
           && suffix.equals(sb.substring(sb.length() - suffix.length()));
     }
 
@@ -2650,6 +2714,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
             options.extraAnnotationNames,
             options.parseInlineSourceMaps,
             strictMode);
+    if (options.isLazyJsDocParsing()) {
+      config = config.toBuilder().setLazyJsDoc(true).build();
+    }
     return config;
   }
 
@@ -2829,7 +2896,53 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     if (result == null) {
       return null;
     }
+    return toInputOriginalMapping(sourceMap, result);
+  }
 
+  @Override
+  public OriginalMapping[] getSourceMappings(
+      String sourceName, int[] lineNumbers, int[] columnNumbers) {
+    OriginalMapping[] results = new OriginalMapping[lineNumbers.length];
+    if (sourceName == null) {
+      return results;
+    }
+    SourceMapInput sourceMap = inputSourceMaps.get(sourceName);
+    if (sourceMap == null) {
+      return results;
+    }
+    SourceMapConsumerV3 consumer = sourceMap.getSourceMap(errorManager);
+    if (consumer == null) {
+      return results;
+    }
+
+    int[] columns = new int[columnNumbers.length];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = columnNumbers[i] + 1;
+    }
+    OriginalMapping[] inputMappings = consumer.getMappingsForLines(lineNumbers, columns);
+
+    // Consecutive positions often resolve to the same input mapping, which only needs to be
+    // converted once.
+    OriginalMapping lastInputMapping = null;
+    OriginalMapping lastResult = null;
+    for (int i = 0; i < inputMappings.length; i++) {
+      if (inputMappings[i] == null) {
+        continue;
+      }
+      if (inputMappings[i] != lastInputMapping) {
+        lastInputMapping = inputMappings[i];
+        lastResult = toInputOriginalMapping(sourceMap, lastInputMapping);
+      }
+      results[i] = lastResult;
+    }
+    return results;
+  }
+
+  /**
+   * Converts a mapping found in an input source map, whose columns are 1-based and whose file is
+   * relative to the input source map, to the form returned by {@link #getSourceMapping}.
+   */
+  private OriginalMapping toInputOriginalMapping(SourceMapInput sourceMap, OriginalMapping result) {
     // First check to see if the original file was loaded from an input source map.
     String sourceMapOriginalPath = sourceMap.getOriginalPath();
     String resultOriginalPath = result.getOriginalFile();
@@ -2998,6 +3111,12 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return options;
   }
 
+  @Override
+  @Nullable
+  PerformanceTracker getPerformanceTracker() {
+    return options.getTracerMode().isOn() ? tracker : null;
+  }
+
   /**
    * Sets the logging level for the com.google.javascript.jscomp package.
    */
@@ -224,6 +224,8 @@ public class CompilerOptions implements Serializable {
 
   private Config.JsDocParsing parseJsDocDocumentation = Config.JsDocParsing.TYPES_ONLY;
 
+  private boolean lazyJsDocParsing = false;
+
   private boolean printExterns;
 
   void setPrintExterns(boolean printExterns) {
@@ -502,6 +504,12 @@ public class CompilerOptions implements Serializable {
   /** Removes unused variables in local scope. */
   public boolean removeUnusedLocalVars;
 
+  /**
+   * When only local variables are being removed, only look for unused ones in functions that
+   * changed since the last removal pass.
+   */
+  boolean removeUnusedLocalVarsOnlyInChangedScopes;
+
   /** Collapses multiple variable declarations into one */
   public boolean collapseVariableDeclarations;
 
@@ -1245,6 +1253,7 @@ public class CompilerOptions implements Serializable {
     removeUnusedConstructorProperties = false;
     removeUnusedVars = false;
     removeUnusedLocalVars = false;
+    removeUnusedLocalVarsOnlyInChangedScopes = false;
     collapseVariableDeclarations = false;
     collapseAnonymousFunctions = false;
     aliasableStrings = ImmutableSet.of();
@@ -1362,6 +1371,14 @@ public class CompilerOptions implements Serializable {
     this.removeUnusedConstructorProperties = removeUnused;
   }
 
+  /**
+   * @param onlyInChangedScopes Whether repeated removal of unused local variables should only
+   *      revisit functions that changed since the previous run
+   */
+  public void setRemoveUnusedLocalVarsOnlyInChangedScopes(boolean onlyInChangedScopes) {
+    this.removeUnusedLocalVarsOnlyInChangedScopes = onlyInChangedScopes;
+  }
+
   /**
    * Returns the map of define replacements.
    */
@@ -2097,6 +2114,19 @@ public class CompilerOptions implements Serializable {
     return this.parseJsDocDocumentation;
   }
 
+  /**
+   * Defers parsing each JSDoc comment until a pass asks for its JSDocInfo. This speeds up parsing
+   * for compilations that read little JSDoc, such as whitespace-only or transpile-only builds.
+   * JSDoc warnings are not reported for comments that are parsed lazily.
+   */
+  public void setLazyJsDocParsing(boolean lazyJsDocParsing) {
+    this.lazyJsDocParsing = lazyJsDocParsing;
+  }
+
+  public boolean isLazyJsDocParsing() {
+    return lazyJsDocParsing;
+  }
+
   /**
    * Skip all passes (other than transpilation, if requested). Don't inject any
    * runtime libraries (unless explicitly requested) or do any checks/optimizations
@@ -2926,6 +2956,7 @@ public class CompilerOptions implements Serializable {
             .add("labelRenaming", labelRenaming)
             .add("languageIn", getLanguageIn())
             .add("languageOutIsDefaultStrict", languageOutIsDefaultStrict)
+            .add("lazyJsDocParsing", isLazyJsDocParsing())
             .add("legacyCodeCompile", legacyCodeCompile)
             .add("lineBreak", lineBreak)
             .add("lineLengthThreshold", lineLengthThreshold)
@@ -2973,6 +3004,9 @@ public class CompilerOptions implements Serializable {
             .add("removeUnusedClassProperties", removeUnusedClassProperties)
             .add("removeUnusedConstructorProperties", removeUnusedConstructorProperties)
             .add("removeUnusedLocalVars", removeUnusedLocalVars)
+            .add(
+                "removeUnusedLocalVarsOnlyInChangedScopes",
+                removeUnusedLocalVarsOnlyInChangedScopes)
             .add(
                 "removeUnusedPrototypePropertiesInExterns",
                 removeUnusedPrototypePropertiesInExterns)
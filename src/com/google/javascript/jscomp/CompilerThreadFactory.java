@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.GwtIncompatible;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates daemon threads with the same large stack as the compiler thread, for tools that parse or
+ * compile on a thread pool.
+ */
+@GwtIncompatible("java.lang.Thread")
+public final class CompilerThreadFactory implements ThreadFactory {
+  private final String name;
+
+  /** @param name the name of the threads */
+  public CompilerThreadFactory(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Thread newThread(Runnable r) {
+    Thread t = new Thread(null, r, name, CompilerExecutor.COMPILER_STACK_SIZE);
+    t.setDaemon(true); // Do not prevent the JVM from exiting.
+    return t;
+  }
+}
@@ -31,6 +31,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
+import com.google.javascript.jscomp.CheckConformance.IndexableRule;
 import com.google.javascript.jscomp.CheckConformance.InvalidRequirementSpec;
 import com.google.javascript.jscomp.CheckConformance.Rule;
 import com.google.javascript.jscomp.CodingConvention.AssertionFunctionSpec;
@@ -51,10 +52,13 @@ import com.google.javascript.rhino.jstype.Property;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -117,11 +121,65 @@ public final class ConformanceRules {
     VIOLATION,
   }
 
+  /**
+   * The prefixes of the whitelists of all the rules of a conformance check, in one trie. Matching
+   * a path finds all the prefixes it starts with in a single walk along the path, however many
+   * rules and prefixes there are, and the result is kept for the other rules that ask about the
+   * same path.
+   */
+  static final class WhitelistPrefixes {
+    private static final class PrefixNode {
+      final Map<Character, PrefixNode> children = new HashMap<>();
+      int id = -1;
+    }
+
+    private final PrefixNode root = new PrefixNode();
+    private int prefixCount = 0;
+    private final Map<String, BitSet> matchesByPath = new HashMap<>();
+
+    /** Adds a prefix, if it was not added before, and returns its id. */
+    int add(String prefix) {
+      PrefixNode node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), (Character c) -> new PrefixNode());
+      }
+      if (node.id == -1) {
+        node.id = prefixCount++;
+        matchesByPath.clear();
+      }
+      return node.id;
+    }
+
+    /** Returns the ids of the prefixes the path starts with. */
+    BitSet getMatches(String path) {
+      BitSet matches = matchesByPath.get(path);
+      if (matches == null) {
+        matches = new BitSet(prefixCount);
+        PrefixNode node = root;
+        for (int i = 0; node != null; i++) {
+          if (node.id != -1) {
+            matches.set(node.id);
+          }
+          if (i == path.length()) {
+            break;
+          }
+          node = node.children.get(path.charAt(i));
+        }
+        matchesByPath.put(path, matches);
+      }
+      return matches;
+    }
+  }
+
   private static class Whitelist {
     @Nullable final ImmutableList<String> prefixes;
     @Nullable final Pattern regexp;
     @Nullable final Requirement.WhitelistEntry whitelistEntry;
 
+    // The shared trie holding the prefixes, and their ids in it, once they have been added to one.
+    @Nullable private WhitelistPrefixes prefixIndex;
+    @Nullable private int[] prefixIds;
+
     Whitelist(List<String> prefixes, List<String> regexps) throws InvalidRequirementSpec {
       this.prefixes = ImmutableList.<String>copyOf(prefixes);
       this.regexp = buildPattern(regexps);
@@ -134,11 +192,30 @@ public final class ConformanceRules {
       this.whitelistEntry = whitelistEntry;
     }
 
+    /** Adds the prefixes to a trie shared with other whitelists, which then matches them. */
+    void indexPrefixes(WhitelistPrefixes index) {
+      int[] ids = new int[prefixes.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = index.add(prefixes.get(i));
+      }
+      prefixIndex = index;
+      prefixIds = ids;
+    }
+
     /**
      * Returns true if the given path matches one of the prefixes or regexps, and false otherwise
      */
     boolean matches(String path) {
-      if (prefixes != null) {
+      if (prefixIndex != null) {
+        if (!path.isEmpty() && prefixIds.length > 0) {
+          BitSet matches = prefixIndex.getMatches(path);
+          for (int id : prefixIds) {
+            if (matches.get(id)) {
+              return true;
+            }
+          }
+        }
+      } else if (prefixes != null) {
         for (String prefix : prefixes) {
           if (!path.isEmpty() && path.startsWith(prefix)) {
             return true;
@@ -189,6 +266,25 @@ public final class ConformanceRules {
     final TypeMatchingStrategy typeMatchingStrategy;
     final Requirement requirement;
 
+    /** What the whitelists of this rule say about a source path. */
+    private static final class PathDecision {
+      /** The first whitelist matching the path, or null if there is none. */
+      @Nullable final Whitelist whitelist;
+      /** Whether the path is one the rule applies to, per only_apply_to. */
+      final boolean applies;
+
+      PathDecision(@Nullable Whitelist whitelist, boolean applies) {
+        this.whitelist = whitelist;
+        this.applies = applies;
+      }
+    }
+
+    /**
+     * The decision for each source path that had a candidate violation. A file usually has many
+     * of them, so the path is only matched against the whitelists once.
+     */
+    private final Map<String, PathDecision> decisionsByPath = new HashMap<>();
+
     public AbstractRule(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       if (!requirement.hasErrorMessage()) {
@@ -248,6 +344,30 @@ public final class ConformanceRules {
     protected abstract ConformanceResult checkConformance(
         NodeTraversal t, Node n);
 
+    /**
+     * Adds the prefixes of the whitelists of this rule to a trie shared with the other rules of
+     * the check, so a path is matched against the prefixes of all the rules at once.
+     */
+    void indexWhitelistPrefixes(WhitelistPrefixes index) {
+      for (Whitelist whitelist : whitelists) {
+        whitelist.indexPrefixes(index);
+      }
+      if (onlyApplyTo != null) {
+        onlyApplyTo.indexPrefixes(index);
+      }
+    }
+
+    private PathDecision getDecisionForPath(String path) {
+      PathDecision decision = decisionsByPath.get(path);
+      if (decision == null) {
+        decision =
+            new PathDecision(
+                findWhitelistForPath(path), onlyApplyTo == null || onlyApplyTo.matches(path));
+        decisionsByPath.put(path, decision);
+      }
+      return decision;
+    }
+
     /** Returns the first Whitelist entry that matches the given path, and null otherwise. */
     @Nullable
     private Whitelist findWhitelistForPath(String path) {
@@ -294,7 +414,8 @@ public final class ConformanceRules {
       JSError err = JSError.make(n, msg, message, separator, result.note);
 
       String path = NodeUtil.getSourceName(n);
-      Whitelist whitelist = path != null ? findWhitelistForPath(path) : null;
+      PathDecision decision = path != null ? getDecisionForPath(path) : null;
+      Whitelist whitelist = decision != null ? decision.whitelist : null;
       boolean shouldReport =
           compiler
               .getErrorManager()
@@ -305,7 +426,11 @@ public final class ConformanceRules {
                       : Optional.absent(),
                   err);
 
-      if (shouldReport && whitelist == null && (onlyApplyTo == null || onlyApplyTo.matches(path))) {
+      if (shouldReport
+          && whitelist == null
+          && (decision != null
+              ? decision.applies
+              : onlyApplyTo == null || onlyApplyTo.matches(path))) {
         compiler.report(err);
       }
     }
@@ -456,7 +581,7 @@ public final class ConformanceRules {
   /**
    * Banned dependency rule
    */
-  static class BannedDependency extends AbstractRule {
+  static class BannedDependency extends AbstractRule implements IndexableRule {
     private final List<String> paths;
 
     BannedDependency(AbstractCompiler compiler, Requirement requirement)
@@ -468,6 +593,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -486,7 +621,7 @@ public final class ConformanceRules {
   /**
    * Banned name rule
    */
-  static class BannedName extends AbstractRule {
+  static class BannedName extends AbstractRule implements IndexableRule {
     private final Requirement.Type requirementType;
     private final ImmutableList<Node> names;
 
@@ -504,6 +639,16 @@ public final class ConformanceRules {
       names = builder.build();
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return ConformanceUtil.getLastNameComponents(names);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (isCandidateNode(n)) {
@@ -547,7 +692,7 @@ public final class ConformanceRules {
   /**
    * Banned property rule
    */
-  static class BannedProperty extends AbstractRule {
+  static class BannedProperty extends AbstractRule implements IndexableRule {
     private static class Property {
       final JSType type;
       final String property;
@@ -590,6 +735,20 @@ public final class ConformanceRules {
       props = builder.build();
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Property prop : props) {
+        builder.add(prop.property);
+      }
+      return builder.build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (NodeUtil.isGet(n) && n.getLastChild().isString()) {
@@ -697,6 +856,18 @@ public final class ConformanceRules {
 
   private static class ConformanceUtil {
 
+    /**
+     * Returns the last components of qualified names: the name of a NAME node, and the property
+     * name of a GETPROP node.
+     */
+    static ImmutableSet<String> getLastNameComponents(List<Node> names) {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Node name : names) {
+        builder.add(name.isGetProp() ? name.getLastChild().getString() : name.getString());
+      }
+      return builder.build();
+    }
+
     static boolean isCallTarget(Node n) {
       Node parent = n.getParent();
       return (parent.isCall() || parent.isNew())
@@ -822,7 +993,7 @@ public final class ConformanceRules {
   /**
    * Restricted name call rule
    */
-  static class RestrictedNameCall extends AbstractRule {
+  static class RestrictedNameCall extends AbstractRule implements IndexableRule {
     private static class Restriction {
       final Node name;
       final FunctionType restrictedCallType;
@@ -860,6 +1031,24 @@ public final class ConformanceRules {
       restrictions = builder.build();
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      List<Node> names = new ArrayList<>();
+      for (Restriction r : restrictions) {
+        names.add(r.name);
+      }
+      // Calls through "call" are reported on the "call" property.
+      return ImmutableSet.<String>builder()
+          .addAll(ConformanceUtil.getLastNameComponents(names))
+          .add("call")
+          .build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (ConformanceUtil.isCallTarget(n) && n.isQualifiedName()) {
@@ -896,7 +1085,7 @@ public final class ConformanceRules {
   /**
    * Banned property call rule
    */
-  static class RestrictedMethodCall extends AbstractRule {
+  static class RestrictedMethodCall extends AbstractRule implements IndexableRule {
     private static class Restriction {
       final JSType type;
       final String property;
@@ -942,6 +1131,21 @@ public final class ConformanceRules {
       restrictions = builder.build();
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Restriction r : restrictions) {
+        builder.add(r.property);
+      }
+      // Calls through "call" are reported on the "call" property.
+      return builder.add("call").build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (NodeUtil.isGet(n)
@@ -996,7 +1200,7 @@ public final class ConformanceRules {
   }
 
   /** Restricted property write. */
-  static class RestrictedPropertyWrite extends AbstractRule {
+  static class RestrictedPropertyWrite extends AbstractRule implements IndexableRule {
     private static class Restriction {
       final JSType type;
       final String property;
@@ -1037,6 +1241,20 @@ public final class ConformanceRules {
       restrictions = builder.build();
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Restriction r : restrictions) {
+        builder.add(r.property);
+      }
+      return builder.build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp() && NodeUtil.isLhsOfAssign(n)) {
@@ -1203,12 +1421,22 @@ public final class ConformanceRules {
   }
 
   /** Banned for/of loops */
-  public static final class BanForOf extends AbstractRule {
+  public static final class BanForOf extends AbstractRule implements IndexableRule {
     public BanForOf(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.FOR_OF, Token.FOR_AWAIT_OF);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isForOf() || n.isForAwaitOf()) {
@@ -1240,7 +1468,7 @@ public final class ConformanceRules {
   /**
    * Require "use strict" rule
    */
-  public static class RequireUseStrict extends AbstractRule {
+  public static class RequireUseStrict extends AbstractRule implements IndexableRule {
 
     public RequireUseStrict(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -1250,6 +1478,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -1265,7 +1503,8 @@ public final class ConformanceRules {
   /**
    * Banned throw of non-error object types.
    */
-  public static final class BanThrowOfNonErrorTypes extends AbstractRule {
+  public static final class BanThrowOfNonErrorTypes extends AbstractRule
+      implements IndexableRule {
     final JSType errorObjType;
     public BanThrowOfNonErrorTypes(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -1273,6 +1512,16 @@ public final class ConformanceRules {
       errorObjType = compiler.getTypeRegistry().getGlobalType("Error");
     }
 
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.THROW);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (errorObjType != null && n.isThrow()) {
@@ -117,7 +117,14 @@ class CrossChunkCodeMotion implements CompilerPass {
   /** Collects all global symbols, their declaration statements and references. */
   private class GlobalSymbolCollector {
 
-    final Map<Var, GlobalSymbol> globalSymbolforVar = new HashMap<>();
+    /**
+     * The symbols for global variables, by the index of the variable in the global scope. The
+     * indices are dense, so this is much more compact than a map for programs with many globals.
+     */
+    final List<GlobalSymbol> globalSymbolForVarIndex = new ArrayList<>();
+
+    /** The symbols for implicit global variables, which have no index. */
+    final Map<Var, GlobalSymbol> globalSymbolForImplicitVar = new HashMap<>();
 
     /**
      * Returning the symbols in the reverse order in which they are defined helps to minimize
@@ -198,14 +205,33 @@ class CrossChunkCodeMotion implements CompilerPass {
     }
 
     private GlobalSymbol getGlobalSymbol(Var var) {
-      GlobalSymbol globalSymbol = globalSymbolforVar.get(var);
+      int index = var.index;
+      if (index < 0) {
+        GlobalSymbol globalSymbol = globalSymbolForImplicitVar.get(var);
+        if (globalSymbol == null) {
+          globalSymbol = createGlobalSymbol(var);
+          globalSymbolForImplicitVar.put(var, globalSymbol);
+        }
+        return globalSymbol;
+      }
+      while (globalSymbolForVarIndex.size() <= index) {
+        globalSymbolForVarIndex.add(null);
+      }
+      GlobalSymbol globalSymbol = globalSymbolForVarIndex.get(index);
       if (globalSymbol == null) {
-        globalSymbol = new GlobalSymbol(var);
-        globalSymbolforVar.put(var, globalSymbol);
-        symbolStack.push(globalSymbol);
+        globalSymbol = createGlobalSymbol(var);
+        globalSymbolForVarIndex.set(index, globalSymbol);
+      } else {
+        checkState(globalSymbol.var == var, "%s and %s share an index", globalSymbol.var, var);
       }
       return globalSymbol;
     }
+
+    private GlobalSymbol createGlobalSymbol(Var var) {
+      GlobalSymbol globalSymbol = new GlobalSymbol(var);
+      symbolStack.push(globalSymbol);
+      return globalSymbol;
+    }
   }
 
   /**
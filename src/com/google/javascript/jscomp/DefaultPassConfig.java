@@ -2650,6 +2650,10 @@ public final class DefaultPassConfig extends PassConfig {
         }
       };
 
+  /** Function cost estimates, shared by each run of {@link #inlineFunctions}. */
+  private final InlineCostEstimator.FunctionCostCache inlineFunctionsCostCache =
+      new InlineCostEstimator.FunctionCostCache();
+
   /** Inlines function calls. */
   private final PassFactory inlineFunctions =
       new PassFactory(PassNames.INLINE_FUNCTIONS, false) {
@@ -2661,7 +2665,8 @@ public final class DefaultPassConfig extends PassConfig {
               options.getInlineFunctionsLevel(),
               options.assumeStrictThis() || options.expectStrictModeInput(),
               options.assumeClosuresOnlyCaptureReferences,
-              options.maxFunctionSizeAfterInlining);
+              options.maxFunctionSizeAfterInlining,
+              inlineFunctionsCostCache);
         }
 
         @Override
@@ -2703,6 +2708,8 @@ public final class DefaultPassConfig extends PassConfig {
             .removeUnusedThisProperties(options.isRemoveUnusedClassProperties())
             .removeUnusedObjectDefinePropertiesDefinitions(options.isRemoveUnusedClassProperties())
             .removeUnusedConstructorProperties(options.isRemoveUnusedConstructorProperties())
+            .removeOnlyInChangedScopes(
+                !isOneTimePass && canRemoveUnusedCodeOnlyInChangedScopes())
             .build();
       }
 
@@ -2713,6 +2720,18 @@ public final class DefaultPassConfig extends PassConfig {
     };
   }
 
+  /**
+   * Whether the looped removal of unused code may skip scopes that haven't changed. This is only
+   * the case when nothing but local variables is being removed.
+   */
+  private boolean canRemoveUnusedCodeOnlyInChangedScopes() {
+    return options.removeUnusedLocalVarsOnlyInChangedScopes
+        && !options.removeUnusedVars
+        && !options.removeUnusedPrototypeProperties
+        && !options.isRemoveUnusedClassProperties()
+        && !options.isRemoveUnusedConstructorProperties();
+  }
+
   /** Move global symbols to a deeper common module */
   private final PassFactory crossModuleCodeMotion =
       new PassFactory(PassNames.CROSS_CHUNK_CODE_MOTION, false) {
@@ -805,10 +805,12 @@ class DisambiguateProperties implements CompilerPass {
     int singleTypeProps = 0;
 
     Set<String> reported = new HashSet<>();
+    // Many types hold several of the renamed properties, so their names are only built once.
+    IdentityHashMap<JSType, String> typeNames = new IdentityHashMap<>();
     for (Property prop : properties.values()) {
       if (prop.shouldRename()) {
         UnionFind<JSType> pTypes = prop.getTypes();
-        Map<JSType, String> propNames = buildPropNames(prop);
+        Map<JSType, String> propNames = buildPropNames(prop, typeNames);
 
         ++propsRenamed;
         prop.expandTypesToSkip();
@@ -860,8 +862,11 @@ class DisambiguateProperties implements CompilerPass {
   /**
    * Chooses a name to use for renaming in each equivalence class and maps
    * the representative type of that class to that name.
+   *
+   * @param typeNames the names of the types seen so far. The names of new types are added to it.
    */
-  private Map<JSType, String> buildPropNames(Property prop) {
+  private Map<JSType, String> buildPropNames(
+      Property prop, IdentityHashMap<JSType, String> typeNames) {
     UnionFind<JSType> pTypes = prop.getTypes();
     String pname = prop.name;
     Map<JSType, String> names = new HashMap<>();
@@ -870,7 +875,11 @@ class DisambiguateProperties implements CompilerPass {
       JSType representative = pTypes.find(set.iterator().next());
       String typeName = null;
       for (JSType type : set) {
-        String typeString = type.toString();
+        String typeString = typeNames.get(type);
+        if (typeString == null) {
+          typeString = type.toString();
+          typeNames.put(type, typeString);
+        }
         if (typeName == null || typeString.compareTo(typeName) < 0) {
           typeName = typeString;
         }
@@ -45,6 +45,8 @@ class FunctionInjector {
   private final AbstractCompiler compiler;
   private final boolean allowDecomposition;
   private Set<String> knownConstants = new HashSet<>();
+  private InlineCostEstimator.FunctionCostCache costCache =
+      new InlineCostEstimator.FunctionCostCache();
   private final boolean assumeStrictThis;
   private final boolean assumeMinimumCapture;
   private final boolean allowMethodCallDecomposing;
@@ -889,7 +891,7 @@ class FunctionInjector {
   /**
    * @return Whether inlining will lower cost.
    */
-  private static boolean doesLowerCost(
+  private boolean doesLowerCost(
       Node fnNode, int callCost,
       int directInlines, int costDeltaDirect,
       int blockInlines, int costDeltaBlock,
@@ -912,7 +914,7 @@ class FunctionInjector {
     int costDelta = (directInlines * -costDeltaDirect) + (blockInlines * -costDeltaBlock);
     int threshold = (callCost + costDelta) / fnInstanceCount;
 
-    return InlineCostEstimator.getCost(fnNode, threshold + 1) <= threshold;
+    return costCache.getCost(fnNode, threshold + 1) <= threshold;
   }
 
   /**
@@ -996,6 +998,14 @@ class FunctionInjector {
     }
   }
 
+  /**
+   * Sets the cache used to estimate the cost of function definitions. Sharing a cache between
+   * injectors avoids re-estimating functions that haven't changed since they were last estimated.
+   */
+  void setFunctionCostCache(InlineCostEstimator.FunctionCostCache costCache) {
+    this.costCache = checkNotNull(costCache);
+  }
+
   /**
    * Store the names of known constants to be used when classifying call-sites
    * in expressions.
@@ -25,7 +25,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.javascript.jscomp.CodingConvention.SubclassRelationship;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
@@ -35,13 +34,17 @@ import com.google.javascript.rhino.jstype.JSType;
 import com.google.javascript.rhino.jstype.StaticTypedRef;
 import com.google.javascript.rhino.jstype.StaticTypedScope;
 import com.google.javascript.rhino.jstype.StaticTypedSlot;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -1040,11 +1043,55 @@ class GlobalNamespace
     /** The first global assignment to a name. */
     private Ref declaration;
 
-    /** All references to a name. This must contain {@code declaration}. */
-    private final LinkedHashSet<Ref> refs = new LinkedHashSet<>();
+    /**
+     * All references to a name, in the order they were added. This must contain {@code
+     * declaration}.
+     *
+     * <p>Removed refs leave a null slot behind until the array is compacted, so each live Ref can
+     * record its own slot and be removed without a search. Most names have only a handful of refs,
+     * so this is much smaller than a hash set per name.
+     */
+    private Ref[] refs = NO_REFS;
+
+    /** The number of slots in {@link #refs} that have been used, including removed ones. */
+    private int refSlotsUsed = 0;
+
+    /** The number of live refs in {@link #refs}. */
+    private int refCount = 0;
 
-    /** Keep track of which Nodes are Refs for this Name */
-    private final Map<Node, ImmutableList<Ref>> refsForNodeMap = new HashMap<>();
+    /** Incremented for every added or removed Ref, so iterators can detect modification. */
+    private int refModCount = 0;
+
+    /**
+     * Maps each Node to one of the Refs on it. Its twin, if any, is found through the Ref.
+     *
+     * <p>This is only built once a name has more than {@link #MAX_REFS_WITHOUT_NODE_INDEX} refs.
+     * Smaller names are searched linearly.
+     */
+    @Nullable private Map<Node, Ref> refsByNode = null;
+
+    /** The unmodifiable view of {@link #refs} returned by {@link #getRefs}. */
+    private final Collection<Ref> refsView =
+        new AbstractCollection<Ref>() {
+          @Override
+          public Iterator<Ref> iterator() {
+            return new RefIterator();
+          }
+
+          @Override
+          public int size() {
+            return refCount;
+          }
+
+          @Override
+          public boolean contains(Object o) {
+            return o instanceof Ref && containsRef((Ref) o);
+          }
+        };
+
+    private static final Ref[] NO_REFS = new Ref[0];
+
+    private static final int MAX_REFS_WITHOUT_NODE_INDEX = 8;
 
     /** All Es6 subclasses of a name that is an Es6 class. Must be null if not an ES6 class. */
     @Nullable List<Name> subclasses;
@@ -1205,25 +1252,105 @@ class GlobalNamespace
           createNewRef(module, scope, node, Ref.Type.ALIASING_GET, setRefPreOrderIndex + 1);
       setRef.twin = getRef;
       getRef.twin = setRef;
-      refsForNodeMap.put(node, ImmutableList.of(setRef, getRef));
-      refs.add(setRef);
+      appendRef(setRef);
       updateStateForAddedRef(setRef);
-      refs.add(getRef);
+      appendRef(getRef);
       updateStateForAddedRef(getRef);
+      indexRefNode(node, setRef);
     }
 
     private void addSingleRef(
         JSModule module, Scope scope, Node node, Ref.Type type, int preOrderIndex) {
       checkNoExistingRefsForNode(node);
       Ref ref = createNewRef(module, scope, node, type, preOrderIndex);
-      refs.add(ref);
-      refsForNodeMap.put(node, ImmutableList.of(ref));
+      appendRef(ref);
+      indexRefNode(node, ref);
       updateStateForAddedRef(ref);
     }
 
     private void checkNoExistingRefsForNode(Node node) {
-      ImmutableList<Ref> refsForNode = refsForNodeMap.get(node);
-      checkState(refsForNode == null, "Refs already exist for node: %s", refsForNode);
+      Ref refForNode = findRefForNode(node);
+      checkState(refForNode == null, "Refs already exist for node: %s", refForNode);
+    }
+
+    /** Adds a Ref to the end of {@link #refs}. */
+    private void appendRef(Ref ref) {
+      checkState(ref.slot == Ref.NO_SLOT, "Ref already added: %s", ref);
+      if (refSlotsUsed == refs.length) {
+        if (refCount < refSlotsUsed / 2) {
+          compactRefs();
+        } else {
+          refs = Arrays.copyOf(refs, Math.max(2, refs.length * 2));
+        }
+      }
+      ref.slot = refSlotsUsed;
+      refs[refSlotsUsed++] = ref;
+      refCount++;
+      refModCount++;
+    }
+
+    /** Removes a Ref from {@link #refs}, leaving its slot empty. */
+    private void clearRefSlot(Ref ref) {
+      refs[ref.slot] = null;
+      ref.slot = Ref.NO_SLOT;
+      refCount--;
+      refModCount++;
+    }
+
+    /** Moves all live refs to the front of {@link #refs}, keeping their order. */
+    private void compactRefs() {
+      int liveSlot = 0;
+      for (int i = 0; i < refSlotsUsed; i++) {
+        Ref ref = refs[i];
+        if (ref != null) {
+          ref.slot = liveSlot;
+          refs[liveSlot++] = ref;
+        }
+      }
+      Arrays.fill(refs, liveSlot, refSlotsUsed, null);
+      refSlotsUsed = liveSlot;
+    }
+
+    private boolean containsRef(Ref ref) {
+      return ref.slot != Ref.NO_SLOT && refs[ref.slot] == ref;
+    }
+
+    /** Returns a Ref on the given node, or null if there is none. */
+    @Nullable
+    private Ref findRefForNode(Node node) {
+      if (refsByNode == null && refCount > MAX_REFS_WITHOUT_NODE_INDEX) {
+        refsByNode = new HashMap<>();
+        for (int i = 0; i < refSlotsUsed; i++) {
+          Ref ref = refs[i];
+          if (ref != null && ref.node != null) {
+            refsByNode.putIfAbsent(ref.node, ref);
+          }
+        }
+      }
+      if (refsByNode != null) {
+        return refsByNode.get(node);
+      }
+      for (int i = 0; i < refSlotsUsed; i++) {
+        Ref ref = refs[i];
+        if (ref != null && ref.node == node) {
+          return ref;
+        }
+      }
+      return null;
+    }
+
+    /** Records that the given Ref (and its twin, if any) is on the given node. */
+    private void indexRefNode(Node node, Ref ref) {
+      if (refsByNode != null) {
+        refsByNode.put(node, ref);
+      }
+    }
+
+    /** Records that there are no longer any Refs on the given node. */
+    private void unindexRefNode(Node node) {
+      if (refsByNode != null) {
+        refsByNode.remove(node);
+      }
     }
 
     private Ref createNewRef(
@@ -1241,8 +1368,8 @@ class GlobalNamespace
       Ref ref =
           new Ref(
               /* module= */ null, /* scope= */ null, /* node = */ null, this, type, preOrderIndex);
-      refs.add(ref);
-      // node is Null for testing in this case, so nothing to add to refsForNodeMap
+      appendRef(ref);
+      // node is Null for testing in this case, so nothing to add to refsByNode
       updateStateForAddedRef(ref);
       return ref;
     }
@@ -1339,6 +1466,14 @@ class GlobalNamespace
       //     Ref even though its node is no longer in the AST.
       Node oldNode = ref.getNode();
       checkState(oldNode != null, "Ref's node is already null: %s", ref);
+      if (newNode != null) {
+        // The ref itself may already be indexed for the new node, only other refs conflict.
+        Ref existingRefForNewNode = findRefForNode(newNode);
+        checkArgument(
+            existingRefForNewNode == null || existingRefForNewNode == ref,
+            "refs already exist: %s",
+            existingRefForNewNode);
+      }
       ref.node = newNode;
 
       // If this ref was a twin, it isn't anymore, and its previous twin is now the only ref to the
@@ -1347,16 +1482,13 @@ class GlobalNamespace
       if (twinRef != null) {
         ref.twin = null;
         twinRef.twin = null;
-        refsForNodeMap.put(oldNode, ImmutableList.of(twinRef));
+        indexRefNode(oldNode, twinRef);
       } else {
-        refsForNodeMap.remove(oldNode); // this ref was the only reference on the node
+        unindexRefNode(oldNode); // this ref was the only reference on the node
       }
 
       if (newNode != null) {
-        ImmutableList<Ref> existingRefsForNewNode = refsForNodeMap.get(newNode);
-        checkArgument(
-            existingRefsForNewNode == null, "refs already exist: %s", existingRefsForNewNode);
-        refsForNodeMap.put(newNode, ImmutableList.of(ref));
+        indexRefNode(newNode, ref);
       }
     }
 
@@ -1371,7 +1503,7 @@ class GlobalNamespace
     void removeTwinRefs(Ref ref) {
       checkArgument(
           ref.name == this, "removeTwinRefs(%s): node does not belong to this name: %s", ref, this);
-      checkState(refs.contains(ref), "removeRef(%s): unknown ref", ref);
+      checkState(containsRef(ref), "removeRef(%s): unknown ref", ref);
       Ref twinRef = ref.getTwin();
       checkArgument(twinRef != null, ref);
 
@@ -1391,7 +1523,7 @@ class GlobalNamespace
     void removeRef(Ref ref) {
       checkState(
           ref.name == this, "removeRef(%s): node does not belong to this name: %s", ref, this);
-      checkState(refs.contains(ref), "removeRef(%s): unknown ref", ref);
+      checkState(containsRef(ref), "removeRef(%s): unknown ref", ref);
       Node refNode = ref.getNode();
       if (refNode != null) {
         removeSingleRefFromNodeMap(ref);
@@ -1405,10 +1537,10 @@ class GlobalNamespace
      * @param ref
      */
     private void removeRefAndUpdateState(Ref ref) {
-      refs.remove(ref);
+      clearRefSlot(ref);
       if (ref == declaration) {
         declaration = null;
-        for (Ref maybeNewDecl : refs) {
+        for (Ref maybeNewDecl : getRefs()) {
           if (maybeNewDecl.type == Ref.Type.SET_FROM_GLOBAL) {
             declaration = maybeNewDecl;
             break;
@@ -1460,22 +1592,22 @@ class GlobalNamespace
         ref.twin = null;
         twinRef.twin = null;
         // put twin back alone, since we're not really removing it
-        refsForNodeMap.put(refNode, ImmutableList.of(twinRef));
+        indexRefNode(refNode, twinRef);
       } else {
-        ImmutableList<Ref> refsForNode = refsForNodeMap.get(refNode);
+        ImmutableList<Ref> refsForNode = getRefsForNode(refNode);
         checkState(
             refsForNode.size() == 1 && refsForNode.get(0) == ref,
             "Unexpected Refs for Node: %s: when removing Ref: %s",
             refsForNode,
             ref);
-        refsForNodeMap.remove(refNode);
+        unindexRefNode(refNode);
       }
     }
 
     private void removeTwinRefsFromNodeMap(Ref ref) {
       Ref twinRef = checkNotNull(ref.getTwin(), ref);
       Node refNode = checkNotNull(ref.getNode(), ref);
-      ImmutableList<Ref> refsForNode = refsForNodeMap.get(refNode);
+      ImmutableList<Ref> refsForNode = getRefsForNode(refNode);
 
       checkState(
           refsForNode.size() == 2,
@@ -1492,11 +1624,41 @@ class GlobalNamespace
           "Refs for Node: %s does not contain expected twin: %s",
           refsForNode,
           twinRef);
-      refsForNodeMap.remove(refNode);
+      unindexRefNode(refNode);
     }
 
+    /** Returns an unmodifiable live view of the refs to this name, in the order they were added. */
     Collection<Ref> getRefs() {
-      return refs == null ? ImmutableList.of() : Collections.unmodifiableCollection(refs);
+      return refsView;
+    }
+
+    /** Iterates over the live slots of {@link #refs}. */
+    private final class RefIterator implements Iterator<Ref> {
+      private final int expectedModCount = refModCount;
+      private int nextSlot = 0;
+
+      @Override
+      public boolean hasNext() {
+        checkForComodification();
+        while (nextSlot < refSlotsUsed && refs[nextSlot] == null) {
+          nextSlot++;
+        }
+        return nextSlot < refSlotsUsed;
+      }
+
+      @Override
+      public Ref next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return refs[nextSlot++];
+      }
+
+      private void checkForComodification() {
+        if (refModCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+      }
     }
 
     /**
@@ -1507,13 +1669,21 @@ class GlobalNamespace
      */
     @VisibleForTesting
     ImmutableList<Ref> getRefsForNode(Node node) {
-      ImmutableList<Ref> refsForNode = refsForNodeMap.get(checkNotNull(node));
-      return (refsForNode == null) ? ImmutableList.of() : refsForNode;
+      Ref ref = findRefForNode(checkNotNull(node));
+      if (ref == null) {
+        return ImmutableList.of();
+      }
+      Ref twinRef = ref.getTwin();
+      if (twinRef == null) {
+        return ImmutableList.of(ref);
+      }
+      // The setter Ref always comes first.
+      return ref.isSet() ? ImmutableList.of(ref, twinRef) : ImmutableList.of(twinRef, ref);
     }
 
     Ref getFirstRef() {
-      checkState(!refs.isEmpty(), "no first Ref to get");
-      return Iterables.get(refs, 0);
+      checkState(refCount > 0, "no first Ref to get");
+      return getRefs().iterator().next();
     }
 
     boolean canEliminate() {
@@ -1533,7 +1703,7 @@ class GlobalNamespace
 
     boolean isSimpleStubDeclaration() {
       if (getRefs().size() == 1) {
-        Ref ref = Iterables.get(refs, 0);
+        Ref ref = getFirstRef();
         if (ref.node.getParent().isExprResult()) {
           return true;
         }
@@ -2048,6 +2218,11 @@ class GlobalNamespace
      */
     private Ref twin = null;
 
+    /** The index of this Ref in its name's ref array, or {@link #NO_SLOT} if it isn't in it. */
+    private int slot = NO_SLOT;
+
+    private static final int NO_SLOT = -1;
+
     /**
      * Creates a Ref
      *
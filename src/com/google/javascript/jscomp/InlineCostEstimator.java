@@ -16,7 +16,10 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.javascript.rhino.Node;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * For use with CodeGenerator to determine the cost of generated code.
@@ -48,6 +51,81 @@ class InlineCostEstimator {
     return estimator.getCost();
   }
 
+  /**
+   * Remembers the estimated cost of function nodes, so that the same function isn't printed again
+   * for each call site or each run of the optimization loop.
+   *
+   * <p>An entry is only reused while the function's change time is unchanged. Changes within a
+   * nested function are only recorded on the nested function, so functions that contain other
+   * functions are never cached.
+   *
+   * <p>The cache outlives the runs that fill it, so {@link #removeStaleEntries} should be called
+   * before each run to let go of functions that have since changed or been removed.
+   */
+  static final class FunctionCostCache {
+    private final Map<Node, CachedCost> costs = new HashMap<>();
+
+    /**
+     * Drops the entries for functions that have changed since they were estimated, or that are no
+     * longer attached to the AST, so that the cache doesn't keep removed functions alive.
+     */
+    void removeStaleEntries() {
+      costs
+          .entrySet()
+          .removeIf(
+              entry ->
+                  entry.getValue().changeTime != entry.getKey().getChangeTime()
+                      || !isAttached(entry.getKey()));
+    }
+
+    private static boolean isAttached(Node n) {
+      for (; n.getParent() != null; n = n.getParent()) {}
+      return n.isRoot();
+    }
+
+    @VisibleForTesting
+    int size() {
+      return costs.size();
+    }
+
+    /**
+     * Determines the estimated size of the function. As with {@link
+     * InlineCostEstimator#getCost(Node, int)}, the result is exact if it is less than the
+     * threshold, and otherwise only known to be at least the threshold.
+     */
+    int getCost(Node fnNode, int costThreshold) {
+      if (costThreshold <= 0) {
+        // Nothing costs less than nothing, so there's no need to print anything.
+        return 0;
+      }
+      CachedCost cached = costs.get(fnNode);
+      if (cached != null && cached.changeTime == fnNode.getChangeTime()) {
+        if (cached.isExact || cached.cost >= costThreshold) {
+          return cached.cost;
+        }
+      }
+
+      int cost = InlineCostEstimator.getCost(fnNode, costThreshold);
+      if (!NodeUtil.containsFunction(fnNode.getLastChild())) {
+        costs.put(fnNode, new CachedCost(fnNode.getChangeTime(), cost, cost < costThreshold));
+      }
+      return cost;
+    }
+  }
+
+  private static final class CachedCost {
+    final int changeTime;
+    final int cost;
+    /** Whether the cost is exact, or just the point at which estimation stopped. */
+    final boolean isExact;
+
+    CachedCost(int changeTime, int cost, boolean isExact) {
+      this.changeTime = changeTime;
+      this.cost = cost;
+      this.isExact = isExact;
+    }
+  }
+
   /**
    * Code consumer that estimates compiled size by assuming names are
    * shortened and all whitespace is stripped.
@@ -68,6 +68,7 @@ class InlineFunctions implements CompilerPass {
   private final AbstractCompiler compiler;
 
   private final FunctionInjector injector;
+  private final InlineCostEstimator.FunctionCostCache costCache;
 
   private final Reach reach;
   private final boolean assumeMinimumCapture;
@@ -81,7 +82,8 @@ class InlineFunctions implements CompilerPass {
       Reach reach,
       boolean assumeStrictThis,
       boolean assumeMinimumCapture,
-      int maxSizeAfterInlining) {
+      int maxSizeAfterInlining,
+      InlineCostEstimator.FunctionCostCache costCache) {
     checkArgument(compiler != null);
     checkArgument(safeNameIdSupplier != null);
     checkArgument(reach != Reach.NONE);
@@ -108,6 +110,8 @@ class InlineFunctions implements CompilerPass {
             FunctionInjector.Decomposition.ENABLED_WITHOUT_METHOD_CALL_DECOMPOSING,
             assumeStrictThis,
             assumeMinimumCapture);
+    this.costCache = costCache;
+    this.injector.setFunctionCostCache(costCache);
   }
 
   FunctionState getOrCreateFunctionState(String fnName) {
@@ -123,6 +127,7 @@ class InlineFunctions implements CompilerPass {
   public void process(Node externs, Node root) {
     checkState(compiler.getLifeCycleStage().isNormalized());
 
+    costCache.removeStaleEntries();
     NodeTraversal.traverse(compiler, root, new FindCandidateFunctions());
     if (fns.isEmpty()) {
       return; // Nothing left to do.
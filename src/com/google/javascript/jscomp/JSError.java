@@ -158,6 +158,32 @@ public final class JSError implements Serializable {
          type, null, arguments);
   }
 
+  /**
+   * Creates a JSError with the same diagnostic as another, at a different source location.
+   * Private to avoid any entanglement with code outside of the compiler.
+   */
+  private JSError(JSError other, String sourceName, int lineno, int charno) {
+    this.type = other.type;
+    this.node = null;
+    this.description = other.description;
+    this.lineNumber = lineno;
+    this.charno = charno;
+    this.sourceName = sourceName;
+    this.defaultLevel = other.defaultLevel;
+  }
+
+  /**
+   * Returns an error with the same type, level and description as this one, at the given source
+   * location.
+   *
+   * @param sourceName The source file name
+   * @param lineno Line number with source file, or -1 if unknown
+   * @param charno Column number within line, or -1 for whole line.
+   */
+  public JSError withSourceLocation(String sourceName, int lineno, int charno) {
+    return new JSError(this, sourceName, lineno, charno);
+  }
+
   public DiagnosticType getType() {
     return type;
   }
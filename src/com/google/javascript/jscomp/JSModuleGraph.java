@@ -49,6 +49,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 /**
@@ -89,6 +90,15 @@ public final class JSModuleGraph implements Serializable {
    */
   private final Map<JSModule, Set<JSModule>> dependencyMap = new IdentityHashMap<>();
 
+  /**
+   * Results of {@link #getSmallestCoveringSubtree}, by the index of the parent tree and then by the
+   * dependent modules. Passes like code motion ask the same question for many symbols that are
+   * referenced from the same set of modules. Concurrent, since the graph is shared and callers may
+   * query it from several threads as if it were read-only.
+   */
+  private final Map<Integer, Map<BitSet, JSModule>> smallestCoveringSubtreeCache =
+      new ConcurrentHashMap<>();
+
   /** Creates a module graph from a list of modules in dependency order. */
   public JSModuleGraph(JSModule[] modulesInDepOrder) {
     this(Arrays.asList(modulesInDepOrder));
@@ -355,7 +365,20 @@ public final class JSModuleGraph implements Serializable {
    */
   public JSModule getSmallestCoveringSubtree(JSModule parentTree, BitSet dependentModules) {
     checkState(!dependentModules.isEmpty());
+    Map<BitSet, JSModule> cache =
+        smallestCoveringSubtreeCache.computeIfAbsent(
+            parentTree.getIndex(), i -> new ConcurrentHashMap<>());
+    JSModule subtree = cache.get(dependentModules);
+    if (subtree == null) {
+      subtree = computeSmallestCoveringSubtree(parentTree, dependentModules);
+      // Callers often reuse and modify the BitSet, so the key must be a copy. Racing callers
+      // compute the same subtree, so it doesn't matter which of them stores it.
+      cache.put((BitSet) dependentModules.clone(), subtree);
+    }
+    return subtree;
+  }
 
+  private JSModule computeSmallestCoveringSubtree(JSModule parentTree, BitSet dependentModules) {
     // Candidate modules are those that all of the given dependent modules depend on, including
     // themselves. The dependent module with the smallest index might be our answer, if all
     // the other modules depend on it.
@@ -404,22 +427,27 @@ public final class JSModuleGraph implements Serializable {
    *     they have no common dependencies
    */
   JSModule getDeepestCommonDependency(JSModule m1, JSModule m2) {
-    int m1Depth = m1.getDepth();
-    int m2Depth = m2.getDepth();
     // According our definition of depth, the result must have a strictly
     // smaller depth than either m1 or m2.
-    for (int depth = Math.min(m1Depth, m2Depth) - 1; depth >= 0; depth--) {
-      List<JSModule> modulesAtDepth = modulesByDepth.get(depth);
-      // Look at the modules at this depth in reverse order, so that we use the
-      // original ordering of the modules to break ties (later meaning deeper).
-      for (int i = modulesAtDepth.size() - 1; i >= 0; i--) {
-        JSModule m = modulesAtDepth.get(i);
-        if (dependsOn(m1, m) && dependsOn(m2, m)) {
-          return m;
+    int maxDepth = Math.min(m1.getDepth(), m2.getDepth()) - 1;
+    BitSet m1Deps = selfPlusTransitiveDeps[m1.getIndex()];
+    BitSet m2Deps = selfPlusTransitiveDeps[m2.getIndex()];
+    // Modules only depend on modules with a smaller index, so the common dependencies all have an
+    // index smaller than both modules. Look at them in reverse order, so that we use the original
+    // ordering of the modules to break ties between modules at the same depth (later meaning
+    // deeper).
+    JSModule deepest = null;
+    for (int i = m1Deps.previousSetBit(Math.min(m1.getIndex(), m2.getIndex()) - 1);
+        i >= 0;
+        i = m1Deps.previousSetBit(i - 1)) {
+      if (m2Deps.get(i) && (deepest == null || modules[i].getDepth() > deepest.getDepth())) {
+        deepest = modules[i];
+        if (deepest.getDepth() == maxDepth) {
+          break; // Nothing can be deeper, or later at the same depth.
         }
       }
     }
-    return null;
+    return deepest;
   }
 
   /**
@@ -159,6 +159,9 @@ public class JsAst implements SourceAst {
           reporter);
       root = result.ast;
       features = result.features;
+      if (result.lineFeedOffsets != null) {
+        sourceFile.setLineOffsets(result.lineFeedOffsets);
+      }
 
       if (compiler.getOptions().preservesDetailedSourceInfo()) {
         compiler.addComments(sourceFile.getName(), result.comments);
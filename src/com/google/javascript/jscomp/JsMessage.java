@@ -22,9 +22,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -79,8 +80,8 @@ public final class JsMessage {
 
   private final String key;
   private final String id;
-  private final List<CharSequence> parts;
-  private final Set<String> placeholders;
+  private final ImmutableList<CharSequence> parts;
+  private final ImmutableSet<String> placeholders;
   private final String desc;
   private final boolean hidden;
   private final String meaning;
@@ -110,8 +111,10 @@ public final class JsMessage {
 
     this.key = key;
     this.id = id;
-    this.parts = Collections.unmodifiableList(parts);
-    this.placeholders = Collections.unmodifiableSet(placeholders);
+    // Copied, rather than wrapped, so that a message holds exactly-sized arrays that do not change
+    // when its builder is reused; bundles with many messages are kept in memory for a whole build.
+    this.parts = ImmutableList.copyOf(parts);
+    this.placeholders = ImmutableSet.copyOf(placeholders);
     this.desc = desc;
     this.hidden = hidden;
     this.meaning = meaning;
@@ -368,8 +371,16 @@ public final class JsMessage {
      */
     public Builder appendPlaceholderReference(String name) {
       checkNotNull(name, "Placeholder name could not be null");
-      parts.add(new PlaceholderReference(name));
-      placeholders.add(name);
+      return appendPlaceholderReference(new PlaceholderReference(name));
+    }
+
+    /**
+     * Appends an existing placeholder reference to the message, so that messages with the same
+     * placeholders can share them.
+     */
+    Builder appendPlaceholderReference(PlaceholderReference reference) {
+      parts.add(reference);
+      placeholders.add(reference.getName());
       return this;
     }
 
@@ -32,6 +32,7 @@ public class LazyParsedDependencyInfo extends DependencyInfo.Base {
 
   private final DependencyInfo delegate;
   private JsAst ast;
+  private FeatureSet features;
   private final transient AbstractCompiler compiler;
 
   private ImmutableMap<String, String> loadFlags;
@@ -42,12 +43,25 @@ public class LazyParsedDependencyInfo extends DependencyInfo.Base {
     this.compiler = checkNotNull(compiler);
   }
 
+  /**
+   * Creates a dependency info whose load flags are computed from features that the caller already
+   * gathered, e.g. while parsing the file on another thread.
+   */
+  public LazyParsedDependencyInfo(
+      DependencyInfo delegate, FeatureSet features, AbstractCompiler compiler) {
+    this.delegate = checkNotNull(delegate);
+    this.features = checkNotNull(features);
+    this.compiler = checkNotNull(compiler);
+  }
+
   @Override
   public ImmutableMap<String, String> getLoadFlags() {
     if (loadFlags == null) {
       Map<String, String> loadFlagsBuilder = new TreeMap<>();
       loadFlagsBuilder.putAll(delegate.getLoadFlags());
-      FeatureSet features = ast.getFeatures(compiler);
+      if (features == null) {
+        features = ast.getFeatures(compiler);
+      }
       if (features.has(Feature.MODULES)) {
         String previousModule = loadFlagsBuilder.get("module");
         if (previousModule != null && !previousModule.equals("es6")) {
@@ -63,6 +77,7 @@ public class LazyParsedDependencyInfo extends DependencyInfo.Base {
 
       // Don't preserve the full AST longer than necessary.  It can consume a lot of memory.
       ast = null;
+      features = null;
     }
     return loadFlags;
   }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Compiles the same sources for several locales, parsing and checking them only once.
+ *
+ * <p>The sources are checked by a single compiler, whose state is then saved in memory, as {@code
+ * --save_after_checks} saves it to a file. Each locale restores its own copy of that state with its
+ * own {@link MessageBundle}, and runs the optimizations, which start by replacing the messages.
+ * The locales are compiled in parallel.
+ *
+ * <p>Messages are replaced before the optimizations rather than after them because the
+ * optimizations rename and inline the {@code goog.getMsg} calls that {@link ReplaceMessages} looks
+ * for, and because the translated strings change what the optimizations can do.
+ *
+ * <pre>
+ * MultiLocaleCompiler multiLocaleCompiler =
+ *     new MultiLocaleCompiler(Compiler::new, MyOptions::create, threadCount);
+ * Compiler checker = multiLocaleCompiler.check(externs, modules);
+ * if (!checker.hasErrors()) {
+ *   for (Compiler compiler : multiLocaleCompiler.compileForLocales(bundles).values()) {
+ *     ... compiler.toSource(module) for each of compiler.getModules() ...
+ *   }
+ * }
+ * </pre>
+ */
+@GwtIncompatible("ObjectOutputStream")
+public final class MultiLocaleCompiler {
+  private final Supplier<Compiler> compilerFactory;
+  private final Supplier<CompilerOptions> optionsFactory;
+  private final int threadCount;
+
+  /** The state of the compiler after the checks, or null if they have not run without errors. */
+  private byte[] checkedState;
+
+  /**
+   * @param compilerFactory creates the compiler for the checks and for each locale, which is
+   *     where their errors and warnings are reported
+   * @param optionsFactory creates the options for the checks and for each locale. These should
+   *     be the same each time, except that the message bundle is replaced for each locale.
+   * @param threadCount how many locales to compile at once
+   */
+  public MultiLocaleCompiler(
+      Supplier<Compiler> compilerFactory,
+      Supplier<CompilerOptions> optionsFactory,
+      int threadCount) {
+    checkArgument(threadCount > 0, "threadCount must be positive, was %s", threadCount);
+    this.compilerFactory = compilerFactory;
+    this.optionsFactory = optionsFactory;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Parses and checks the given sources. Locales can only be compiled if the returned compiler has
+   * no errors.
+   *
+   * <p>The caller is responsible for calling {@code generateReport()} on the returned compiler.
+   */
+  public Compiler check(List<SourceFile> externs, List<JSModule> modules) {
+    checkedState = null;
+    Compiler compiler = compilerFactory.get();
+    compiler.initModules(externs, modules, optionsFactory.get());
+    if (!compiler.hasErrors()) {
+      compiler.parseForCompilation();
+    }
+    if (!compiler.hasErrors()) {
+      compiler.stage1Passes();
+    }
+    if (!compiler.hasErrors()) {
+      ByteArrayOutputStream state = new ByteArrayOutputStream();
+      try {
+        compiler.saveState(state);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      checkedState = state.toByteArray();
+    }
+    return compiler;
+  }
+
+  /**
+   * Optimizes the checked sources once for each of the given message bundles. Each returned
+   * compiler holds the optimized modules for one locale, in {@code getModules()}.
+   *
+   * <p>Each compiler also reports the warnings found by the checks, as when continuing a saved
+   * compilation. The caller is responsible for calling {@code generateReport()} on them.
+   *
+   * @return the compilers, in the iteration order of {@code bundles}
+   */
+  public <K> ImmutableMap<K, Compiler> compileForLocales(
+      Map<K, ? extends MessageBundle> bundles) {
+    checkState(checkedState != null, "The sources have not been checked without errors");
+    if (bundles.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(bundles.size(), threadCount));
+    try {
+      Map<K, Future<Compiler>> futures = new LinkedHashMap<>();
+      for (Map.Entry<K, ? extends MessageBundle> entry : bundles.entrySet()) {
+        MessageBundle bundle = entry.getValue();
+        futures.put(entry.getKey(), executor.submit(() -> compileForLocale(bundle)));
+      }
+      ImmutableMap.Builder<K, Compiler> compilers = ImmutableMap.builder();
+      for (Map.Entry<K, Future<Compiler>> entry : futures.entrySet()) {
+        compilers.put(entry.getKey(), entry.getValue().get());
+      }
+      return compilers.build();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Compiler compileForLocale(MessageBundle bundle)
+      throws IOException, ClassNotFoundException {
+    CompilerOptions options = optionsFactory.get();
+    options.setMessageBundle(bundle);
+    Compiler compiler = compilerFactory.get();
+    compiler.initOptions(options);
+    // As init() does before --continue_saved_compilation restores the state, for example to create
+    // the source map.
+    compiler.initBasedOnOptions();
+    compiler.restoreState(new ByteArrayInputStream(checkedState));
+    if (!compiler.hasErrors()) {
+      compiler.stage2Passes();
+    }
+    compiler.performPostCompilationTasks();
+    return compiler;
+  }
+}
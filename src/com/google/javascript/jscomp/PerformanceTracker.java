@@ -35,7 +35,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 /**
@@ -95,6 +97,12 @@ public final class PerformanceTracker {
   /** Stats a single run of a compiler pass. */
   private final List<Stats> log = new ArrayList<>();
 
+  /**
+   * Cumulative runtime in nanoseconds of the parts of passes that are timed separately, such as
+   * the rules of a conformance check.
+   */
+  private final Map<String, Long> componentRuntimes = new LinkedHashMap<>();
+
   PerformanceTracker(Node externsRoot, Node jsRoot, TracerMode mode, PrintStream printStream) {
     checkArgument(mode != TracerMode.OFF, "PerformanceTracker can't work without tracer data.");
     this.startTime = System.currentTimeMillis();
@@ -167,6 +175,22 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Adds to the runtime of a part of a pass, for passes that time their parts separately.
+   *
+   * @param componentName the name of the part, prefixed by the name of the pass
+   * @param runtimeNanos execution time in nanoseconds
+   */
+  void recordComponentRuntime(String componentName, long runtimeNanos) {
+    Long previous = componentRuntimes.get(componentName);
+    componentRuntimes.put(componentName, (previous == null ? 0 : previous) + runtimeNanos);
+  }
+
+  @VisibleForTesting
+  ImmutableMap<String, Long> getComponentRuntimes() {
+    return ImmutableMap.copyOf(componentRuntimes);
+  }
+
   private void recordParsingStop(Stats logStats) {
     recordInputCount();
     if (!tracksAstSize()) {
@@ -401,6 +425,15 @@ public final class PerformanceTracker {
     }
     this.output.print("\n");
 
+    if (!componentRuntimes.isEmpty()) {
+      this.output.print("Components:\ncomponent,runtime\n");
+      for (Entry<String, Long> entry : componentRuntimes.entrySet()) {
+        this.output.print(
+            SimpleFormat.format("%s,%d\n", entry.getKey(), entry.getValue() / 1000000));
+      }
+      this.output.print("\n");
+    }
+
     this.output.print(Joiner.on("\n").join(
         "Log:",
         "pass,runtime,allocMem,codeChanged,astReduction,reduction,gzReduction,astSize,size,gzSize\n"));
@@ -33,13 +33,14 @@ import com.google.javascript.rhino.jstype.JSTypeNative;
 import com.google.javascript.rhino.jstype.ObjectType;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -116,7 +117,28 @@ class RemoveUnusedCode implements CompilerPass {
    */
   private final Deque<Continuation> worklist = new ArrayDeque<>();
 
-  private final Map<Var, VarInfo> varInfoMap = new HashMap<>();
+  /** Continuations that have already been applied and can be reused by {@link #newContinuation}. */
+  private final Deque<Continuation> continuationPool = new ArrayDeque<>();
+
+  /**
+   * Maps each scope for which a {@link VarInfo} has been requested to the dense id of its first
+   * var. The id of a var is this base plus {@link Var#index}. Scopes mapped to {@link
+   * #UNREMOVABLE_SCOPE} only provide context for an incremental traversal.
+   */
+  private final Map<Scope, Integer> scopeVarIdBases = new IdentityHashMap<>();
+
+  private static final int UNREMOVABLE_SCOPE = -1;
+
+  /** Vars indexed by dense var id. Entries are null for vars that have no VarInfo. */
+  private Var[] varsById = new Var[INITIAL_VAR_ID_CAPACITY];
+
+  /** VarInfos indexed by dense var id. */
+  private VarInfo[] varInfosById = new VarInfo[INITIAL_VAR_ID_CAPACITY];
+
+  private static final int INITIAL_VAR_ID_CAPACITY = 64;
+
+  /** The next dense var id to hand out. */
+  private int nextVarId = 0;
 
   private final Set<String> referencedPropertyNames = new HashSet<>(IMPLICITLY_USED_PROPERTIES);
 
@@ -147,6 +169,7 @@ class RemoveUnusedCode implements CompilerPass {
   private final boolean removeUnusedStaticProperties;
   private final boolean removeUnusedObjectDefinePropertiesDefinitions;
   private final boolean removeUnusedPolyfills;
+  private final boolean removeOnlyInChangedScopes;
 
   RemoveUnusedCode(Builder builder) {
     this.compiler = builder.compiler;
@@ -161,6 +184,7 @@ class RemoveUnusedCode implements CompilerPass {
     this.removeUnusedObjectDefinePropertiesDefinitions =
         builder.removeUnusedObjectDefinePropertiesDefinitions;
     this.removeUnusedPolyfills = builder.removeUnusedPolyfills;
+    this.removeOnlyInChangedScopes = builder.removeOnlyInChangedScopes;
     this.scopeCreator = new Es6SyntacticScopeCreator(builder.compiler);
 
     // All Vars that are completely unremovable will share this VarInfo instance.
@@ -180,6 +204,7 @@ class RemoveUnusedCode implements CompilerPass {
     private boolean removeUnusedStaticProperties = false;
     private boolean removeUnusedObjectDefinePropertiesDefinitions = false;
     private boolean removeUnusedPolyfills = false;
+    private boolean removeOnlyInChangedScopes = false;
 
     Builder(AbstractCompiler compiler) {
       this.compiler = compiler;
@@ -230,7 +255,28 @@ class RemoveUnusedCode implements CompilerPass {
       return this;
     }
 
+    /**
+     * Only look for unused local variables within functions and scripts that have changed since
+     * the last time this pass ran.
+     *
+     * <p>This is only valid when removing local variables and nothing else, since any other kind
+     * of removal depends on references anywhere in the program.
+     */
+    Builder removeOnlyInChangedScopes(boolean value) {
+      this.removeOnlyInChangedScopes = value;
+      return this;
+    }
+
     RemoveUnusedCode build() {
+      checkState(
+          !removeOnlyInChangedScopes
+              || (!removeGlobals
+                  && !removeUnusedPrototypeProperties
+                  && !removeUnusedThisProperties
+                  && !removeUnusedStaticProperties
+                  && !removeUnusedObjectDefinePropertiesDefinitions
+                  && !removeUnusedPolyfills),
+          "Only local variables can be removed from changed scopes alone");
       return new RemoveUnusedCode(this);
     }
   }
@@ -263,10 +309,22 @@ class RemoveUnusedCode implements CompilerPass {
       scope.declare(
           NodeUtil.JSC_PROPERTY_NAME_FN, /* no declaration node */ null, /* no input */ null);
     }
-    worklist.add(new Continuation(root, scope));
+    List<Node> changedScopeRoots = null;
+    if (removeOnlyInChangedScopes) {
+      changedScopeRoots = getOutermostChangedScopeRoots(root);
+    }
+    if (changedScopeRoots == null) {
+      worklist.add(newContinuation(root, scope));
+    } else {
+      for (Node changedScopeRoot : changedScopeRoots) {
+        worklist.add(
+            newContinuation(changedScopeRoot, createContextScope(changedScopeRoot, scope)));
+      }
+    }
     while (!worklist.isEmpty()) {
       Continuation continuation = worklist.remove();
       continuation.apply();
+      recycleContinuation(continuation);
     }
 
     removeUnreferencedVarsAndPolyfills();
@@ -276,6 +334,63 @@ class RemoveUnusedCode implements CompilerPass {
     }
   }
 
+  /**
+   * Returns the roots of the subtrees that must be traversed to find all unused local variables in
+   * the scopes that changed since this pass last ran, or null if the whole AST must be traversed.
+   *
+   * <p>Every local variable is declared and referenced only within the outermost function that
+   * contains it, so a changed function is widened to the outermost function enclosing it. A changed
+   * script is traversed as a whole.
+   */
+  @Nullable
+  private List<Node> getOutermostChangedScopeRoots(Node root) {
+    List<Node> changedScopeNodes =
+        compiler.getChangedScopeNodesForPass(PassNames.REMOVE_UNUSED_CODE);
+    if (changedScopeNodes == null) {
+      return null;
+    }
+    Set<Node> outermostRoots = new LinkedHashSet<>();
+    for (Node changedScopeNode : changedScopeNodes) {
+      Node outermostRoot = changedScopeNode.isScript() ? changedScopeNode : null;
+      boolean isAttached = false;
+      for (Node n = changedScopeNode; n != null; n = n.getParent()) {
+        if (n == root) {
+          isAttached = true;
+          break;
+        } else if (n.isFunction()) {
+          outermostRoot = n;
+        }
+      }
+      // Functions that have been removed from the AST since they changed don't need cleanup.
+      if (isAttached && outermostRoot != null) {
+        outermostRoots.add(outermostRoot);
+      }
+    }
+    return NodeUtil.removeNestedChangeScopeNodes(new ArrayList<>(outermostRoots));
+  }
+
+  /**
+   * Creates the scope in which the given function or script is declared. None of the variables
+   * in these scopes are considered for removal, since they may be referenced outside of the
+   * subtree being traversed.
+   */
+  private Scope createContextScope(Node scopeRoot, Scope globalScope) {
+    scopeVarIdBases.put(globalScope, UNREMOVABLE_SCOPE);
+    Deque<Node> scopeNodes = new ArrayDeque<>();
+    for (Node n = scopeRoot.getParent(); n != null && n != globalScope.getRootNode();
+        n = n.getParent()) {
+      if (NodeUtil.createsScope(n)) {
+        scopeNodes.push(n);
+      }
+    }
+    Scope scope = globalScope;
+    for (Node scopeNode : scopeNodes) {
+      scope = scopeCreator.createScope(scopeNode, scope);
+      scopeVarIdBases.put(scope, UNREMOVABLE_SCOPE);
+    }
+    return scope;
+  }
+
   private void removeIndependentlyRemovableProperties() {
     for (Removable removable : removablesForPropertyNames.values()) {
       removable.remove(compiler);
@@ -308,7 +423,7 @@ class RemoveUnusedCode implements CompilerPass {
             varInfo = traverseNameNode(n.getFirstChild(), scope);
             FunctionDeclaration functionDeclaration =
                 new RemovableBuilder()
-                    .addContinuation(new Continuation(n, scope))
+                    .addContinuation(newContinuation(n, scope))
                     .buildFunctionDeclaration(n);
             varInfo.addRemovable(functionDeclaration);
             if (parent.isExport()) {
@@ -484,7 +599,7 @@ class RemoveUnusedCode implements CompilerPass {
         if (NodeUtil.mayHaveSideEffects(objExpression, compiler)) {
           traverseNode(objExpression, scope);
         } else {
-          builder.addContinuation(new Continuation(objExpression, scope));
+          builder.addContinuation(newContinuation(objExpression, scope));
         }
         considerForIndependentRemoval(builder.buildUnusedReadReference(getProp, propertyNameNode));
       }
@@ -521,7 +636,7 @@ class RemoveUnusedCode implements CompilerPass {
           if (NodeUtil.mayHaveSideEffects(exprObj, compiler)) {
             traverseNode(exprObj, scope);
           } else {
-            builder.addContinuation(new Continuation(exprObj, scope));
+            builder.addContinuation(newContinuation(exprObj, scope));
           }
           considerForIndependentRemoval(builder.buildIncOrDepOp(incOrDecOp, propertyNameNode));
         }
@@ -622,7 +737,7 @@ class RemoveUnusedCode implements CompilerPass {
       } else {
         RemovableBuilder builder = new RemovableBuilder();
         for (Node child = callNode.getFirstChild(); child != null; child = child.getNext()) {
-          builder.addContinuation(new Continuation(child, scope));
+          builder.addContinuation(newContinuation(child, scope));
         }
         traverseVar(classVar).addRemovable(builder.buildClassSetupCall(callNode));
       }
@@ -662,11 +777,11 @@ class RemoveUnusedCode implements CompilerPass {
       RemovableBuilder builder = new RemovableBuilder();
       // TODO(bradfordcsmith): Is it really necessary to traverse the callee
       // (aka. Object.defineProperties)?
-      builder.addContinuation(new Continuation(callee, scope));
+      builder.addContinuation(newContinuation(callee, scope));
       if (NodeUtil.mayHaveSideEffects(propertyDefinitions, compiler)) {
         traverseNode(propertyDefinitions, scope);
       } else {
-        builder.addContinuation(new Continuation(propertyDefinitions, scope));
+        builder.addContinuation(newContinuation(propertyDefinitions, scope));
       }
       varInfo.addRemovable(builder.buildClassSetupCall(callNode));
     } else {
@@ -694,7 +809,7 @@ class RemoveUnusedCode implements CompilerPass {
         } else {
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(definition, scope))
+                  .addContinuation(newContinuation(definition, scope))
                   .buildObjectDefinePropertiesDefinition(property));
         }
       } else {
@@ -779,7 +894,7 @@ class RemoveUnusedCode implements CompilerPass {
           // but we may be able to remove unreferenced properties in it.
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(valueNode, scope))
+                  .addContinuation(newContinuation(valueNode, scope))
                   .buildClassOrPrototypeNamedProperty(propertyNode));
         }
       }
@@ -886,7 +1001,7 @@ class RemoveUnusedCode implements CompilerPass {
         } else {
           VanillaForNameDeclaration vanillaForNameDeclaration =
               new RemovableBuilder()
-                  .addContinuation(new Continuation(valueNode, scope))
+                  .addContinuation(newContinuation(valueNode, scope))
                   .buildVanillaForNameDeclaration(nameNode);
           varInfo.addRemovable(vanillaForNameDeclaration);
         }
@@ -910,7 +1025,7 @@ class RemoveUnusedCode implements CompilerPass {
         if (NodeUtil.mayHaveSideEffects(valueNode, compiler)) {
           traverseNode(valueNode, scope);
         } else {
-          builder.addContinuation(new Continuation(valueNode, scope));
+          builder.addContinuation(newContinuation(valueNode, scope));
         }
         NameDeclarationStatement removable =
             builder.buildNameDeclarationStatement(declarationStatement);
@@ -947,7 +1062,7 @@ class RemoveUnusedCode implements CompilerPass {
         if (NodeUtil.mayHaveSideEffects(getElemKey, compiler)) {
           traverseNode(getElemKey, scope);
         } else {
-          builder.addContinuation(new Continuation(getElemKey, scope));
+          builder.addContinuation(newContinuation(getElemKey, scope));
         }
         traverseRemovableAssignValue(valueNode, builder, scope);
         varInfo.addRemovable(builder.buildComputedPropertyAssign(assignNode, getElemKey));
@@ -980,7 +1095,7 @@ class RemoveUnusedCode implements CompilerPass {
           if (NodeUtil.mayHaveSideEffects(objExpression, compiler)) {
             traverseNode(objExpression, scope);
           } else {
-            builder.addContinuation(new Continuation(objExpression, scope));
+            builder.addContinuation(newContinuation(objExpression, scope));
           }
           considerForIndependentRemoval(
               builder.buildAnonymousPrototypeNamedPropertyAssign(
@@ -1007,7 +1122,7 @@ class RemoveUnusedCode implements CompilerPass {
         || NodeUtil.isExpressionResultUsed(valueNode.getParent())) {
       traverseNode(valueNode, scope);
     } else {
-      builder.addContinuation(new Continuation(valueNode, scope));
+      builder.addContinuation(newContinuation(valueNode, scope));
     }
   }
 
@@ -1029,13 +1144,13 @@ class RemoveUnusedCode implements CompilerPass {
       VarInfo varInfo = traverseNameNode(target, scope);
       DestructuringAssign assign =
           new RemovableBuilder()
-              .addContinuation(new Continuation(value, scope))
+              .addContinuation(newContinuation(value, scope))
               .buildDestructuringAssign(target);
       varInfo.addRemovable(assign);
     } else if (isThisDotProperty(target)) {
       DestructuringAssign assign =
           new RemovableBuilder()
-              .addContinuation(new Continuation(value, scope))
+              .addContinuation(newContinuation(value, scope))
               .buildDestructuringAssign(target);
       considerForIndependentRemoval(assign);
     } else {
@@ -1113,13 +1228,13 @@ class RemoveUnusedCode implements CompilerPass {
       VarInfo varInfo = traverseNameNode(target, scope);
       RemovableBuilder builder = new RemovableBuilder();
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       varInfo.addRemovable(builder.buildDestructuringAssign(target));
     } else if (isThisDotProperty(target)) {
       RemovableBuilder builder = new RemovableBuilder();
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       considerForIndependentRemoval(builder.buildDestructuringAssign(target));
     } else {
@@ -1158,16 +1273,16 @@ class RemoveUnusedCode implements CompilerPass {
       VarInfo varInfo = traverseNameNode(target, scope);
 
       RemovableBuilder builder = new RemovableBuilder();
-      builder.addContinuation(new Continuation(propertyExpression, scope));
+      builder.addContinuation(newContinuation(propertyExpression, scope));
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       varInfo.addRemovable(builder.buildDestructuringAssign(target));
     } else if (isNameDotPrototype(target)) {
       RemovableBuilder builder = new RemovableBuilder();
-      builder.addContinuation(new Continuation(propertyExpression, scope));
+      builder.addContinuation(newContinuation(propertyExpression, scope));
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       considerForIndependentRemoval(builder.buildDestructuringAssign(target));
     } else {
@@ -1227,8 +1342,8 @@ class RemoveUnusedCode implements CompilerPass {
     } else {
       RemovableBuilder builder =
           new RemovableBuilder()
-              .addContinuation(new Continuation(baseClassExpression, classScope))
-              .addContinuation(new Continuation(classBodyNode, classScope));
+              .addContinuation(newContinuation(baseClassExpression, classScope))
+              .addContinuation(newContinuation(classBodyNode, classScope));
       varInfo.addRemovable(builder.buildClassDeclaration(classNode));
     }
   }
@@ -1266,7 +1381,7 @@ class RemoveUnusedCode implements CompilerPass {
           // we cannot remove the class itself, so just consider individual members for removal.
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(member, scope))
+                  .addContinuation(newContinuation(member, scope))
                   .buildClassOrPrototypeNamedProperty(member));
           break;
 
@@ -1309,7 +1424,7 @@ class RemoveUnusedCode implements CompilerPass {
     Node nameNode = function.getFirstChild();
     if (!nameNode.getString().isEmpty()) {
       // var x = function funcName() {};
-      // make sure funcName gets into the varInfoMap so it will be considered for removal.
+      // make sure funcName gets a VarInfo so it will be considered for removal.
       VarInfo varInfo = traverseNameNode(nameNode, fparamScope);
       if (NodeUtil.isExpressionResultUsed(function)) {
         // var f = function g() {};
@@ -1531,7 +1646,7 @@ class RemoveUnusedCode implements CompilerPass {
   /**
    * Get the right {@link VarInfo} object to use for the given {@link Var}.
    *
-   * <p>This method is responsible for managing the entries in {@link #varInfoMap}.
+   * <p>This method is responsible for managing the entries in {@link #varInfosById}.
    * <p>Note: Several {@link Var}s may share the same {@link VarInfo} when they should be treated
    * the same way.
    */
@@ -1549,28 +1664,53 @@ class RemoveUnusedCode implements CompilerPass {
     } else if (var.isArguments()) {
       return canonicalUnremovableVarInfo;
     } else {
-      VarInfo varInfo = varInfoMap.get(var);
+      int varIdBase = getVarIdBase(var.getScope());
+      if (varIdBase == UNREMOVABLE_SCOPE) {
+        return canonicalUnremovableVarInfo;
+      }
+      int varId = varIdBase + var.index;
+      VarInfo varInfo = varInfosById[varId];
       if (varInfo == null) {
         varInfo = new VarInfo();
         if (var.getParentNode().isParamList()) {
           varInfo.hasNonLocalOrNonLiteralValue = true;
         }
-        varInfoMap.put(var, varInfo);
+        varsById[varId] = var;
+        varInfosById[varId] = varInfo;
       }
       return varInfo;
     }
   }
 
+  /**
+   * Returns the dense id of the first var declared in the given scope, reserving ids for all of
+   * its vars the first time the scope is seen.
+   */
+  private int getVarIdBase(Scope scope) {
+    Integer varIdBase = scopeVarIdBases.get(scope);
+    if (varIdBase == null) {
+      varIdBase = nextVarId;
+      nextVarId += scope.getVarCount();
+      if (nextVarId > varsById.length) {
+        int newCapacity = Math.max(nextVarId, varsById.length * 2);
+        varsById = Arrays.copyOf(varsById, newCapacity);
+        varInfosById = Arrays.copyOf(varInfosById, newCapacity);
+      }
+      scopeVarIdBases.put(scope, varIdBase);
+    }
+    return varIdBase;
+  }
+
   /**
    * Removes any vars in the scope that were not referenced. Removes any assignments to those
    * variables as well.
    */
   private void removeUnreferencedVarsAndPolyfills() {
-    for (Entry<Var, VarInfo> entry : varInfoMap.entrySet()) {
-      Var var = entry.getKey();
-      VarInfo varInfo = entry.getValue();
+    for (int varId = 0; varId < nextVarId; varId++) {
+      Var var = varsById[varId];
+      VarInfo varInfo = varInfosById[varId];
 
-      if (!varInfo.isRemovable()) {
+      if (varInfo == null || !varInfo.isRemovable()) {
         continue;
       }
 
@@ -1620,8 +1760,8 @@ class RemoveUnusedCode implements CompilerPass {
    * information so that we can continue the traversal later.
    */
   private class Continuation {
-    private final Node node;
-    private final Scope scope;
+    private Node node;
+    private Scope scope;
 
     Continuation(Node node, Scope scope) {
       this.node = node;
@@ -1638,6 +1778,29 @@ class RemoveUnusedCode implements CompilerPass {
     }
   }
 
+  /** Returns a continuation for the given node and scope, reusing a pooled one if possible. */
+  private Continuation newContinuation(Node node, Scope scope) {
+    Continuation continuation = continuationPool.poll();
+    if (continuation == null) {
+      return new Continuation(node, scope);
+    }
+    continuation.node = node;
+    continuation.scope = scope;
+    return continuation;
+  }
+
+  /**
+   * Returns an applied continuation to the pool.
+   *
+   * <p>A continuation is enqueued at most once, because {@link Removable#applyContinuations} drops
+   * its continuations after enqueuing them, so nothing refers to it once it has been applied.
+   */
+  private void recycleContinuation(Continuation continuation) {
+    continuation.node = null;
+    continuation.scope = null;
+    continuationPool.add(continuation);
+  }
+
   /** Represents a portion of the AST that can be removed. */
   private abstract class Removable {
 
@@ -2628,7 +2791,7 @@ class RemoveUnusedCode implements CompilerPass {
     // Make the removable and polyfill info.  Add continuations for all arguments.
     RemovableBuilder builder = new RemovableBuilder();
     for (Node n = call.getFirstChild().getNext(); n != null; n = n.getNext()) {
-      builder.addContinuation(new Continuation(n, scope));
+      builder.addContinuation(newContinuation(n, scope));
     }
     Polyfill removable = builder.buildPolyfill(call.getParent());
     int lastDot = name.lastIndexOf(".");
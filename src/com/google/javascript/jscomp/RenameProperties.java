@@ -194,14 +194,21 @@ class RenameProperties implements CompilerPass {
     reservedNames.addAll(externedNames);
     reservedNames.addAll(quotedNames);
 
-    // Assign names, sorted by descending frequency to minimize code size.
-    Set<Property> propsByFreq = new TreeSet<>(FREQUENCY_COMPARATOR);
-    propsByFreq.addAll(propertyMap.values());
-
     // First, try and reuse as many property names from the previous compilation
-    // as possible.
+    // as possible. Reused names are unique and only conflict with reserved
+    // names, so this does not depend on the order of the properties.
     if (prevUsedPropertyMap != null) {
-      reusePropertyNames(reservedNames, propsByFreq);
+      reusePropertyNames(reservedNames, propertyMap.values());
+    }
+
+    // Assign names to the remaining properties, sorted by descending frequency
+    // to minimize code size. When most names are carried over from a previous
+    // compilation only the new properties need to be sorted.
+    Set<Property> propsByFreq = new TreeSet<>(FREQUENCY_COMPARATOR);
+    for (Property p : propertyMap.values()) {
+      if (p.newName == null) {
+        propsByFreq.add(p);
+      }
     }
 
     generateNames(propsByFreq, reservedNames);
@@ -286,7 +293,8 @@ class RenameProperties implements CompilerPass {
   /**
    * Generates new names for properties.
    *
-   * @param props Properties to generate new names for
+   * @param props Properties to generate new names for, none of which have
+   *     been given a reusable name yet
    * @param reservedNames A set of names to which properties should not be
    *     renamed
    */
@@ -296,10 +304,7 @@ class RenameProperties implements CompilerPass {
       if (generatePseudoNames) {
         p.newName = "$" + p.oldName + "$";
       } else {
-        // If we haven't already given this property a reusable name.
-        if (p.newName == null) {
-          p.newName = nameGenerator.generateNextName();
-        }
+        p.newName = nameGenerator.generateNextName();
       }
       reservedNames.add(p.newName);
     }
@@ -27,6 +27,7 @@ import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -352,19 +353,32 @@ final class RenameVars implements CompilerPass {
     // Make sure that new names don't overlap with extern names.
     reservedNames.addAll(externNames);
 
-    // Rename vars, sorted by frequency of occurrence to minimize code size.
-    SortedSet<Assignment> varsByFrequency = new TreeSet<>(FREQUENCY_COMPARATOR);
-    varsByFrequency.addAll(assignments.values());
-
+    SortedSet<Assignment> varsByFrequency;
     if (shouldShadow) {
+      // Shadowing adjusts the counts, so every var needs to be sorted up front.
+      varsByFrequency = new TreeSet<>(FREQUENCY_COMPARATOR);
+      varsByFrequency.addAll(assignments.values());
       new ShadowVariables(
           compiler, assignments, varsByFrequency, pseudoNameMap).process(
               externs, root);
-    }
 
-    // First try to reuse names from an earlier compilation.
-    if (prevUsedRenameMap != null) {
-      reusePreviouslyUsedVariableMap(varsByFrequency);
+      // First try to reuse names from an earlier compilation.
+      if (prevUsedRenameMap != null) {
+        reusePreviouslyUsedVariableMap(varsByFrequency);
+      }
+    } else {
+      // First try to reuse names from an earlier compilation. Reused names are
+      // unique, so this does not depend on the order of the vars, and only the
+      // vars that still need a name have to be sorted afterwards.
+      if (prevUsedRenameMap != null) {
+        reusePreviouslyUsedVariableMap(assignments.values());
+      }
+      varsByFrequency = new TreeSet<>(FREQUENCY_COMPARATOR);
+      for (Assignment a : assignments.values()) {
+        if (a.newName == null) {
+          varsByFrequency.add(a);
+        }
+      }
     }
 
     // Assign names, sorted by descending frequency to minimize code size.
@@ -437,7 +451,7 @@ final class RenameVars implements CompilerPass {
    * Runs through the assignments and reuses as many names as possible from the previously used
    * variable map. Updates reservedNames with the set of names that were reused.
    */
-  private void reusePreviouslyUsedVariableMap(SortedSet<Assignment> varsToRename) {
+  private void reusePreviouslyUsedVariableMap(Collection<Assignment> varsToRename) {
     // If prevUsedRenameMap had duplicate values then this pass would be
     // non-deterministic.
     // In such a case, the following will throw an IllegalArgumentException.
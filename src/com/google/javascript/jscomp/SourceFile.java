@@ -24,6 +24,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.CharStreams;
+import com.google.javascript.jscomp.parsing.parser.LineNumberTable;
 import com.google.javascript.rhino.StaticSourceFile;
 import com.google.javascript.rhino.StaticSourceFile.SourceKind;
 import java.io.File;
@@ -41,11 +42,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
  * An abstract representation of a source file that provides access to language-neutral features.
@@ -131,18 +129,23 @@ public class SourceFile implements StaticSourceFile, Serializable {
       return;
     }
     try {
-      String[] sourceLines = getCode().split("\n", -1);
-      lineOffsets = new int[sourceLines.length];
-      for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
-      }
+      lineOffsets = LineNumberTable.computeLineFeedOffsets(getCode());
     } catch (IOException e) {
       lineOffsets = new int[1];
       lineOffsets[0] = 0;
     }
   }
 
+  /**
+   * Adopts line offsets that were already computed for the current code, for example by the parser,
+   * so that they need not be computed again.
+   */
+  void setLineOffsets(int[] lineOffsets) {
+    if (this.lineOffsets == null) {
+      this.lineOffsets = lineOffsets;
+    }
+  }
+
   private void resetLineOffsets() {
     lineOffsets = null;
   }
@@ -291,16 +294,10 @@ public class SourceFile implements StaticSourceFile, Serializable {
     } catch (IOException e) {
       return null;
     }
-    int pos = 0;
     int startLine = Math.max(1,
         lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
-    for (int n = 1; n < startLine; n++) {
-      int nextpos = js.indexOf('\n', pos);
-      if (nextpos == -1) {
-        break;
-      }
-      pos = nextpos + 1;
-    }
+    findLineOffsets();
+    int pos = lineOffsets[Math.min(startLine, lineOffsets.length) - 1];
     int end = pos;
     int endLine = startLine;
     for (int n = 0; n < SOURCE_EXCERPT_REGION_LENGTH; n++, endLine++) {
@@ -337,17 +334,13 @@ public class SourceFile implements StaticSourceFile, Serializable {
     final String absoluteZipPath = new File(zipName).getAbsolutePath();
     List<SourceFile> sourceFiles = new ArrayList<>();
 
-    try (ZipFile zipFile = new ZipFile(absoluteZipPath)) {
-      Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
-
-      while (zipEntries.hasMoreElements()) {
-        ZipEntry zipEntry = zipEntries.nextElement();
-        String entryName = zipEntry.getName();
-        if (!entryName.endsWith(".js")) { // Only accept js files
-          continue;
-        }
-        sourceFiles.add(fromZipEntry(zipName, absoluteZipPath, entryName, inputCharset));
+    // Index the zip through the shared reader cache, so reading the entries later does not open
+    // and index the archive a second time.
+    for (String entryName : ZipEntryReader.getEntryNames(absoluteZipPath)) {
+      if (!entryName.endsWith(".js")) { // Only accept js files
+        continue;
       }
+      sourceFiles.add(fromZipEntry(zipName, absoluteZipPath, entryName, inputCharset));
     }
     return sourceFiles;
   }
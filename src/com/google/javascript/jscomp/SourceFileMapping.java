@@ -33,4 +33,20 @@ public interface SourceFileMapping {
    */
   @Nullable
   OriginalMapping getSourceMapping(String fileName, int lineNo, int columnNo);
+
+  /**
+   * Returns the original mappings for several positions in the same file, as {@link
+   * #getSourceMapping} would for each of them. Implementations may resolve the positions faster
+   * when they are sorted by line and column.
+   *
+   * @param lineNos The line numbers, 1-based.
+   * @param columnNos The column indexes, in the same form as for {@link #getSourceMapping}.
+   */
+  default OriginalMapping[] getSourceMappings(String fileName, int[] lineNos, int[] columnNos) {
+    OriginalMapping[] result = new OriginalMapping[lineNos.length];
+    for (int i = 0; i < lineNos.length; i++) {
+      result[i] = getSourceMapping(fileName, lineNos[i], columnNos[i]);
+    }
+    return result;
+  }
 }
@@ -25,7 +25,10 @@ import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.rhino.Node;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -152,6 +155,40 @@ public final class SourceMap {
   @Nullable
   private SourceFileMapping mapping;
 
+  /** The most mappings that are held back before they are resolved through {@link #mapping}. */
+  private static final int MAX_PENDING_MAPPINGS = 1 << 14;
+
+  /**
+   * Mappings that still have to be resolved through {@link #mapping}, in the order they were added.
+   * Resolving them together lets the positions of each source file be looked up in order, rather
+   * than with a separate search each. They are passed on to the generator before anything else is.
+   */
+  private final List<PendingMapping> pendingMappings = new ArrayList<>();
+
+  private static final class PendingMapping {
+    final String sourceFile;
+    final int lineNo;
+    final int charNo;
+    final String originalName;
+    final FilePosition outputStartPosition;
+    final FilePosition outputEndPosition;
+
+    PendingMapping(
+        String sourceFile,
+        int lineNo,
+        int charNo,
+        String originalName,
+        FilePosition outputStartPosition,
+        FilePosition outputEndPosition) {
+      this.sourceFile = sourceFile;
+      this.lineNo = lineNo;
+      this.charNo = charNo;
+      this.originalName = originalName;
+      this.outputStartPosition = outputStartPosition;
+      this.outputEndPosition = outputEndPosition;
+    }
+  }
+
   private SourceMap(SourceMapGenerator generator) {
     this.generator = generator;
   }
@@ -174,7 +211,67 @@ public final class SourceMap {
     String originalName = node.getOriginalName();
 
     if (mapping != null) {
-      OriginalMapping sourceMapping = mapping.getSourceMapping(sourceFile, lineNo, charNo);
+      pendingMappings.add(
+          new PendingMapping(
+              sourceFile, lineNo, charNo, originalName, outputStartPosition, outputEndPosition));
+      if (pendingMappings.size() >= MAX_PENDING_MAPPINGS) {
+        flushPendingMappings();
+      }
+      return;
+    }
+
+    addGeneratorMapping(
+        sourceFile, originalName, lineNo, charNo, outputStartPosition, outputEndPosition);
+  }
+
+  /**
+   * Resolves the pending mappings through {@link #mapping}, a source file at a time with its
+   * positions in order, and adds them to the generator in the order they were added.
+   */
+  private void flushPendingMappings() {
+    if (pendingMappings.isEmpty()) {
+      return;
+    }
+
+    Map<String, List<Integer>> indicesBySourceFile = new LinkedHashMap<>();
+    for (int i = 0; i < pendingMappings.size(); i++) {
+      indicesBySourceFile
+          .computeIfAbsent(pendingMappings.get(i).sourceFile, k -> new ArrayList<>())
+          .add(i);
+    }
+
+    OriginalMapping[] sourceMappings = new OriginalMapping[pendingMappings.size()];
+    for (Map.Entry<String, List<Integer>> entry : indicesBySourceFile.entrySet()) {
+      List<Integer> indices = entry.getValue();
+      // Printing mostly follows the source, so this is usually close to sorted already.
+      Collections.sort(
+          indices,
+          (a, b) -> {
+            PendingMapping first = pendingMappings.get(a);
+            PendingMapping second = pendingMappings.get(b);
+            int result = Integer.compare(first.lineNo, second.lineNo);
+            return result != 0 ? result : Integer.compare(first.charNo, second.charNo);
+          });
+      int[] lineNos = new int[indices.size()];
+      int[] charNos = new int[indices.size()];
+      for (int i = 0; i < indices.size(); i++) {
+        PendingMapping pending = pendingMappings.get(indices.get(i));
+        lineNos[i] = pending.lineNo;
+        charNos[i] = pending.charNo;
+      }
+      OriginalMapping[] results = mapping.getSourceMappings(entry.getKey(), lineNos, charNos);
+      for (int i = 0; i < indices.size(); i++) {
+        sourceMappings[indices.get(i)] = results[i];
+      }
+    }
+
+    for (int i = 0; i < pendingMappings.size(); i++) {
+      PendingMapping pending = pendingMappings.get(i);
+      String sourceFile = pending.sourceFile;
+      int lineNo = pending.lineNo;
+      int charNo = pending.charNo;
+      String originalName = pending.originalName;
+      OriginalMapping sourceMapping = sourceMappings[i];
       if (sourceMapping != null) {
         sourceFile = sourceMapping.getOriginalFile();
         lineNo = sourceMapping.getLineNumber();
@@ -184,8 +281,24 @@ public final class SourceMap {
           originalName = identifier;
         }
       }
+      addGeneratorMapping(
+          sourceFile,
+          originalName,
+          lineNo,
+          charNo,
+          pending.outputStartPosition,
+          pending.outputEndPosition);
     }
+    pendingMappings.clear();
+  }
 
+  private void addGeneratorMapping(
+      String sourceFile,
+      String originalName,
+      int lineNo,
+      int charNo,
+      FilePosition outputStartPosition,
+      FilePosition outputEndPosition) {
     sourceFile = fixupSourceLocation(sourceFile);
 
     // Rhino source lines are one based but for v3 source maps, we make
@@ -199,6 +312,7 @@ public final class SourceMap {
   }
 
   public void addSourceFile(String name, String code) {
+    flushPendingMappings();
     generator.addSourcesContent(fixupSourceLocation(name), code);
   }
 
@@ -234,23 +348,28 @@ public final class SourceMap {
   }
 
   public void appendTo(Appendable out, String name) throws IOException {
+    flushPendingMappings();
     generator.appendTo(out, fixupSourceLocation(name));
   }
 
   public void reset() {
+    pendingMappings.clear();
     generator.reset();
     sourceLocationFixupCache.clear();
   }
 
   public void setStartingPosition(int offsetLine, int offsetIndex) {
+    flushPendingMappings();
     generator.setStartingPosition(offsetLine, offsetIndex);
   }
 
   public void setWrapperPrefix(String prefix) {
+    flushPendingMappings();
     generator.setWrapperPrefix(prefix);
   }
 
   public void validate(boolean validate) {
+    flushPendingMappings();
     generator.validate(validate);
   }
 
@@ -258,10 +377,12 @@ public final class SourceMap {
    * @param sourceMapLocationMappings
    */
   public void setPrefixMappings(List<? extends LocationMapping> sourceMapLocationMappings) {
-     this.prefixMappings = sourceMapLocationMappings;
+    flushPendingMappings();
+    this.prefixMappings = sourceMapLocationMappings;
   }
 
   public void setSourceFileMapping(SourceFileMapping mapping) {
+    flushPendingMappings();
     this.mapping = mapping;
   }
 }
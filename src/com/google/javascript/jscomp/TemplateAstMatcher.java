@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * A matcher that can take an arbitrary AST and use it as a template to find
@@ -54,6 +55,18 @@ public final class TemplateAstMatcher {
    */
   private final Node templateStart;
 
+  /**
+   * The token every matched node has, or null if the template starts with a parameter that can
+   * match any expression.
+   */
+  @Nullable private final Token rootToken;
+
+  /** The child count every matched node has, or -1 if it is not fixed by the template. */
+  private final int rootChildCount;
+
+  /** The {@link #getIndexName} every matched node has, or null if it is not fixed. */
+  @Nullable private final String rootIndexName;
+
   /** The params declared in the template (in order) */
   private final List<String> templateParams = new ArrayList<>();
 
@@ -109,6 +122,81 @@ public final class TemplateAstMatcher {
     this.typeRegistry = typeRegistry;
     this.templateStart = initTemplate(templateFunctionNode);
     this.typeMatchingStrategy = checkNotNull(typeMatchingStrategy);
+
+    if (isTemplateParameterNode(templateStart)
+        || isTemplateParameterStringLiteralNode(templateStart)) {
+      this.rootToken = null;
+      this.rootChildCount = -1;
+    } else if (isTemplateLocalNameNode(templateStart)) {
+      this.rootToken = Token.NAME;
+      this.rootChildCount = -1;
+    } else {
+      this.rootToken = templateStart.getToken();
+      this.rootChildCount = templateStart.getChildCount();
+    }
+    this.rootIndexName = getIndexName(templateStart);
+  }
+
+  /**
+   * Returns the token of every node this template can match, or null if the template can match
+   * nodes with different tokens. Along with {@link #getRootChildCount} and {@link
+   * #getRootIndexName}, this allows many templates to be indexed so that only the ones that can
+   * possibly match a node are tried against it.
+   */
+  @Nullable
+  public Token getRootToken() {
+    return rootToken;
+  }
+
+  /** Returns the child count of every node this template can match, or -1 if it varies. */
+  public int getRootChildCount() {
+    return rootChildCount;
+  }
+
+  /**
+   * Returns the {@link #getIndexName} of every node this template can match, or null if it
+   * varies.
+   */
+  @Nullable
+  public String getRootIndexName() {
+    return rootIndexName;
+  }
+
+  /**
+   * Returns the name that identifies a node when indexing templates: the name of a NAME, the
+   * property of a GETPROP, or the index name of the callee of a CALL or NEW. Returns null for other
+   * nodes.
+   *
+   * <p>Template placeholders never have an index name, so any node matching a template whose root
+   * has an index name has the same one.
+   */
+  @Nullable
+  public static String getIndexName(Node n) {
+    switch (n.getToken()) {
+      case NAME:
+        return n.getString();
+      case GETPROP:
+        return n.getLastChild().getString();
+      case CALL:
+      case NEW:
+        return getIndexName(n.getFirstChild());
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns false if the node cannot match this template because of its token, child count or
+   * index name. This is much cheaper than {@link #matches}, but a true result does not mean the
+   * node matches.
+   */
+  public boolean mayMatch(Node n) {
+    if (rootToken == null) {
+      return true;
+    }
+    return n.getToken() == rootToken
+        && (rootChildCount == -1 || n.getChildCount() == rootChildCount)
+        && (rootIndexName == null || rootIndexName.equals(getIndexName(n)));
   }
 
   /**
@@ -16,16 +16,30 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterables;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
@@ -80,6 +94,7 @@ public final class XtbMessageBundle implements MessageBundle {
 
   private final Map<String, JsMessage> messages;
   private final JsMessage.IdGenerator idGenerator;
+  private final SharedParts sharedParts;
 
   public XtbMessageBundle(
       InputStream xtb, @Nullable String projectId,
@@ -94,8 +109,13 @@ public final class XtbMessageBundle implements MessageBundle {
    * @param projectId  the translation console project id (i.e. name)
    */
   public XtbMessageBundle(InputStream xtb, @Nullable String projectId) {
+    this(xtb, projectId, new SharedParts());
+  }
+
+  private XtbMessageBundle(InputStream xtb, @Nullable String projectId, SharedParts sharedParts) {
     this.messages = new HashMap<>();
     this.idGenerator = new GoogleJsMessageIdGenerator(projectId);
+    this.sharedParts = sharedParts;
 
     try {
       // Use a SAX parser for speed and less memory usage.
@@ -109,6 +129,54 @@ public final class XtbMessageBundle implements MessageBundle {
     }
   }
 
+  /**
+   * Loads several XTB files, typically one per locale, parsing them in parallel on up to {@code
+   * threadCount} threads. The bundles share the message ids and placeholders they have in common,
+   * so each is stored only once however many bundles are loaded.
+   *
+   * @param xtbFiles the XTB files to load, by the key to return their bundles under
+   * @param projectId the translation console project id (i.e. name)
+   * @return the bundles, in the iteration order of {@code xtbFiles}
+   */
+  public static <K> ImmutableMap<K, XtbMessageBundle> loadAll(
+      Map<K, Path> xtbFiles, @Nullable String projectId, int threadCount) throws IOException {
+    checkArgument(threadCount > 0, "threadCount must be positive, was %s", threadCount);
+    if (xtbFiles.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    SharedParts sharedParts = new SharedParts();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(xtbFiles.size(), threadCount));
+    try {
+      Map<K, Future<XtbMessageBundle>> futures = new LinkedHashMap<>();
+      for (Map.Entry<K, Path> entry : xtbFiles.entrySet()) {
+        Path file = entry.getValue();
+        futures.put(
+            entry.getKey(),
+            executor.submit(
+                () -> {
+                  try (InputStream xtb = new BufferedInputStream(Files.newInputStream(file))) {
+                    return new XtbMessageBundle(xtb, projectId, sharedParts);
+                  }
+                }));
+      }
+      ImmutableMap.Builder<K, XtbMessageBundle> bundles = ImmutableMap.builder();
+      for (Map.Entry<K, Future<XtbMessageBundle>> entry : futures.entrySet()) {
+        bundles.put(entry.getKey(), entry.getValue().get());
+      }
+      return bundles.build();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   // Inlined from guava-internal.
   private static SAXParser createSAXParser()
       throws ParserConfigurationException, SAXException {
@@ -145,9 +213,25 @@ public final class XtbMessageBundle implements MessageBundle {
     return Iterables.unmodifiableIterable(messages.values());
   }
 
+  /**
+   * The parts of messages that are the same in many messages, and in the bundles for different
+   * locales. These are shared between the bundles loaded together by {@link #loadAll}.
+   */
+  private static final class SharedParts {
+    final Interner<String> strings = Interners.newStrongInterner();
+    final Map<String, JsMessage.PlaceholderReference> placeholders = new ConcurrentHashMap<>();
+
+    JsMessage.PlaceholderReference placeholder(String name) {
+      return placeholders.computeIfAbsent(
+          name, n -> new JsMessage.PlaceholderReference(strings.intern(n)));
+    }
+  }
+
   /**
    * A {@link ContentHandler} that creates a {@link JsMessage} for each message
    * parsed from an XML Translation Bundle (XTB) file.
+   *
+   * <p>Adjacent text, which the parser may report in several pieces, is stored as a single part.
    */
   private class Handler implements ContentHandler {
     private static final String BUNDLE_ELEM_NAME = "translationbundle";
@@ -163,6 +247,7 @@ public final class XtbMessageBundle implements MessageBundle {
 
     String lang;
     JsMessage.Builder msgBuilder;
+    final StringBuilder text = new StringBuilder();
 
     @Override
     public void setDocumentLocator(Locator locator) {}
@@ -192,16 +277,20 @@ public final class XtbMessageBundle implements MessageBundle {
           checkState(msgBuilder == null);
           String id = atts.getValue(MESSAGE_ID_ATT_NAME);
           checkState(id != null && !id.isEmpty());
-          msgBuilder = new JsMessage.Builder(id);
+          msgBuilder = new JsMessage.Builder(sharedParts.strings.intern(id));
           break;
         case PLACEHOLDER_ELEM_NAME:
           checkState(msgBuilder != null);
           String phRef = atts.getValue(PLACEHOLDER_NAME_ATT_NAME);
+          if (!isIcuMessage && !msgBuilder.hasParts() && text.length() > 0) {
+            isIcuMessage = isStartOfIcuMessage(text.toString());
+          }
           if (isIcuMessage) {
-            msgBuilder.appendStringPart(asIcuPlaceholder(phRef));
+            text.append(asIcuPlaceholder(phRef));
           } else {
+            appendText();
             phRef = JsMessageVisitor.toLowerCamelCaseWithNumericSuffixes(phRef);
-            msgBuilder.appendPlaceholderReference(phRef);
+            msgBuilder.appendPlaceholderReference(sharedParts.placeholder(phRef));
           }
           break;
         default: // fall out
@@ -212,6 +301,7 @@ public final class XtbMessageBundle implements MessageBundle {
     public void endElement(String uri, String localName, String qName) {
       if (TRANSLATION_ELEM_NAME.equals(qName)) {
         checkState(msgBuilder != null);
+        appendText();
         if (!msgBuilder.hasParts()) {
           msgBuilder.appendStringPart("");
         }
@@ -225,12 +315,7 @@ public final class XtbMessageBundle implements MessageBundle {
     @Override
     public void characters(char ch[], int start, int length) {
       if (msgBuilder != null) {
-        String part = String.valueOf(ch, start, length);
-        if (!msgBuilder.hasParts()) {
-          isIcuMessage = isStartOfIcuMessage(part);
-        }
-        // Append a string literal to the message.
-        msgBuilder.appendStringPart(part);
+        text.append(ch, start, length);
       }
     }
 
@@ -238,7 +323,15 @@ public final class XtbMessageBundle implements MessageBundle {
     public void ignorableWhitespace(char ch[], int start, int length) {
       if (msgBuilder != null) {
         // Preserve whitespace in messages.
-        msgBuilder.appendStringPart(String.valueOf(ch, start, length));
+        text.append(ch, start, length);
+      }
+    }
+
+    /** Appends the text seen since the last part as a string literal part of the message. */
+    private void appendText() {
+      if (text.length() > 0) {
+        msgBuilder.appendStringPart(text.toString());
+        text.setLength(0);
       }
     }
 
@@ -15,23 +15,42 @@
  */
 package com.google.javascript.jscomp;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.CharStreams;
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
 
 /**
  * A class that abstract entries from zip files via managed caching.
@@ -40,6 +59,12 @@ import java.util.zip.ZipFile;
  * zip file contents might change over time (e.g. compiler running as a worker). This class provides
  * a timestamp controlled caching which ensures we always read up-to-date zip while avoiding wasting
  * time by re-reading the zip for each entry.
+ *
+ * <p>Zip files are memory-mapped and their central directory is indexed once per modification, so
+ * stored entries are decoded straight from the mapping and deflated entries are inflated in a
+ * single pass. Archives that cannot be mapped (e.g. zip64 archives) are read through {@link
+ * ZipFile} instead. Within a {@link #batchStatChecks batch}, each zip file is checked for
+ * modification only once.
  */
 @GwtIncompatible("java.util.zip.ZipFile")
 final class ZipEntryReader implements Serializable {
@@ -49,6 +74,17 @@ final class ZipEntryReader implements Serializable {
   private static final int ZIP_CACHE_SIZE =
       Integer.parseInt(System.getProperty("jscomp.zipfile.cachesize", "1000"));
 
+  // Mapped files cannot be modified or deleted on Windows, which would break workers whose inputs
+  // are rewritten between compilations.
+  private static final boolean USE_MEMORY_MAPPING =
+      Boolean.parseBoolean(
+          System.getProperty(
+              "jscomp.zipfile.mmap",
+              String.valueOf(!System.getProperty("os.name", "").startsWith("Windows"))));
+
+  private static final AtomicInteger openStatCheckBatches = new AtomicInteger();
+  private static final AtomicLong statCheckBatchGeneration = new AtomicLong();
+
   private static final LoadingCache<String, CachedZipFile> zipFileCache =
       CacheBuilder.newBuilder()
           .maximumSize(ZIP_CACHE_SIZE)
@@ -68,46 +104,328 @@ final class ZipEntryReader implements Serializable {
                 }
               });
 
+  /**
+   * Starts a batch of reads during which each zip file is checked for modification at most once.
+   * Batches may nest and overlap. A read never relies on a check made before its batch was opened,
+   * so each batch sees the zip files as they were when it started, or later.
+   */
+  static StatCheckBatch batchStatChecks() {
+    // Advance the generation before the count, so that a read which sees this batch open also sees
+    // its generation.
+    statCheckBatchGeneration.incrementAndGet();
+    openStatCheckBatches.incrementAndGet();
+    return new StatCheckBatch();
+  }
+
+  /** Returns the generation of the newest open batch, or 0 if no batch is open. */
+  private static long currentStatCheckBatch() {
+    return openStatCheckBatches.get() > 0 ? statCheckBatchGeneration.get() : 0;
+  }
+
+  /** An open batch of stat checks, see {@link #batchStatChecks}. */
+  static final class StatCheckBatch implements AutoCloseable {
+    private boolean closed = false;
+
+    private StatCheckBatch() {}
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        openStatCheckBatches.decrementAndGet();
+      }
+    }
+  }
+
+  /** Returns the names of the entries of the given zip file, in central directory order. */
+  static ImmutableList<String> getEntryNames(String zipPath) throws IOException {
+    return zipFileCache.getUnchecked(zipPath).getEntryNames();
+  }
+
   private static class CachedZipFile {
     private final Path path;
-    private ZipFile zipFile;
-    private volatile FileTime lastModified;
+    private volatile OpenZip openZip;
+    private volatile long checkedInBatch;
 
     private CachedZipFile(String zipName) {
       this.path = Paths.get(zipName);
     }
 
     private Reader getReader(String entryName, Charset charset) throws IOException {
-      refreshIfNeeded();
-      return new InputStreamReader(zipFile.getInputStream(zipFile.getEntry(entryName)), charset);
+      return refreshIfNeeded().getReader(entryName, charset);
     }
 
-    private void refreshIfNeeded() throws IOException {
-      FileTime newLastModified = Files.getLastModifiedTime(path);
-      if (newLastModified.equals(lastModified)) {
-        return;
+    private String read(String entryName, Charset charset) throws IOException {
+      return refreshIfNeeded().read(entryName, charset);
+    }
+
+    private ImmutableList<String> getEntryNames() throws IOException {
+      return refreshIfNeeded().getEntryNames();
+    }
+
+    /** Returns the zip as it is on disk, reopening it if it has changed. */
+    private OpenZip refreshIfNeeded() throws IOException {
+      long batch = currentStatCheckBatch();
+      OpenZip current = openZip;
+      if (current != null && batch != 0 && batch == checkedInBatch) {
+        return current;
       }
 
-      synchronized (this) {
-        // Since we do double checked locking (newLastModified is checked out of synchronized), we
-        // should test the stamp again.
-        if (newLastModified.equals(lastModified)) {
-          return;
+      FileTime newLastModified = Files.getLastModifiedTime(path);
+      if (current == null || !newLastModified.equals(current.lastModified)) {
+        synchronized (this) {
+          // Since we do double checked locking (newLastModified is checked out of synchronized),
+          // we should test the stamp again.
+          current = openZip;
+          if (current == null || !newLastModified.equals(current.lastModified)) {
+            maybeClose();
+            current = OpenZip.open(path, newLastModified);
+            openZip = current;
+          }
         }
+      }
+      checkedInBatch = batch;
+      return current;
+    }
+
+    private synchronized void maybeClose() throws IOException {
+      OpenZip current = openZip;
+      openZip = null;
+      if (current != null) {
+        current.close();
+      }
+    }
+  }
+
+  /**
+   * A zip file opened at a given modification time, either memory-mapped or through {@link
+   * ZipFile}. It is never changed once opened, so readers may keep using it without locking.
+   */
+  private static final class OpenZip {
+    final FileTime lastModified;
+    // Exactly one of these is set.
+    @Nullable private final MappedZip mappedZip;
+    @Nullable private final ZipFile zipFile;
+
+    private OpenZip(FileTime lastModified, MappedZip mappedZip, ZipFile zipFile) {
+      this.lastModified = lastModified;
+      this.mappedZip = mappedZip;
+      this.zipFile = zipFile;
+    }
+
+    static OpenZip open(Path path, FileTime lastModified) throws IOException {
+      MappedZip mapped = USE_MEMORY_MAPPING ? MappedZip.open(path) : null;
+      return new OpenZip(lastModified, mapped, mapped == null ? new ZipFile(path.toFile()) : null);
+    }
+
+    Reader getReader(String entryName, Charset charset) throws IOException {
+      if (mappedZip != null) {
+        return new StringReader(mappedZip.read(entryName, charset));
+      }
+      return new InputStreamReader(zipFile.getInputStream(zipFile.getEntry(entryName)), charset);
+    }
+
+    String read(String entryName, Charset charset) throws IOException {
+      if (mappedZip != null) {
+        return mappedZip.read(entryName, charset);
+      }
+      return CharStreams.toString(
+          new InputStreamReader(zipFile.getInputStream(zipFile.getEntry(entryName)), charset));
+    }
 
-        maybeClose();
-        zipFile = new ZipFile(path.toFile());
-        lastModified = newLastModified;
+    ImmutableList<String> getEntryNames() {
+      if (mappedZip != null) {
+        return ImmutableList.copyOf(mappedZip.entries.keySet());
       }
+      ImmutableList.Builder<String> names = ImmutableList.builder();
+      Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+      while (zipEntries.hasMoreElements()) {
+        names.add(zipEntries.nextElement().getName());
+      }
+      return names.build();
     }
 
-    private void maybeClose() throws IOException {
+    void close() throws IOException {
+      // Mapped zips are released by the garbage collector.
       if (zipFile != null) {
         zipFile.close();
       }
     }
   }
 
+  /** A memory-mapped zip file with an index of its central directory. */
+  private static final class MappedZip {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+
+    private static final class Entry {
+      final int method;
+      final int compressedSize;
+      final int size;
+      final int localHeaderOffset;
+
+      Entry(int method, int compressedSize, int size, int localHeaderOffset) {
+        this.method = method;
+        this.compressedSize = compressedSize;
+        this.size = size;
+        this.localHeaderOffset = localHeaderOffset;
+      }
+    }
+
+    private MappedZip(Path path, ByteBuffer buffer, Map<String, Entry> entries) {
+      this.path = path;
+      this.buffer = buffer;
+      this.entries = entries;
+    }
+
+    /** Maps and indexes the given zip, or returns null if it has to be read through ZipFile. */
+    static MappedZip open(Path path) throws IOException {
+      MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        long size = channel.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE || size > Integer.MAX_VALUE) {
+          return null;
+        }
+        // The mapping stays valid after the channel is closed.
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      Map<String, Entry> entries = readCentralDirectory(buffer);
+      return entries == null ? null : new MappedZip(path, buffer, entries);
+    }
+
+    private static Map<String, Entry> readCentralDirectory(ByteBuffer buffer) {
+      int end = findEndOfCentralDirectory(buffer);
+      if (end < 0) {
+        return null;
+      }
+      int entryCount = unsignedShort(buffer, end + 10);
+      long directorySize = buffer.getInt(end + 12) & UNSIGNED_INT_MASK;
+      long directoryOffset = buffer.getInt(end + 16) & UNSIGNED_INT_MASK;
+      if (entryCount == 0xffff || directoryOffset + directorySize > end) {
+        // A zip64 archive, or one we do not understand.
+        return null;
+      }
+
+      Map<String, Entry> entries = new LinkedHashMap<>();
+      int pos = (int) directoryOffset;
+      for (int i = 0; i < entryCount; i++) {
+        if (pos + CENTRAL_HEADER_SIZE > end || buffer.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+          return null;
+        }
+        int flags = unsignedShort(buffer, pos + 8);
+        int method = unsignedShort(buffer, pos + 10);
+        long compressedSize = buffer.getInt(pos + 20) & UNSIGNED_INT_MASK;
+        long size = buffer.getInt(pos + 24) & UNSIGNED_INT_MASK;
+        int nameLength = unsignedShort(buffer, pos + 28);
+        int extraLength = unsignedShort(buffer, pos + 30);
+        int commentLength = unsignedShort(buffer, pos + 32);
+        long localHeaderOffset = buffer.getInt(pos + 42) & UNSIGNED_INT_MASK;
+        boolean encrypted = (flags & 1) != 0;
+        if (encrypted
+            || (method != STORED && method != DEFLATED)
+            || compressedSize >= Integer.MAX_VALUE
+            || size >= Integer.MAX_VALUE
+            || localHeaderOffset >= end) {
+          return null;
+        }
+        // ZipFile decodes names as UTF-8 by default, whether or not the entry says so.
+        String name = decode(buffer, pos + CENTRAL_HEADER_SIZE, nameLength, UTF_8);
+        entries.putIfAbsent(
+            name, new Entry(method, (int) compressedSize, (int) size, (int) localHeaderOffset));
+        pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+      }
+      return entries;
+    }
+
+    /** Returns the offset of the end of central directory record, or -1 if there is none. */
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+      int last = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+      // The record is followed by a comment of at most 64K.
+      int first = Math.max(0, last - 0xffff);
+      for (int pos = last; pos >= first; pos--) {
+        if (buffer.getInt(pos) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+            && pos + END_OF_CENTRAL_DIRECTORY_SIZE + unsignedShort(buffer, pos + 20)
+                == buffer.limit()) {
+          return pos;
+        }
+      }
+      return -1;
+    }
+
+    String read(String entryName, Charset charset) throws IOException {
+      Entry entry = entries.get(entryName);
+      if (entry == null) {
+        throw new FileNotFoundException(entryName + " not found in " + path);
+      }
+      int header = entry.localHeaderOffset;
+      if (buffer.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+        throw new IOException("Invalid local header for " + entryName + " in " + path);
+      }
+      int dataStart =
+          header
+              + LOCAL_HEADER_SIZE
+              + unsignedShort(buffer, header + 26)
+              + unsignedShort(buffer, header + 28);
+      if (dataStart + (long) entry.compressedSize > buffer.limit()) {
+        throw new IOException("Truncated entry " + entryName + " in " + path);
+      }
+      if (entry.method == STORED) {
+        return decode(buffer, dataStart, entry.size, charset);
+      }
+
+      // The inflater may need an extra dummy byte when reading raw deflate data.
+      byte[] compressed = new byte[entry.compressedSize + 1];
+      ByteBuffer data = buffer.duplicate();
+      data.position(dataStart);
+      data.get(compressed, 0, entry.compressedSize);
+      byte[] uncompressed = new byte[entry.size];
+      Inflater inflater = new Inflater(/* nowrap= */ true);
+      try {
+        inflater.setInput(compressed);
+        int length = 0;
+        while (length < uncompressed.length && !inflater.finished()) {
+          int inflated = inflater.inflate(uncompressed, length, uncompressed.length - length);
+          if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          length += inflated;
+        }
+        if (length != uncompressed.length) {
+          throw new IOException("Truncated entry " + entryName + " in " + path);
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupt entry " + entryName + " in " + path, e);
+      } finally {
+        inflater.end();
+      }
+      return new String(uncompressed, charset);
+    }
+
+    /** Decodes a range of the mapping without copying it to the heap first. */
+    private static String decode(ByteBuffer buffer, int start, int length, Charset charset) {
+      ByteBuffer range = buffer.duplicate();
+      range.position(start);
+      range.limit(start + length);
+      return charset.decode(range).toString();
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int pos) {
+      return buffer.getShort(pos) & 0xffff;
+    }
+  }
+
   private final String zipPath;
   private final String entryName;
 
@@ -123,6 +441,6 @@ final class ZipEntryReader implements Serializable {
 
   public String read(Charset charset) throws IOException {
     CachedZipFile zipFile = zipFileCache.getUnchecked(zipPath);
-    return CharStreams.toString(zipFile.getReader(entryName, charset));
+    return zipFile.read(entryName, charset);
   }
 }
@@ -42,6 +42,11 @@ public class BrowserModuleResolver extends ModuleResolver {
     super(modulePaths, moduleRootPaths, errorHandler, pathEscaper);
   }
 
+  @Override
+  protected boolean dependsOnlyOnScriptDirectory() {
+    return true;
+  }
+
   @Override
   @Nullable
   public String resolveJsModule(
@@ -108,6 +108,11 @@ public class BrowserWithTransformedPrefixesModuleResolver extends ModuleResolver
             .collect(Collectors.joining(", "));
   }
 
+  @Override
+  protected boolean dependsOnlyOnScriptDirectory() {
+    return true;
+  }
+
   @Nullable
   @Override
   public String resolveJsModule(
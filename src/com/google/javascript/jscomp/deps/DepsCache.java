@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches what {@link DepsGenerator} learns from the contents of a source file, keyed by a hash of
+ * those contents. Only the results that do not depend on the path of the file are cached, so a
+ * file that is moved, or copied, is not scanned again.
+ *
+ * <p>The cache can be saved to a file and loaded back, so that regenerating a deps file after
+ * changing one source only has to scan that source. Saving only keeps the entries used since the
+ * cache was created or loaded, so results for old versions of a file do not accumulate.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class DepsCache {
+  private static final Logger logger = Logger.getLogger(DepsCache.class.getName());
+
+  /** Changed whenever the format of the cached results changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private final Map<String, DepsGenerator.ScannedSource> entries = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> usedKeys = new ConcurrentHashMap<>();
+
+  /** Creates an empty cache. */
+  public DepsCache() {}
+
+  /**
+   * Loads a cache saved by {@link #save}. A missing, corrupt, or outdated file gives an empty
+   * cache, since its contents can always be recomputed.
+   */
+  public static DepsCache load(Path file) throws IOException {
+    DepsCache cache = new DepsCache();
+    try (ObjectInputStream in =
+        new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return cache;
+      }
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        String key = in.readUTF();
+        cache.entries.put(key, (DepsGenerator.ScannedSource) in.readObject());
+      }
+    } catch (NoSuchFileException e) {
+      return cache;
+    } catch (ClassNotFoundException | ClassCastException | IOException e) {
+      logger.log(Level.WARNING, "Ignoring unreadable deps cache " + file, e);
+      return new DepsCache();
+    }
+    return cache;
+  }
+
+  /**
+   * Saves the entries used since this cache was created or loaded. The file is replaced
+   * atomically where the file system allows it, so a concurrent {@link #load} never sees a
+   * partially written cache.
+   */
+  public void save(Path file) throws IOException {
+    Map<String, DepsGenerator.ScannedSource> used = new LinkedHashMap<>();
+    for (String key : usedKeys.keySet()) {
+      DepsGenerator.ScannedSource entry = entries.get(key);
+      if (entry != null) {
+        used.put(key, entry);
+      }
+    }
+
+    Path parent = file.toAbsolutePath().getParent();
+    Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try {
+      try (ObjectOutputStream out =
+          new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(used.size());
+        for (Map.Entry<String, DepsGenerator.ScannedSource> entry : used.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeObject(entry.getValue());
+        }
+      }
+      try {
+        Files.move(
+            temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /** Returns the number of cached entries. */
+  public int size() {
+    return entries.size();
+  }
+
+  /** Returns the key for the given file contents. */
+  static String keyFor(String contents) {
+    return Hashing.sha256().hashString(contents, UTF_8).toString();
+  }
+
+  /** Returns the cached results for the given key, or null if there are none. */
+  DepsGenerator.ScannedSource get(String key) {
+    DepsGenerator.ScannedSource entry = entries.get(key);
+    if (entry != null) {
+      usedKeys.put(key, Boolean.TRUE);
+    }
+    return entry;
+  }
+
+  void put(String key, DepsGenerator.ScannedSource entry) {
+    entries.put(key, entry);
+    usedKeys.put(key, Boolean.TRUE);
+  }
+}
@@ -16,16 +16,23 @@
 
 package com.google.javascript.jscomp.deps;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.CompilerThreadFactory;
 import com.google.javascript.jscomp.DiagnosticType;
 import com.google.javascript.jscomp.ErrorManager;
 import com.google.javascript.jscomp.JSError;
@@ -34,9 +41,11 @@ import com.google.javascript.jscomp.LazyParsedDependencyInfo;
 import com.google.javascript.jscomp.SourceFile;
 import com.google.javascript.jscomp.deps.DependencyInfo.Require;
 import com.google.javascript.jscomp.deps.ModuleLoader.ModulePath;
+import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -45,9 +54,15 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Generates deps.js files by scanning JavaScript files for
@@ -72,6 +87,10 @@ public class DepsGenerator {
   private final InclusionStrategy mergeStrategy;
   private final ModuleLoader loader;
   final ErrorManager errorManager;
+  private int threadCount = NUM_PARALLEL_THREADS;
+  @Nullable private DepsCache cache = null;
+
+  private static final int NUM_PARALLEL_THREADS = Runtime.getRuntime().availableProcessors();
 
   static final DiagnosticType ES6_IMPORT_FOR_NON_ES6_MODULE =
       DiagnosticType.warning(
@@ -125,6 +144,25 @@ public class DepsGenerator {
     this.loader = loader;
   }
 
+  /**
+   * Sets the number of threads used to scan the sources. Defaults to the number of available
+   * processors.
+   */
+  public DepsGenerator setThreadCount(int threadCount) {
+    checkArgument(threadCount > 0, "threadCount must be positive: %s", threadCount);
+    this.threadCount = threadCount;
+    return this;
+  }
+
+  /**
+   * Sets a cache for the results of scanning the sources. Sources whose contents are found in the
+   * cache are not scanned again, and the results for the others are added to it.
+   */
+  public DepsGenerator setCache(@Nullable DepsCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
   /**
    * Performs the parsing inputs and writing of outputs.
    * @throws IOException Occurs upon an IO error.
@@ -477,10 +515,12 @@ public class DepsGenerator {
   private Map<String, DependencyInfo> parseSources(
       Set<String> preparsedFiles) throws IOException {
     Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
-    JsFileParser jsParser = new JsFileParser(errorManager).setModuleLoader(loader);
+    JsFileHeaderScanner scanner = new JsFileHeaderScanner(errorManager).setModuleLoader(loader);
     Compiler compiler = new Compiler();
     compiler.init(ImmutableList.of(), ImmutableList.of(), new CompilerOptions());
 
+    List<SourceFile> filesToParse = new ArrayList<>();
+    List<String> closureRelativePaths = new ArrayList<>();
     for (SourceFile file : srcs) {
       String closureRelativePath =
           PathUtil.makeRelative(
@@ -490,21 +530,101 @@ public class DepsGenerator {
       }
       if (InclusionStrategy.WHEN_IN_SRCS == mergeStrategy ||
           !preparsedFiles.contains(closureRelativePath)) {
-        DependencyInfo depInfo =
-            jsParser.parseFile(
-                file.getName(), closureRelativePath,
-                file.getCode());
-        depInfo = new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
-
-        // Kick the source out of memory.
-        file.clearCachedSource();
-        parsedFiles.put(closureRelativePath, depInfo);
+        filesToParse.add(file);
+        closureRelativePaths.add(closureRelativePath);
       }
     }
 
+    List<ScannedSource> scannedSources = scanSources(scanner, filesToParse);
+
+    // Resolve the headers in order, so that errors are reported deterministically.
+    for (int i = 0; i < filesToParse.size(); i++) {
+      ScannedSource scanned = scannedSources.get(i);
+      String closureRelativePath = closureRelativePaths.get(i);
+      DependencyInfo depInfo =
+          scanner.toDependencyInfo(
+              scanned.header, filesToParse.get(i).getName(), closureRelativePath);
+      depInfo = new LazyParsedDependencyInfo(depInfo, scanned.features, compiler);
+      parsedFiles.put(closureRelativePath, depInfo);
+    }
+
     return parsedFiles;
   }
 
+  /** The content-dependent results of scanning a source file. */
+  static final class ScannedSource implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final JsFileHeaderScanner.Header header;
+    final FeatureSet features;
+
+    ScannedSource(JsFileHeaderScanner.Header header, FeatureSet features) {
+      this.header = header;
+      this.features = features;
+    }
+  }
+
+  /**
+   * Scans the header of each file and parses it to find the language features it uses. Files are
+   * independent of each other, so they are processed on a thread pool, each thread parsing with
+   * its own throwaway compiler. Files found in the cache, if any, are not scanned.
+   */
+  private List<ScannedSource> scanSources(
+      JsFileHeaderScanner scanner, List<SourceFile> files) throws IOException {
+    // Parsing is deeply recursive, so parse on threads with the compiler's large stack.
+    ThreadFactory threadFactory = new CompilerThreadFactory("jscompiler-DepsGenerator");
+    int numThreads = Math.max(1, Math.min(files.size(), threadCount));
+    ThreadPoolExecutor poolExecutor =
+        new ThreadPoolExecutor(
+            numThreads,
+            numThreads,
+            Integer.MAX_VALUE,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            threadFactory);
+    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
+    ThreadLocal<Compiler> compilers =
+        ThreadLocal.withInitial(
+            () -> {
+              Compiler compiler = new Compiler();
+              compiler.init(ImmutableList.of(), ImmutableList.of(), new CompilerOptions());
+              return compiler;
+            });
+
+    List<ListenableFuture<ScannedSource>> futureList = new ArrayList<>(files.size());
+    for (SourceFile file : files) {
+      futureList.add(
+          executorService.submit(
+              () -> {
+                String contents = file.getCode();
+                String key = cache != null ? DepsCache.keyFor(contents) : null;
+                ScannedSource scanned = cache != null ? cache.get(key) : null;
+                if (scanned == null) {
+                  JsFileHeaderScanner.Header header = scanner.scan(contents);
+                  FeatureSet features = new JsAst(file).getFeatures(compilers.get());
+                  scanned = new ScannedSource(header, features);
+                  if (cache != null) {
+                    cache.put(key, scanned);
+                  }
+                }
+                // Kick the source out of memory.
+                file.clearCachedSource();
+                return scanned;
+              }));
+    }
+
+    poolExecutor.shutdown();
+    try {
+      return Futures.allAsList(futureList).get();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   /**
    * Creates the content to put into the output deps.js file. If mergeDeps is
    * true, then all of the dependency information in the providedDeps will be
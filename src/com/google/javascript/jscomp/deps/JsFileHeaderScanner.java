@@ -0,0 +1,934 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.CheckLevel;
+import com.google.javascript.jscomp.ErrorManager;
+import com.google.javascript.jscomp.JSError;
+import com.google.javascript.jscomp.deps.DependencyInfo.Require;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Extracts dependency information from a .js file using a lightweight tokenizer instead of the
+ * line-based regular expressions of {@link JsFileParser}.
+ *
+ * <p>Scanning is split in two steps. {@link #scan} tokenizes the file and records the header
+ * statements it finds (goog.provide, goog.require, goog.module, import and export statements and
+ * the relevant JSDoc annotations). The resulting {@link Header} only depends on the file contents,
+ * so it may be computed concurrently for many files and cached by content hash. {@link
+ * #toDependencyInfo} then resolves a header against a file path, reporting any problems to the
+ * error manager.
+ *
+ * <p>Because the scanner understands strings, template literals, regular expressions and comments,
+ * it is not confused by header-like text inside of them, and it recognizes statements that do not
+ * start a line or that span several lines.
+ */
+public final class JsFileHeaderScanner {
+
+  /** JSDoc annotation indicating that the file is Closure's base.js. */
+  private static final String PROVIDES_GOOG_ANNOTATION = "@provideGoog";
+
+  /** JSDoc annotation indicating that the file is an extern. */
+  private static final String EXTERNS_ANNOTATION = "@externs";
+
+  /** JSDoc annotation indicating that the file should not be touched by JSCompiler. */
+  private static final String NOCOMPILE_ANNOTATION = "@nocompile";
+
+  /** The goog functions that declare or consume namespaces. */
+  private static final ImmutableList<String> GOOG_FUNCTIONS =
+      ImmutableList.of(
+          "provide", "module", "require", "requireType", "addDependency", "declareModuleId");
+
+  /** Keywords after which a slash starts a regular expression rather than a division. */
+  private static final ImmutableList<String> KEYWORDS_BEFORE_EXPRESSION =
+      ImmutableList.of(
+          "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case",
+          "do", "else", "yield", "await");
+
+  private final ErrorManager errorManager;
+  private ModuleLoader loader = ModuleLoader.EMPTY;
+  private boolean includeGoogBase = false;
+  private boolean shortcutMode = false;
+
+  public JsFileHeaderScanner(ErrorManager errorManager) {
+    this.errorManager = checkNotNull(errorManager);
+  }
+
+  /**
+   * Sets whether we should create implicit provides and requires of the root namespace. See
+   * {@link JsFileParser#setIncludeGoogBase}.
+   *
+   * @return this for easy chaining.
+   */
+  public JsFileHeaderScanner setIncludeGoogBase(boolean include) {
+    this.includeGoogBase = include;
+    return this;
+  }
+
+  /**
+   * Sets the module loader used to resolve ES6 import paths.
+   *
+   * @return this for easy chaining.
+   */
+  public JsFileHeaderScanner setModuleLoader(ModuleLoader loader) {
+    this.loader = checkNotNull(loader);
+    return this;
+  }
+
+  /**
+   * In shortcut mode, scanning stops at the first top level statement that cannot be part of the
+   * module prologue, i.e. that is not a goog call, a declaration, an import or export, or a
+   * directive.
+   *
+   * @return this for easy chaining.
+   */
+  public JsFileHeaderScanner setShortcutMode(boolean mode) {
+    this.shortcutMode = mode;
+    return this;
+  }
+
+  /**
+   * Parses the given file and returns the dependency information that it contained.
+   *
+   * @param filePath Path to the file to parse.
+   * @param closureRelativePath Path of the file relative to closure.
+   * @param fileContents The contents to parse.
+   * @return A DependencyInfo containing all provides/requires found in the file.
+   */
+  public DependencyInfo parseFile(
+      String filePath, String closureRelativePath, String fileContents) {
+    return toDependencyInfo(scan(fileContents), filePath, closureRelativePath);
+  }
+
+  /**
+   * Records the header statements of the given file contents. This does not report any errors and
+   * does not depend on the file's path, so it is safe to call concurrently.
+   */
+  public Header scan(String fileContents) {
+    List<Directive> directives = new ArrayList<>();
+    Tokenizer tokenizer = new Tokenizer(fileContents, directives);
+    tokenizer.advance();
+    while (tokenizer.type != Tokenizer.EOF) {
+      if (shortcutMode && !isInPrologue(tokenizer)) {
+        break;
+      }
+      if (!recognize(tokenizer, directives)) {
+        tokenizer.advance();
+      }
+    }
+    return new Header(shortcutMode, ImmutableList.copyOf(directives));
+  }
+
+  /**
+   * Builds the dependency information of the file at the given path from its scanned header,
+   * reporting module conflicts and malformed goog calls to the error manager.
+   */
+  public DependencyInfo toDependencyInfo(
+      Header header, String filePath, String closureRelativePath) {
+    return new HeaderResolver(filePath).resolve(header, closureRelativePath);
+  }
+
+  private static boolean isInPrologue(Tokenizer t) {
+    if (t.tokenDepth != 0 || !t.isAtStatementStart()) {
+      return true;
+    }
+    return t.type == Tokenizer.STRING
+        || t.isPunctuator(';')
+        || t.isName("goog")
+        || t.isName("import")
+        || t.isName("export")
+        || t.isName("var")
+        || t.isName("let")
+        || t.isName("const");
+  }
+
+  /**
+   * Tries to recognize a header statement starting at the current token.
+   *
+   * @return whether any tokens were consumed. If so, the current token has not been looked at yet.
+   */
+  private static boolean recognize(Tokenizer t, List<Directive> directives) {
+    if (t.type != Tokenizer.NAME) {
+      return false;
+    }
+    if (t.isName("goog")) {
+      return (t.isAtStatementStart() || t.prevIsPunctuator('='))
+          && recognizeGoogCall(t, directives);
+    }
+    if (t.tokenDepth == 0 && t.isAtStatementStart()) {
+      if (t.isName("import")) {
+        return recognizeImport(t, directives);
+      } else if (t.isName("export")) {
+        return recognizeExport(t, directives);
+      }
+    }
+    return false;
+  }
+
+  /** Recognizes {@code goog.func('arg')} and {@code goog.loadModule(function(}. */
+  private static boolean recognizeGoogCall(Tokenizer t, List<Directive> directives) {
+    int line = t.tokenLine;
+    int column = t.tokenColumn;
+    int lineStart = t.tokenLineStart;
+    t.advance();
+    if (!t.isPunctuator('.')) {
+      return true;
+    }
+    t.advance();
+    if (t.type != Tokenizer.NAME) {
+      return true;
+    }
+    if (t.isName("loadModule")) {
+      t.advance();
+      if (t.isPunctuator('(')) {
+        t.advance();
+        if (t.isName("function")) {
+          directives.add(new Directive(Directive.Kind.LOAD_MODULE, null, null, line, column, null));
+        }
+      }
+      return true;
+    }
+    String function = null;
+    for (String candidate : GOOG_FUNCTIONS) {
+      if (t.isName(candidate)) {
+        function = candidate;
+        break;
+      }
+    }
+    if (function == null) {
+      return true;
+    }
+    t.advance();
+    if (!t.isPunctuator('(')) {
+      return true;
+    }
+    t.advance();
+    String argument = null;
+    if (t.type == Tokenizer.STRING) {
+      String value = t.stringValue();
+      t.advance();
+      if (t.isPunctuator(')')) {
+        argument = value;
+        t.advance();
+      }
+    }
+    directives.add(
+        new Directive(
+            Directive.Kind.GOOG_CALL,
+            function,
+            argument,
+            line,
+            column,
+            argument == null ? t.lineText(lineStart) : null));
+    return true;
+  }
+
+  /** Recognizes {@code import ... from 'specifier'} and {@code import 'specifier'}. */
+  private static boolean recognizeImport(Tokenizer t, List<Directive> directives) {
+    int line = t.tokenLine;
+    int column = t.tokenColumn;
+    t.advance();
+    if (t.isPunctuator('(') || t.isPunctuator('.')) {
+      // Dynamic import() or import.meta.
+      return true;
+    }
+    String specifier = scanModuleSpecifier(t, true);
+    directives.add(new Directive(Directive.Kind.IMPORT, null, specifier, line, column, null));
+    return true;
+  }
+
+  /** Recognizes exports, including {@code export ... from 'specifier'} which also imports. */
+  private static boolean recognizeExport(Tokenizer t, List<Directive> directives) {
+    int line = t.tokenLine;
+    int column = t.tokenColumn;
+    t.advance();
+    String specifier = null;
+    if (t.isPunctuator('*') || t.isPunctuator('{')) {
+      specifier = scanModuleSpecifier(t, false);
+    }
+    directives.add(
+        specifier != null
+            ? new Directive(Directive.Kind.IMPORT, null, specifier, line, column, null)
+            : new Directive(Directive.Kind.EXPORT, null, null, line, column, null));
+    return true;
+  }
+
+  /**
+   * Consumes an import or export clause and returns the module specifier following its
+   * {@code from}, or null if the clause ends without one.
+   */
+  @Nullable
+  private static String scanModuleSpecifier(Tokenizer t, boolean allowBareSpecifier) {
+    if (allowBareSpecifier && t.type == Tokenizer.STRING) {
+      String specifier = t.stringValue();
+      t.advance();
+      return specifier;
+    }
+    while (t.type == Tokenizer.NAME
+        || t.isPunctuator(',')
+        || t.isPunctuator('{')
+        || t.isPunctuator('}')
+        || t.isPunctuator('*')) {
+      boolean isFrom = t.isName("from");
+      t.advance();
+      if (isFrom && t.type == Tokenizer.STRING) {
+        String specifier = t.stringValue();
+        t.advance();
+        return specifier;
+      }
+    }
+    return null;
+  }
+
+  /** The header statements of a file, in source order. */
+  public static final class Header implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean shortcutMode;
+    private final ImmutableList<Directive> directives;
+
+    private Header(boolean shortcutMode, ImmutableList<Directive> directives) {
+      this.shortcutMode = shortcutMode;
+      this.directives = directives;
+    }
+
+    /** Whether this header was scanned in shortcut mode, and so may be incomplete. */
+    public boolean isShortcutMode() {
+      return shortcutMode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Header)) {
+        return false;
+      }
+      Header that = (Header) o;
+      return shortcutMode == that.shortcutMode && directives.equals(that.directives);
+    }
+
+    @Override
+    public int hashCode() {
+      return directives.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return directives.toString();
+    }
+  }
+
+  /** A single header statement or annotation. */
+  private static final class Directive implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    enum Kind {
+      /** A call to one of {@link #GOOG_FUNCTIONS}. */
+      GOOG_CALL,
+      /** The start of a goog.loadModule(function(...) {...}) bundle. */
+      LOAD_MODULE,
+      /** An import, or an export from another module. */
+      IMPORT,
+      /** Any other export. */
+      EXPORT,
+      PROVIDES_GOOG,
+      EXTERNS,
+      NOCOMPILE,
+    }
+
+    final Kind kind;
+    /** The name of the goog function, for GOOG_CALL. */
+    @Nullable final String function;
+    /** The string argument of a GOOG_CALL or the module specifier of an IMPORT. */
+    @Nullable final String value;
+    final int line;
+    final int column;
+    /** The text of the line, kept to report a GOOG_CALL without a single string argument. */
+    @Nullable final String lineText;
+
+    Directive(
+        Kind kind,
+        @Nullable String function,
+        @Nullable String value,
+        int line,
+        int column,
+        @Nullable String lineText) {
+      this.kind = kind;
+      this.function = function;
+      this.value = value;
+      this.line = line;
+      this.column = column;
+      this.lineText = lineText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Directive)) {
+        return false;
+      }
+      Directive that = (Directive) o;
+      return kind == that.kind
+          && line == that.line
+          && column == that.column
+          && Objects.equals(function, that.function)
+          && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, function, value, line, column);
+    }
+
+    @Override
+    public String toString() {
+      return kind + (function != null ? " " + function : "") + (value != null ? " " + value : "");
+    }
+  }
+
+  private enum ModuleType {
+    NON_MODULE,
+    GOOG_MODULE,
+    GOOG_PROVIDE,
+    ES6_MODULE,
+  }
+
+  /** Turns a header into a DependencyInfo, following the same rules as {@link JsFileParser}. */
+  private final class HeaderResolver {
+    private final String filePath;
+    private final ModuleLoader.ModulePath file;
+    private final List<String> provides = new ArrayList<>();
+    private final List<Require> requires = new ArrayList<>();
+    private final List<String> typeRequires = new ArrayList<>();
+    private boolean fileHasProvidesOrRequires = false;
+    private boolean hasExternsAnnotation = false;
+    private boolean hasNoCompileAnnotation = false;
+    private ModuleType moduleType = ModuleType.NON_MODULE;
+    private boolean seenLoadModule = false;
+
+    HeaderResolver(String filePath) {
+      this.filePath = filePath;
+      this.file = loader.resolve(filePath);
+    }
+
+    DependencyInfo resolve(Header header, String closureRelativePath) {
+      for (Directive directive : header.directives) {
+        switch (directive.kind) {
+          case GOOG_CALL:
+            resolveGoogCall(directive);
+            break;
+          case LOAD_MODULE:
+            seenLoadModule = true;
+            break;
+          case IMPORT:
+            setModuleType(ModuleType.ES6_MODULE);
+            if (directive.value != null) {
+              resolveImport(directive);
+            }
+            break;
+          case EXPORT:
+            if (moduleType != ModuleType.ES6_MODULE) {
+              setModuleType(ModuleType.ES6_MODULE);
+            }
+            break;
+          case PROVIDES_GOOG:
+            if (includeGoogBase) {
+              provides.add("goog");
+            }
+            break;
+          case EXTERNS:
+            hasExternsAnnotation = true;
+            break;
+          case NOCOMPILE:
+            hasNoCompileAnnotation = true;
+            break;
+        }
+      }
+
+      if (moduleType == ModuleType.ES6_MODULE) {
+        provides.add(file.toModuleName());
+      }
+
+      Map<String, String> loadFlags = new LinkedHashMap<>();
+      switch (moduleType) {
+        case GOOG_MODULE:
+          loadFlags.put("module", "goog");
+          break;
+        case ES6_MODULE:
+          loadFlags.put("module", "es6");
+          break;
+        default:
+          // Nothing to do here.
+      }
+
+      return SimpleDependencyInfo.builder(closureRelativePath, filePath)
+          .setProvides(provides)
+          .setRequires(requires)
+          .setTypeRequires(typeRequires)
+          .setLoadFlags(loadFlags)
+          .setHasExternsAnnotation(hasExternsAnnotation)
+          .setHasNoCompileAnnotation(hasNoCompileAnnotation)
+          .build();
+    }
+
+    private void resolveGoogCall(Directive directive) {
+      if (includeGoogBase && !fileHasProvidesOrRequires) {
+        fileHasProvidesOrRequires = true;
+        requires.add(Require.BASE);
+      }
+
+      String function = directive.function;
+      char firstChar = function.charAt(0);
+      boolean isDeclareModuleNamespace = firstChar == 'd';
+      boolean isModule = !isDeclareModuleNamespace && firstChar == 'm';
+      boolean isProvide = firstChar == 'p';
+      boolean providesNamespace = isProvide || isModule || isDeclareModuleNamespace;
+      boolean isRequire = firstChar == 'r';
+
+      if (isModule && !seenLoadModule) {
+        providesNamespace = setModuleType(ModuleType.GOOG_MODULE);
+      }
+
+      if (isProvide) {
+        providesNamespace = setModuleType(ModuleType.GOOG_PROVIDE);
+      }
+
+      if (!providesNamespace && !isRequire) {
+        return;
+      }
+      String arg = directive.value;
+      if (arg == null) {
+        errorManager.report(
+            CheckLevel.ERROR,
+            JSError.make(
+                filePath,
+                directive.line,
+                0 /* char offset */,
+                JsFileLineParser.PARSE_ERROR,
+                "Syntax error in JS String literal",
+                directive.lineText));
+        return;
+      }
+      if (isRequire) {
+        if ("requireType".equals(function)) {
+          typeRequires.add(arg);
+        } else if (!"goog".equals(arg)) {
+          // goog is always implicit.
+          requires.add(Require.googRequireSymbol(arg));
+        }
+      } else {
+        provides.add(arg);
+      }
+    }
+
+    private void resolveImport(Directive directive) {
+      String arg = directive.value;
+      if (arg.startsWith("goog:")) {
+        // cut off the "goog:" prefix
+        requires.add(Require.googRequireSymbol(arg.substring(5)));
+      } else {
+        ModuleLoader.ModulePath path =
+            file.resolveJsModule(arg, filePath, directive.line, directive.column);
+        if (path == null) {
+          path = file.resolveModuleAsPath(arg);
+        }
+        requires.add(Require.es6Import(path.toModuleName(), arg));
+      }
+    }
+
+    /**
+     * @return {@code true} if the moduleType is successfully set and {@code false} otherwise (e.g.
+     *     goog.provide, goog.module conflict).
+     */
+    private boolean setModuleType(ModuleType type) {
+      boolean provide = type == ModuleType.GOOG_PROVIDE || moduleType == ModuleType.GOOG_PROVIDE;
+      boolean es6Module = type == ModuleType.ES6_MODULE || moduleType == ModuleType.ES6_MODULE;
+      boolean googModule = type == ModuleType.GOOG_MODULE || moduleType == ModuleType.GOOG_MODULE;
+
+      if (googModule && provide && seenLoadModule) {
+        // We have to assume this is a top level goog.provide and a wrapped goog.loadModule.
+        moduleType = ModuleType.GOOG_PROVIDE;
+        return true;
+      }
+
+      boolean provideGoogModuleConflict = googModule && provide && !seenLoadModule;
+      boolean provideEs6ModuleConflict = es6Module && provide;
+      // Don't allow nested goog modules in ES6 modules.
+      boolean googEs6ModuleConflict = (googModule || seenLoadModule) && es6Module;
+
+      if (provideGoogModuleConflict || provideEs6ModuleConflict || googEs6ModuleConflict) {
+        errorManager.report(
+            CheckLevel.WARNING, JSError.make(ModuleLoader.MODULE_CONFLICT, file.toString()));
+        return false;
+      }
+
+      moduleType = type;
+      return true;
+    }
+  }
+
+  /**
+   * A minimal JavaScript tokenizer. It only distinguishes what the header scanner needs: names,
+   * string literals, single character punctuators and everything else. Comments are skipped, but
+   * JSDoc comments are checked for the file level annotations.
+   */
+  private static final class Tokenizer {
+    static final int EOF = 0;
+    static final int NAME = 1;
+    static final int STRING = 2;
+    static final int PUNCTUATOR = 3;
+    static final int OTHER = 4;
+
+    /** Stands for any punctuator that the scanner does not need to tell apart. */
+    private static final char OPERATOR = '\0';
+
+    private final String source;
+    private final int length;
+    private final List<Directive> directives;
+
+    private int pos = 0;
+    private int line = 1;
+    private int lineStart = 0;
+    /** The nesting depth of braces, parentheses and brackets. */
+    private int depth = 0;
+    /** The depths at which enclosing template literal substitutions were opened. */
+    private int[] templateDepths = new int[4];
+    private int templateCount = 0;
+
+    // The current token.
+    int type = EOF;
+    private int start;
+    private int end;
+    private char punctuator;
+    private boolean newlineBefore;
+    int tokenLine;
+    int tokenColumn;
+    int tokenLineStart;
+    /** The nesting depth before the current token. */
+    int tokenDepth;
+
+    // The previous token.
+    private int prevType = EOF;
+    private char prevPunctuator;
+    private boolean prevIsKeywordBeforeExpression;
+
+    Tokenizer(String source, List<Directive> directives) {
+      this.source = source;
+      this.length = source.length();
+      this.directives = directives;
+    }
+
+    boolean isName(String name) {
+      return type == NAME
+          && end - start == name.length()
+          && source.regionMatches(start, name, 0, name.length());
+    }
+
+    private boolean isKeywordBeforeExpression() {
+      if (type != NAME) {
+        return false;
+      }
+      for (String keyword : KEYWORDS_BEFORE_EXPRESSION) {
+        if (isName(keyword)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean isPunctuator(char c) {
+      return type == PUNCTUATOR && punctuator == c;
+    }
+
+    boolean prevIsPunctuator(char c) {
+      return prevType == PUNCTUATOR && prevPunctuator == c;
+    }
+
+    /** Whether the current token can start a statement. */
+    boolean isAtStatementStart() {
+      return prevType == EOF
+          || prevIsPunctuator(';')
+          || prevIsPunctuator('{')
+          || prevIsPunctuator('}')
+          || (newlineBefore && !prevIsPunctuator('.'));
+    }
+
+    /** Returns the contents of the current string literal, without its quotes. */
+    String stringValue() {
+      return source.substring(start + 1, end - 1);
+    }
+
+    /** Returns the text of the line starting at the given offset. */
+    String lineText(int offset) {
+      int lineEnd = offset;
+      while (lineEnd < length && source.charAt(lineEnd) != '\n' && source.charAt(lineEnd) != '\r') {
+        lineEnd++;
+      }
+      return source.substring(offset, lineEnd);
+    }
+
+    void advance() {
+      prevType = type;
+      prevPunctuator = punctuator;
+      prevIsKeywordBeforeExpression = isKeywordBeforeExpression();
+      newlineBefore = skipWhitespaceAndComments();
+      start = pos;
+      tokenLine = line;
+      tokenColumn = pos - lineStart;
+      tokenLineStart = lineStart;
+      tokenDepth = depth;
+      if (pos >= length) {
+        type = EOF;
+        end = pos;
+        return;
+      }
+
+      char c = source.charAt(pos);
+      if (isIdentifierPart(c) && !(c >= '0' && c <= '9')) {
+        pos++;
+        while (pos < length && isIdentifierPart(source.charAt(pos))) {
+          pos++;
+        }
+        type = NAME;
+      } else if (c >= '0' && c <= '9') {
+        pos++;
+        while (pos < length
+            && (isIdentifierPart(source.charAt(pos)) || source.charAt(pos) == '.')) {
+          pos++;
+        }
+        type = OTHER;
+      } else if (c == '\'' || c == '"') {
+        type = scanString(c) ? STRING : OTHER;
+      } else if (c == '`') {
+        pos++;
+        scanTemplate();
+        type = OTHER;
+      } else if (c == '/' && isRegexAllowed()) {
+        scanRegex();
+        type = OTHER;
+      } else {
+        pos++;
+        type = PUNCTUATOR;
+        punctuator = c;
+        switch (c) {
+          case '{':
+          case '(':
+          case '[':
+            depth++;
+            break;
+          case '}':
+            if (templateCount > 0 && templateDepths[templateCount - 1] == depth) {
+              templateCount--;
+              scanTemplate();
+              type = OTHER;
+            } else if (depth > 0) {
+              depth--;
+            }
+            break;
+          case ')':
+          case ']':
+            if (depth > 0) {
+              depth--;
+            }
+            break;
+          case '=':
+            // Tell an assignment apart from ==, === and =>.
+            if (pos < length && (source.charAt(pos) == '=' || source.charAt(pos) == '>')) {
+              while (pos < length && (source.charAt(pos) == '=' || source.charAt(pos) == '>')) {
+                pos++;
+              }
+              punctuator = OPERATOR;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      end = pos;
+    }
+
+    private boolean isRegexAllowed() {
+      switch (prevType) {
+        case EOF:
+          return true;
+        case PUNCTUATOR:
+          return prevPunctuator != ')' && prevPunctuator != ']';
+        case NAME:
+          return prevIsKeywordBeforeExpression;
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Skips whitespace and comments, checking JSDoc comments for file level annotations.
+     *
+     * @return whether a line terminator was skipped.
+     */
+    private boolean skipWhitespaceAndComments() {
+      boolean newline = false;
+      while (pos < length) {
+        char c = source.charAt(pos);
+        if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+          while (pos < length && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+            pos++;
+          }
+        } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+          int commentStart = pos;
+          pos += 2;
+          while (pos < length && !source.startsWith("*/", pos)) {
+            newline |= skipChar();
+          }
+          pos = Math.min(pos + 2, length);
+          if (source.startsWith("/**", commentStart) && pos - commentStart > 4) {
+            checkJsDocAnnotations(commentStart, pos);
+          }
+        } else if (Character.isWhitespace(c) || c == '\u00a0' || c == '\ufeff') {
+          newline |= skipChar();
+        } else {
+          break;
+        }
+      }
+      return newline;
+    }
+
+    private void checkJsDocAnnotations(int commentStart, int commentEnd) {
+      int line = this.line;
+      if (regionContains(commentStart, commentEnd, PROVIDES_GOOG_ANNOTATION)) {
+        directives.add(new Directive(Directive.Kind.PROVIDES_GOOG, null, null, line, 0, null));
+      }
+      if (regionContains(commentStart, commentEnd, EXTERNS_ANNOTATION)) {
+        directives.add(new Directive(Directive.Kind.EXTERNS, null, null, line, 0, null));
+      }
+      if (regionContains(commentStart, commentEnd, NOCOMPILE_ANNOTATION)) {
+        directives.add(new Directive(Directive.Kind.NOCOMPILE, null, null, line, 0, null));
+      }
+    }
+
+    private boolean regionContains(int regionStart, int regionEnd, String annotation) {
+      for (int i = regionStart; i + annotation.length() <= regionEnd; i++) {
+        if (source.charAt(i) == '@' && source.startsWith(annotation, i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Scans a string literal, returning whether it was terminated on the same line. */
+    private boolean scanString(char quote) {
+      pos++;
+      while (pos < length) {
+        char c = source.charAt(pos);
+        if (c == quote) {
+          pos++;
+          return true;
+        } else if (c == '\\') {
+          pos++;
+          if (pos < length) {
+            skipChar();
+          }
+        } else if (c == '\n' || c == '\r') {
+          return false;
+        } else {
+          pos++;
+        }
+      }
+      return false;
+    }
+
+    /** Scans the rest of a template literal, up to its end or its next substitution. */
+    private void scanTemplate() {
+      while (pos < length) {
+        char c = source.charAt(pos);
+        if (c == '`') {
+          pos++;
+          return;
+        } else if (c == '\\') {
+          pos++;
+          if (pos < length) {
+            skipChar();
+          }
+        } else if (c == '$' && pos + 1 < length && source.charAt(pos + 1) == '{') {
+          pos += 2;
+          if (templateCount == templateDepths.length) {
+            templateDepths = Arrays.copyOf(templateDepths, templateCount * 2);
+          }
+          templateDepths[templateCount++] = depth;
+          return;
+        } else {
+          skipChar();
+        }
+      }
+    }
+
+    private void scanRegex() {
+      pos++;
+      boolean inClass = false;
+      while (pos < length) {
+        char c = source.charAt(pos);
+        if (c == '\n' || c == '\r') {
+          return;
+        }
+        pos++;
+        if (c == '\\') {
+          if (pos < length && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+            pos++;
+          }
+        } else if (c == '[') {
+          inClass = true;
+        } else if (c == ']') {
+          inClass = false;
+        } else if (c == '/' && !inClass) {
+          break;
+        }
+      }
+      // Flags.
+      while (pos < length && isIdentifierPart(source.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    /** Skips one character, keeping track of lines. Returns whether it ended a line. */
+    private boolean skipChar() {
+      char c = source.charAt(pos++);
+      if (c == '\n' || (c == '\r' && (pos >= length || source.charAt(pos) != '\n'))) {
+        line++;
+        lineStart = pos;
+        return true;
+      }
+      return false;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+      return (c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || c == '$'
+          || c == '_'
+          || c == '\\'
+          || (c > 0x7f && Character.isLetterOrDigit(c));
+    }
+  }
+}
@@ -29,11 +29,16 @@ import com.google.javascript.jscomp.DiagnosticType;
 import com.google.javascript.jscomp.ErrorHandler;
 import com.google.javascript.jscomp.JSError;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
@@ -68,6 +73,8 @@ public final class ModuleLoader {
 
   /** Root URIs to match module roots against. */
   private final ImmutableList<String> moduleRootPaths;
+  /** The module roots, to find the one a path is under. */
+  private final RootTrie moduleRootTrie;
   /** The set of all known input module URIs (including trailing .js), after normalization. */
   private final ImmutableSet<String> modulePaths;
 
@@ -78,6 +85,19 @@ public final class ModuleLoader {
 
   private final ModuleResolver moduleResolver;
 
+  /** The error handler given to the module resolver, so that its diagnostics can be cached. */
+  private final RecordingErrorHandler resolverErrorHandler;
+
+  /**
+   * The resolved module addresses, by the scope of the importing script and then by address. The
+   * scope is the directory of the script when the resolver allows it, so that scripts in the same
+   * directory share their resolutions, and the script itself otherwise.
+   */
+  private final Map<String, Map<String, Resolution>> resolutions = new ConcurrentHashMap<>();
+
+  private final AtomicLong resolutionCacheHits = new AtomicLong();
+  private final AtomicLong resolutionCacheMisses = new AtomicLong();
+
   /**
    * Creates an instance of the module loader which can be used to locate ES6 and CommonJS modules.
    *
@@ -103,13 +123,16 @@ public final class ModuleLoader {
     this.pathEscaper = pathEscaper;
     this.errorHandler = errorHandler == null ? new NoopErrorHandler() : errorHandler;
     this.moduleRootPaths = createRootPaths(moduleRoots, pathResolver, pathEscaper);
+    this.moduleRootTrie = new RootTrie(moduleRootPaths);
     this.modulePaths =
         resolvePaths(
             Iterables.transform(Iterables.transform(inputs, DependencyInfo::getName), pathResolver),
-            moduleRootPaths,
+            moduleRootTrie,
             pathEscaper);
+    this.resolverErrorHandler = new RecordingErrorHandler(this.errorHandler);
     this.moduleResolver =
-        factory.create(this.modulePaths, this.moduleRootPaths, this.errorHandler, this.pathEscaper);
+        factory.create(
+            this.modulePaths, this.moduleRootPaths, this.resolverErrorHandler, this.pathEscaper);
   }
 
   public ModuleLoader(
@@ -188,7 +211,7 @@ public final class ModuleLoader {
     public ModulePath resolveJsModule(
         String moduleAddress, String sourcename, int lineno, int colno) {
       String loadAddress =
-          moduleResolver.resolveJsModule(this.path, moduleAddress, sourcename, lineno, colno);
+          ModuleLoader.this.resolveJsModule(this.path, moduleAddress, sourcename, lineno, colno);
 
       if (loadAddress != null) {
         return new ModulePath(loadAddress);
@@ -210,7 +233,67 @@ public final class ModuleLoader {
 
   /** Resolves a path into a {@link ModulePath}. */
   public ModulePath resolve(String path) {
-    return new ModulePath(normalize(pathEscaper.escape(pathResolver.apply(path)), moduleRootPaths));
+    return new ModulePath(normalize(pathEscaper.escape(pathResolver.apply(path)), moduleRootTrie));
+  }
+
+  /**
+   * Resolves a module address imported by the given script. The same address always resolves the
+   * same way from the same scope, so the result is cached, including any diagnostics the resolver
+   * reported, which are reported again at each later location.
+   */
+  @Nullable
+  private String resolveJsModule(
+      String scriptAddress, String moduleAddress, String sourcename, int lineno, int colno) {
+    if (modulePaths.isEmpty()) {
+      // Nothing can be found, so there is nothing worth caching.
+      return moduleResolver.resolveJsModule(
+          scriptAddress, moduleAddress, sourcename, lineno, colno);
+    }
+
+    String scope =
+        moduleResolver.dependsOnlyOnScriptDirectory()
+            ? scriptAddress.substring(0, scriptAddress.lastIndexOf(MODULE_SLASH) + 1)
+            : scriptAddress;
+    Map<String, Resolution> scopeResolutions =
+        resolutions.computeIfAbsent(scope, (String k) -> new ConcurrentHashMap<>());
+    Resolution resolution = scopeResolutions.get(moduleAddress);
+    if (resolution != null) {
+      resolutionCacheHits.incrementAndGet();
+      for (int i = 0; i < resolution.levels.size(); i++) {
+        errorHandler.report(
+            resolution.levels.get(i),
+            resolution.errors.get(i).withSourceLocation(sourcename, lineno, colno));
+      }
+      return resolution.loadAddress;
+    }
+
+    resolutionCacheMisses.incrementAndGet();
+    // Resolutions that are not cached yet are serialized, so that the diagnostics recorded are
+    // the ones of this resolution only.
+    synchronized (resolverErrorHandler) {
+      resolverErrorHandler.startRecording();
+      String loadAddress;
+      try {
+        loadAddress =
+            moduleResolver.resolveJsModule(
+                scriptAddress, moduleAddress, sourcename, lineno, colno);
+      } finally {
+        resolution = resolverErrorHandler.stopRecording();
+      }
+      resolution.loadAddress = loadAddress;
+    }
+    scopeResolutions.putIfAbsent(moduleAddress, resolution);
+    return resolution.loadAddress;
+  }
+
+  /** Returns how many module resolutions were answered from the cache. */
+  public long getResolutionCacheHitCount() {
+    return resolutionCacheHits.get();
+  }
+
+  /** Returns how many module resolutions had to be computed. */
+  public long getResolutionCacheMissCount() {
+    return resolutionCacheMisses.get();
   }
 
   /** Whether this is relative to the current file, or a top-level identifier. */
@@ -260,7 +343,7 @@ public final class ModuleLoader {
    * @return List of normalized modules which always have a leading slash
    */
   private static ImmutableSet<String> resolvePaths(
-      Iterable<String> modulePaths, Iterable<String> roots, PathEscaper escaper) {
+      Iterable<String> modulePaths, RootTrie roots, PathEscaper escaper) {
     ImmutableSet.Builder<String> resolved = ImmutableSet.builder();
     Set<String> knownPaths = new HashSet<>();
     for (String name : modulePaths) {
@@ -300,13 +383,108 @@ public final class ModuleLoader {
     return path;
   }
 
+  /** Normalizes the name and resolves it against the module roots. */
+  static String normalize(String path, RootTrie moduleRoots) {
+    String normalizedPath = path;
+    if (isAmbiguousIdentifier(normalizedPath)) {
+      normalizedPath = MODULE_SLASH + normalizedPath;
+    }
+
+    int rootLength = moduleRoots.getLongestRootLength(normalizedPath);
+    if (rootLength < 0) {
+      // Not underneath any of the roots.
+      return path;
+    }
+    return normalizedPath.substring(rootLength + MODULE_SLASH.length());
+  }
+
+  /**
+   * The module roots, stored as a trie of their characters, so that the roots a path is under are
+   * found in a single pass over the path.
+   */
+  static final class RootTrie {
+    private final Map<Character, RootTrie> children = new HashMap<>();
+    private boolean isRoot = false;
+
+    RootTrie(Iterable<String> roots) {
+      for (String root : roots) {
+        RootTrie node = this;
+        for (int i = 0; i < root.length(); i++) {
+          node = node.children.computeIfAbsent(root.charAt(i), (Character c) -> new RootTrie());
+        }
+        node.isRoot = true;
+      }
+    }
+
+    private RootTrie() {}
+
+    /**
+     * Returns the length of the longest root the path is under, or -1 if there is none. Like "foo"
+     * for "foo/test.js", a root only contains paths that continue with a slash after it.
+     */
+    int getLongestRootLength(String path) {
+      int longest = -1;
+      RootTrie node = this;
+      for (int i = 0; node != null; i++) {
+        if (node.isRoot && path.startsWith(MODULE_SLASH, i)) {
+          longest = i;
+        }
+        if (i == path.length()) {
+          break;
+        }
+        node = node.children.get(path.charAt(i));
+      }
+      return longest;
+    }
+  }
+
+  /** The cached result of resolving a module address. */
+  private static final class Resolution {
+    @Nullable String loadAddress;
+    // The diagnostics reported by the resolver, and their levels.
+    final List<CheckLevel> levels = new ArrayList<>(0);
+    final List<JSError> errors = new ArrayList<>(0);
+  }
+
+  /**
+   * Forwards the diagnostics of the module resolver to the error handler of the loader, and
+   * records them while a resolution is being cached.
+   */
+  private static final class RecordingErrorHandler implements ErrorHandler {
+    private volatile ErrorHandler delegate;
+    @Nullable private Resolution recording = null;
+
+    RecordingErrorHandler(ErrorHandler delegate) {
+      this.delegate = delegate;
+    }
+
+    void startRecording() {
+      recording = new Resolution();
+    }
+
+    Resolution stopRecording() {
+      Resolution result = recording;
+      recording = null;
+      return result;
+    }
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      if (recording != null) {
+        recording.levels.add(level);
+        recording.errors.add(error);
+      }
+      delegate.report(level, error);
+    }
+  }
+
   public void setErrorHandler(ErrorHandler errorHandler) {
     if (errorHandler == null) {
       this.errorHandler = new NoopErrorHandler();
     } else {
       this.errorHandler = errorHandler;
     }
-    this.moduleResolver.setErrorHandler(this.errorHandler);
+    this.resolverErrorHandler.delegate = this.errorHandler;
   }
 
   public ErrorHandler getErrorHandler() {
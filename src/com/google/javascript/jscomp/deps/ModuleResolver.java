@@ -35,6 +35,15 @@ public abstract class ModuleResolver {
   protected ErrorHandler errorHandler;
   private final PathEscaper pathEscaper;
 
+  /** The module roots, to find the one a path is under. */
+  private final ModuleLoader.RootTrie moduleRootTrie;
+
+  /**
+   * The module paths that are under a module root, relative to that root. A path under several
+   * roots is listed once for each.
+   */
+  private final ImmutableSet<String> modulePathsUnderRoots;
+
   public ModuleResolver(
       ImmutableSet<String> modulePaths,
       ImmutableList<String> moduleRootPaths,
@@ -44,12 +53,33 @@ public abstract class ModuleResolver {
     this.moduleRootPaths = moduleRootPaths;
     this.errorHandler = errorHandler;
     this.pathEscaper = pathEscaper;
+    this.moduleRootTrie = new ModuleLoader.RootTrie(moduleRootPaths);
+
+    ImmutableSet.Builder<String> underRoots = ImmutableSet.builder();
+    for (String modulePath : modulePaths) {
+      for (String rootPath : moduleRootPaths) {
+        if (modulePath.startsWith(rootPath)
+            && modulePath.startsWith(ModuleLoader.MODULE_SLASH, rootPath.length())) {
+          underRoots.add(modulePath.substring(rootPath.length()));
+        }
+      }
+    }
+    this.modulePathsUnderRoots = underRoots.build();
   }
 
   Map<String, String> getPackageJsonMainEntries() {
     return ImmutableMap.of();
   }
 
+  /**
+   * Whether {@link #resolveJsModule} only depends on the directory of the script address, rather
+   * than on the whole address. If so, the resolutions made for a script are reused for the other
+   * scripts in its directory.
+   */
+  protected boolean dependsOnlyOnScriptDirectory() {
+    return false;
+  }
+
   @Nullable
   public abstract String resolveJsModule(
       String scriptAddress, String moduleAddress, String sourcename, int lineno, int colno);
@@ -66,7 +96,7 @@ public abstract class ModuleResolver {
           ModuleNames.canonicalizePath(
               ourPath.substring(0, lastIndex + ModuleLoader.MODULE_SLASH.length()) + path);
     }
-    return ModuleLoader.normalize(path, moduleRootPaths);
+    return ModuleLoader.normalize(path, moduleRootTrie);
   }
 
   /**
@@ -87,16 +117,12 @@ public abstract class ModuleResolver {
       return canonicalizedPath;
     }
 
-    // Check for the module beneath each of the module roots
-    for (String rootPath : moduleRootPaths) {
-      String modulePath = rootPath + normalizedPath;
-
-      // Since there might be code that relying on whether the path has a leading slash or not,
-      // honor the state it was provided in. In an ideal world this would always be normalized
-      // to contain a leading slash.
-      if (modulePaths.contains(modulePath)) {
-        return canonicalizedPath;
-      }
+    // Check for the module beneath any of the module roots.
+    // Since there might be code that relying on whether the path has a leading slash or not,
+    // honor the state it was provided in. In an ideal world this would always be normalized
+    // to contain a leading slash.
+    if (modulePathsUnderRoots.contains(normalizedPath)) {
+      return canonicalizedPath;
     }
 
     return null;
@@ -187,6 +187,11 @@ public class NodeModuleResolver extends ModuleResolver {
     return this.packageJsonMainEntries;
   }
 
+  @Override
+  protected boolean dependsOnlyOnScriptDirectory() {
+    return true;
+  }
+
   @Override
   @Nullable
   public String resolveJsModule(
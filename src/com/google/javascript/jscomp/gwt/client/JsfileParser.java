@@ -305,8 +305,8 @@ public class JsfileParser {
 
   /** Mutates {@code info} with information from the given {@code comment}. */
   private static void parseComment(Comment comment, FileInfo info) {
-    boolean fileOverview = comment.value.contains("@fileoverview");
-    for (CommentAnnotation annotation : CommentAnnotation.parse(comment.value)) {
+    boolean fileOverview = comment.valueContains("@fileoverview");
+    for (CommentAnnotation annotation : CommentAnnotation.parse(comment.getValue())) {
       switch (annotation.name) {
         case "@fileoverview":
         case "@author":
@@ -142,6 +142,12 @@ public abstract class Config {
   /** Whether to parse inline source maps (//# sourceMappingURL=data:...). */
   public abstract boolean parseInlineSourceMaps();
 
+  /**
+   * Whether to defer parsing JSDoc comments until their JSDocInfo is first requested. File-level
+   * comments are still parsed eagerly. Warnings in deferred comments are not reported.
+   */
+  public abstract boolean lazyJsDoc();
+
   final ImmutableSet<String> annotationNames() {
     return annotations().keySet();
   }
@@ -155,9 +161,12 @@ public abstract class Config {
         .setExtraAnnotationNames(ImmutableSet.<String>of())
         .setSuppressionNames(ImmutableSet.<String>of())
         .setClosurePrimitiveNames(ImmutableSet.of())
-        .setParseInlineSourceMaps(false);
+        .setParseInlineSourceMaps(false)
+        .setLazyJsDoc(false);
   }
 
+  public abstract Builder toBuilder();
+
   /** Builder for a Config. */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -171,6 +180,8 @@ public abstract class Config {
 
     public abstract Builder setParseInlineSourceMaps(boolean parseInlineSourceMaps);
 
+    public abstract Builder setLazyJsDoc(boolean lazyJsDoc);
+
     public abstract Builder setSuppressionNames(Iterable<String> names);
 
     abstract Builder setClosurePrimitiveNames(Iterable<String> names);
@@ -150,6 +150,7 @@ import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.JSDocInfo.Visibility;
 import com.google.javascript.rhino.JSDocInfoBuilder;
+import com.google.javascript.rhino.LazyJSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Node.TypeDeclarationNode;
 import com.google.javascript.rhino.StaticSourceFile;
@@ -247,6 +248,20 @@ class IRFactory {
   private final Set<String> reservedKeywords;
   private final Set<Comment> parsedComments = new HashSet<>();
 
+  // Whether JSDoc comments that aren't file-level may be parsed lazily.
+  private final boolean lazyJsDoc;
+
+  // Comments with these annotations affect the whole file, so are parsed eagerly in lazy mode.
+  private static final ImmutableList<String> FILE_LEVEL_ANNOTATIONS =
+      ImmutableList.of(
+          "@copyright",
+          "@externs",
+          "@fileoverview",
+          "@license",
+          "@nocompile",
+          "@preserve",
+          "@typeSummary");
+
   // @license text gets appended onto the fileLevelJsDocBuilder as found,
   // and stored in JSDocInfo for placeholder node.
   JSDocInfoBuilder fileLevelJsDocBuilder;
@@ -287,6 +302,8 @@ class IRFactory {
     this.config = config;
     this.errorReporter = errorReporter;
     this.transformDispatcher = new TransformDispatcher();
+    // Type syntax checks need to know whether there is any JSDoc type information.
+    this.lazyJsDoc = config.lazyJsDoc() && config.languageMode() != LanguageMode.TYPESCRIPT;
 
     if (config.strictMode().isStrict()) {
       reservedKeywords = ES5_STRICT_RESERVED_KEYWORDS;
@@ -331,8 +348,10 @@ class IRFactory {
 
     if (tree.sourceComments != null) {
       for (Comment comment : tree.sourceComments) {
+        // In lazy mode, only comments with file-level annotations need to be looked at here.
         if ((comment.type == Comment.Type.JSDOC || comment.type == Comment.Type.IMPORTANT)
-            && !irFactory.parsedComments.contains(comment)) {
+            && !irFactory.parsedComments.contains(comment)
+            && !irFactory.canParseLazily(comment)) {
           irFactory.handlePossibleFileOverviewJsDoc(comment);
         }
       }
@@ -646,8 +665,17 @@ class IRFactory {
     return hasPendingCommentBefore(tree.location);
   }
 
-  private JSDocInfo handleJsDoc(Comment comment) {
+  /**
+   * Returns the JSDoc of a comment to attach to a node with {@link #attachJsDoc}. This is the
+   * parsed JSDocInfo or, in lazy mode, a {@link LazyJSDocInfo} if {@code allowLazy} is set.
+   */
+  @Nullable
+  private Object handleJsDoc(Comment comment, boolean allowLazy) {
     if (comment != null) {
+      if (allowLazy && canParseLazily(comment)) {
+        parsedComments.add(comment);
+        return new DeferredJsDoc(comment, false, templateNode, config);
+      }
       JsDocInfoParser jsDocParser = createJsDocInfoParser(comment);
       parsedComments.add(comment);
       if (!handlePossibleFileOverviewJsDoc(jsDocParser)) {
@@ -658,15 +686,38 @@ class IRFactory {
     return null;
   }
 
-  private JSDocInfo handleJsDoc(ParseTree node) {
+  @Nullable
+  private Object handleJsDoc(ParseTree node) {
     if (!shouldAttachJSDocHere(node)) {
       return null;
     }
-    return handleJsDoc(getJsDoc(node));
+    // A parenthesized expression with a type becomes a cast, so its JSDoc is needed now.
+    return handleJsDoc(getJsDoc(node), node.type != ParseTreeType.PAREN_EXPRESSION);
+  }
+
+  @Nullable
+  Object handleJsDoc(com.google.javascript.jscomp.parsing.parser.Token token) {
+    return handleJsDoc(getJsDoc(token), true);
+  }
+
+  private boolean canParseLazily(Comment comment) {
+    if (!lazyJsDoc || comment.type != Comment.Type.JSDOC) {
+      return false;
+    }
+    for (String annotation : FILE_LEVEL_ANNOTATIONS) {
+      if (comment.valueContains(annotation)) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  JSDocInfo handleJsDoc(com.google.javascript.jscomp.parsing.parser.Token token) {
-    return handleJsDoc(getJsDoc(token));
+  private static void attachJsDoc(Node node, Object jsDoc) {
+    if (jsDoc instanceof LazyJSDocInfo) {
+      node.setLazyJSDocInfo((LazyJSDocInfo) jsDoc);
+    } else {
+      node.setJSDocInfo((JSDocInfo) jsDoc);
+    }
   }
 
   private boolean shouldAttachJSDocHere(ParseTree tree) {
@@ -723,11 +774,13 @@ class IRFactory {
   }
 
   Node transform(ParseTree tree) {
-    JSDocInfo info = handleJsDoc(tree);
+    Object jsDoc = handleJsDoc(tree);
     Node node = transformDispatcher.process(tree);
-    if (info != null) {
-      node = maybeInjectCastNode(tree, info, node);
-      node.setJSDocInfo(info);
+    if (jsDoc != null) {
+      if (jsDoc instanceof JSDocInfo) {
+        node = maybeInjectCastNode(tree, (JSDocInfo) jsDoc, node);
+      }
+      attachJsDoc(node, jsDoc);
     }
     setSourceInfo(node, tree);
     return node;
@@ -750,39 +803,46 @@ class IRFactory {
    *   Using Inline Doc Comments</a>
    */
   Node transformNodeWithInlineJsDoc(ParseTree node) {
-    JSDocInfo info = handleInlineJsDoc(node);
+    Object jsDoc = handleInlineJsDoc(node);
     Node irNode = transformDispatcher.process(node);
-    if (info != null) {
-      irNode.setJSDocInfo(info);
+    if (jsDoc != null) {
+      attachJsDoc(irNode, jsDoc);
     }
     setSourceInfo(irNode, node);
     return irNode;
   }
 
-  JSDocInfo handleInlineJsDoc(ParseTree node) {
+  @Nullable
+  Object handleInlineJsDoc(ParseTree node) {
     return handleInlineJsDoc(node.location);
   }
 
-  JSDocInfo handleInlineJsDoc(
+  @Nullable
+  Object handleInlineJsDoc(
       com.google.javascript.jscomp.parsing.parser.Token token) {
     return handleInlineJsDoc(token.location);
   }
 
-  JSDocInfo handleInlineJsDoc(SourceRange location) {
+  @Nullable
+  Object handleInlineJsDoc(SourceRange location) {
     Comment comment = getJsDoc(location);
-    if (comment != null && !comment.value.contains("@")) {
+    if (comment != null && !comment.valueContains("@")) {
+      if (canParseLazily(comment)) {
+        parsedComments.add(comment);
+        return new DeferredJsDoc(comment, true, templateNode, config);
+      }
       return recordJsDoc(location, parseInlineTypeDoc(comment));
     } else {
-      return handleJsDoc(comment);
+      return handleJsDoc(comment, true);
     }
   }
 
   Node transformNumberAsString(LiteralToken token) {
     double value = normalizeNumber(token);
     Node irNode = newStringNode(DToA.numberToString(value));
-    JSDocInfo jsDocInfo = handleJsDoc(token);
-    if (jsDocInfo != null) {
-      irNode.setJSDocInfo(jsDocInfo);
+    Object jsDoc = handleJsDoc(token);
+    if (jsDoc != null) {
+      attachJsDoc(irNode, jsDoc);
     }
     setSourceInfo(irNode, token);
     return irNode;
@@ -899,26 +959,10 @@ class IRFactory {
    *     normal JsDoc, or no JsDoc (if the method parses to the wrong level).
    */
   private JsDocInfoParser createJsDocInfoParser(Comment node) {
-    String comment = node.value;
-    int lineno = lineno(node.location.start);
-    int charno = charno(node.location.start);
-    int position = node.location.start.offset;
-
-    // The JsDocInfoParser expects the comment without the initial '/**'.
-    int numOpeningChars = 3;
-    JsDocInfoParser jsdocParser =
-      new JsDocInfoParser(
-          new JsDocTokenStream(comment.substring(numOpeningChars),
-                               lineno,
-                               charno + numOpeningChars),
-          comment,
-          position,
-          templateNode,
-          config,
-          errorReporter);
+    JsDocInfoParser jsdocParser = newJsDocInfoParser(node, templateNode, config, errorReporter);
     jsdocParser.setFileLevelJsDocBuilder(fileLevelJsDocBuilder);
     jsdocParser.setFileOverviewJSDocInfo(fileOverviewInfo);
-    if (node.type == Comment.Type.IMPORTANT && node.value.length() > 0) {
+    if (node.type == Comment.Type.IMPORTANT && node.getValueLength() > 0) {
       jsdocParser.parseImportantComment();
     } else {
       jsdocParser.parse();
@@ -931,23 +975,59 @@ class IRFactory {
    * Parses inline type info.
    */
   private JSDocInfo parseInlineTypeDoc(Comment node) {
-    String comment = node.value;
+    return newJsDocInfoParser(node, templateNode, config, errorReporter).parseInlineTypeDoc();
+  }
+
+  private static JsDocInfoParser newJsDocInfoParser(
+      Comment node, Node templateNode, Config config, ErrorReporter errorReporter) {
+    String comment = node.getValue();
     int lineno = lineno(node.location.start);
     int charno = charno(node.location.start);
+    int position = node.location.start.offset;
 
     // The JsDocInfoParser expects the comment without the initial '/**'.
     int numOpeningChars = 3;
-    JsDocInfoParser parser =
-      new JsDocInfoParser(
-          new JsDocTokenStream(comment.substring(numOpeningChars),
-              lineno,
-              charno + numOpeningChars),
-          comment,
-          node.location.start.offset,
-          templateNode,
-          config,
-          errorReporter);
-    return parser.parseInlineTypeDoc();
+    return new JsDocInfoParser(
+        new JsDocTokenStream(comment.substring(numOpeningChars),
+                             lineno,
+                             charno + numOpeningChars),
+        comment,
+        position,
+        templateNode,
+        config,
+        errorReporter);
+  }
+
+  /**
+   * A JSDoc comment that is parsed when its JSDocInfo is first requested. Parse warnings are
+   * dropped, since they can no longer be reported with the rest of the file's.
+   */
+  private static final class DeferredJsDoc extends LazyJSDocInfo {
+    private static final long serialVersionUID = 1L;
+
+    // Never serialized; LazyJSDocInfo serializes the parsed JSDocInfo instead.
+    private final transient Comment comment;
+    private final transient boolean inline;
+    private final transient Node templateNode;
+    private final transient Config config;
+
+    DeferredJsDoc(Comment comment, boolean inline, Node templateNode, Config config) {
+      this.comment = comment;
+      this.inline = inline;
+      this.templateNode = templateNode;
+      this.config = config;
+    }
+
+    @Override
+    protected JSDocInfo parse() {
+      JsDocInfoParser parser =
+          newJsDocInfoParser(comment, templateNode, config, ErrorReporter.NULL_INSTANCE);
+      if (inline) {
+        return parser.parseInlineTypeDoc();
+      }
+      parser.parse();
+      return parser.retrieveAndResetParsedJSDocInfo();
+    }
   }
 
   // Set the length on the node if we're in IDE mode.
@@ -1647,11 +1727,11 @@ class IRFactory {
       if (asString) {
         node = newStringNode(Token.STRING, identifierToken.value);
       } else {
-        JSDocInfo info = handleJsDoc(identifierToken);
+        Object jsDoc = handleJsDoc(identifierToken);
         maybeWarnReservedKeyword(identifierToken);
         node = newStringNode(Token.NAME, identifierToken.value);
-        if (info != null) {
-          node.setJSDocInfo(info);
+        if (jsDoc != null) {
+          attachJsDoc(node, jsDoc);
         }
       }
       setSourceInfo(node, identifierToken);
@@ -1686,11 +1766,11 @@ class IRFactory {
     }
 
     Node processNameWithInlineJSDoc(IdentifierToken identifierToken) {
-      JSDocInfo info = handleInlineJsDoc(identifierToken);
+      Object jsDoc = handleInlineJsDoc(identifierToken);
       maybeWarnReservedKeyword(identifierToken);
       Node node = newStringNode(Token.NAME, identifierToken.value);
-      if (info != null) {
-        node.setJSDocInfo(info);
+      if (jsDoc != null) {
+        attachJsDoc(node, jsDoc);
       }
       setSourceInfo(node, identifierToken);
       return node;
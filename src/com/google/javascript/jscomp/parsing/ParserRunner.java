@@ -145,7 +145,12 @@ public final class ParserRunner {
           comments = p.getComments();
         }
       }
-      return new ParseResult(root, comments, features, p.getSourceMapURL());
+      return new ParseResult(
+          root,
+          comments,
+          features,
+          p.getSourceMapURL(),
+          file.lineNumberTable.getLineFeedOffsets());
     } catch (Throwable t) {
       throw new RuntimeException("Exception parsing \"" + sourceName + "\"", t);
     }
@@ -230,12 +235,27 @@ public final class ParserRunner {
     public final List<Comment> comments;
     public final FeatureSet features;
     @Nullable public final String sourceMapURL;
+    /**
+     * The offset at which each line of the source starts, where only '\n' ends a line, if the
+     * parser's line table could be shared in that form.
+     */
+    @Nullable public final int[] lineFeedOffsets;
 
     public ParseResult(Node ast, List<Comment> comments, FeatureSet features, String sourceMapURL) {
+      this(ast, comments, features, sourceMapURL, null);
+    }
+
+    public ParseResult(
+        Node ast,
+        List<Comment> comments,
+        FeatureSet features,
+        String sourceMapURL,
+        @Nullable int[] lineFeedOffsets) {
       this.ast = ast;
       this.comments = comments;
       this.features = features;
       this.sourceMapURL = sourceMapURL;
+      this.lineFeedOffsets = lineFeedOffsets;
     }
   }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.parsing.parser;
+
+/**
+ * Interns identifier names by their position in the source text.
+ *
+ * <p>A name is looked up directly from a range of the source, so repeated occurrences of an
+ * identifier share one String and only the first occurrence copies characters out of the source.
+ */
+final class IdentifierTable {
+  // Must be a power of two.
+  private static final int INITIAL_CAPACITY = 256;
+
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /** Returns the name spelled by {@code source[start, end)}. */
+  String intern(String source, int start, int end) {
+    // Computes the same value as String.hashCode.
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+
+    int length = end - start;
+    int mask = names.length - 1;
+    int slot = hash & mask;
+    for (String name = names[slot]; name != null; name = names[slot]) {
+      if (hashes[slot] == hash
+          && name.length() == length
+          && source.regionMatches(start, name, 0, length)) {
+        return name;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    String name = source.substring(start, end);
+    names[slot] = name;
+    hashes[slot] = hash;
+    if (++size * 2 > names.length) {
+      grow();
+    }
+    return name;
+  }
+
+  private void grow() {
+    String[] oldNames = names;
+    int[] oldHashes = hashes;
+    names = new String[oldNames.length * 2];
+    hashes = new int[oldNames.length * 2];
+    int mask = names.length - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (names[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        names[slot] = oldNames[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+}
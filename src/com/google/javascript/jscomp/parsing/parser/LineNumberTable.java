@@ -18,8 +18,8 @@ package com.google.javascript.jscomp.parsing.parser;
 
 import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
 import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
-import java.util.ArrayList;
 import java.util.Arrays;
+import javax.annotation.Nullable;
 
 /**
  * Maps offsets into a source string into line/column positions.
@@ -29,35 +29,68 @@ import java.util.Arrays;
 public class LineNumberTable {
 
   private final SourceFile sourceFile;
+  // The offset at which each line starts, followed by Integer.MAX_VALUE.
   private final int[] lineStartOffsets;
+  // Whether '\n' is the only line terminator in the source.
+  private final boolean hasOnlyLineFeeds;
 
   public LineNumberTable(SourceFile sourceFile) {
     this.sourceFile = sourceFile;
-    this.lineStartOffsets = computeLineStartOffsets(sourceFile.contents);
-  }
 
-  private static int[] computeLineStartOffsets(String source) {
-    // TODO(johnlenz): do this more efficiently.
-    ArrayList<Integer> lineStartOffsets = new ArrayList<>();
-    lineStartOffsets.add(0);
+    String source = sourceFile.contents;
+    int[] offsets = new int[16];
+    int count = 0;
+    offsets[count++] = 0;
+    boolean onlyLineFeeds = true;
     for (int index = 0; index < source.length(); index++) {
       char ch = source.charAt(index);
       if (isLineTerminator(ch)) {
-        if (index + 1 < source.length() && ch == '\r'
-            && source.charAt(index + 1) == '\n') {
-          index++;
+        if (ch != '\n') {
+          onlyLineFeeds = false;
+          if (index + 1 < source.length() && ch == '\r'
+              && source.charAt(index + 1) == '\n') {
+            index++;
+          }
+        }
+        if (count == offsets.length) {
+          offsets = Arrays.copyOf(offsets, count * 2);
         }
-        lineStartOffsets.add(index + 1);
+        offsets[count++] = index + 1;
+      }
+    }
+    offsets = Arrays.copyOf(offsets, count + 1);
+    offsets[count] = Integer.MAX_VALUE;
+
+    this.lineStartOffsets = offsets;
+    this.hasOnlyLineFeeds = onlyLineFeeds;
+  }
+
+  /**
+   * Computes the offset at which each line starts, treating only '\n' as a line terminator. This
+   * is how {@code jscomp.SourceFile} numbers lines.
+   */
+  public static int[] computeLineFeedOffsets(String source) {
+    int[] offsets = new int[16];
+    int count = 0;
+    offsets[count++] = 0;
+    for (int index = source.indexOf('\n'); index != -1; index = source.indexOf('\n', index + 1)) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
       }
+      offsets[count++] = index + 1;
     }
-    lineStartOffsets.add(Integer.MAX_VALUE);
-    return toIntArray(lineStartOffsets);
+    return Arrays.copyOf(offsets, count);
   }
 
-  public static int[] toIntArray(ArrayList<Integer> integers) {
-    int[] ret = new int[integers.size()];
-    Arrays.setAll(ret, (i) -> integers.get(i).intValue());
-    return ret;
+  /**
+   * Returns the line start offsets in the form computed by {@link #computeLineFeedOffsets}, or null
+   * if the source has other line terminators so that the two would disagree.
+   */
+  @Nullable
+  public int[] getLineFeedOffsets() {
+    return hasOnlyLineFeeds
+        ? Arrays.copyOf(lineStartOffsets, lineStartOffsets.length - 1)
+        : null;
   }
 
   private static boolean isLineTerminator(char ch) {
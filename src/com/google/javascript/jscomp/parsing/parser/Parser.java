@@ -265,12 +265,22 @@ public class Parser {
     private final ImmutableList.Builder<Comment> comments = ImmutableList.builder();
 
     @Override
-    public void recordComment(Comment.Type type, SourceRange range, String value) {
-      value = value.trim();
-      if (value.startsWith(SOURCE_MAPPING_URL_PREFIX)) {
-        sourceMapURL = value.substring(SOURCE_MAPPING_URL_PREFIX.length());
+    public void recordComment(Comment.Type type, SourceRange range) {
+      // The value is the trimmed text of the comment, which is left in the source until needed.
+      String contents = scanner.getFile().contents;
+      int start = range.start.offset;
+      int end = range.end.offset;
+      while (start < end && contents.charAt(start) <= ' ') {
+        start++;
       }
-      comments.add(new Comment(value, range, type));
+      while (end > start && contents.charAt(end - 1) <= ' ') {
+        end--;
+      }
+      if (contents.startsWith(SOURCE_MAPPING_URL_PREFIX, start)
+          && start + SOURCE_MAPPING_URL_PREFIX.length() <= end) {
+        sourceMapURL = contents.substring(start + SOURCE_MAPPING_URL_PREFIX.length(), end);
+      }
+      comments.add(new Comment(contents, start, end, range, type));
     }
 
     private ImmutableList<Comment> getComments() {
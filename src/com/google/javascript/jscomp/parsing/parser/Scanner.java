@@ -40,6 +40,7 @@ public class Scanner {
   private final String contents;
   private final int contentsLength;
   private final ArrayList<Token> currentTokens = new ArrayList<>();
+  private final IdentifierTable identifiers = new IdentifierTable();
   private int index;
   private final CommentRecorder commentRecorder;
   private int typeParameterLevel;
@@ -70,8 +71,12 @@ public class Scanner {
     this.typeParameterLevel = 0;
   }
 
+  /**
+   * Receives the comments found while scanning. The text of a comment is the range of the source
+   * contents given by its location, so that recorders only copy the text they need.
+   */
   public interface CommentRecorder {
-    void recordComment(Comment.Type type, SourceRange range, String value);
+    void recordComment(Comment.Type type, SourceRange range);
   }
 
   private LineNumberTable getLineNumberTable() {
@@ -395,13 +400,11 @@ public class Scanner {
       nextChar();
     }
     SourceRange range = getLineNumberTable().getSourceRange(startOffset, index);
-    String value = this.contents.substring(startOffset, index);
-    recordComment(type, range, value);
+    recordComment(type, range);
   }
 
-  private void recordComment(
-      Comment.Type type, SourceRange range, String value) {
-    commentRecorder.recordComment(type, range, value);
+  private void recordComment(Comment.Type type, SourceRange range) {
+    commentRecorder.recordComment(type, range);
   }
 
   private void skipMultiLineComment() {
@@ -423,8 +426,7 @@ public class Scanner {
         }
       }
       SourceRange range = getLineNumberTable().getSourceRange(startOffset, index);
-      String value = this.contents.substring(startOffset, index);
-      recordComment(type, range, value);
+      recordComment(type, range);
     } else {
       reportError("unterminated comment");
     }
@@ -694,9 +696,8 @@ public class Scanner {
   }
 
   private Token scanIdentifierOrKeyword(int beginToken, char ch) {
-    StringBuilder valueBuilder = new StringBuilder();
-    valueBuilder.append(ch);
-
+    // The identifier is read in place; its value is the source text from beginToken up to the
+    // current index.
     boolean containsUnicodeEscape = ch == '\\';
     boolean bracedUnicodeEscape = false;
     int unicodeEscapeLen = containsUnicodeEscape ? 1 : 0;
@@ -724,21 +725,22 @@ public class Scanner {
       }
 
       // Add character to token
-      valueBuilder.append(nextChar());
+      nextChar();
       ch = peekChar();
     }
 
-    String value = valueBuilder.toString();
-
-    // Process unicode escapes.
+    String value;
     if (containsUnicodeEscape) {
-      value = processUnicodeEscapes(value);
+      // Process unicode escapes.
+      value = processUnicodeEscapes(getTokenString(beginToken));
       if (value == null) {
         reportError(
             getPosition(index),
             "Invalid escape sequence");
         return createToken(TokenType.ERROR, beginToken);
       }
+    } else {
+      value = identifiers.intern(contents, beginToken, index);
     }
 
     // Check to make sure the first character (or the unicode escape at the
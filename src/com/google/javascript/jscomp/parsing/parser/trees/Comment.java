@@ -38,16 +38,56 @@ public class Comment {
     IMPORTANT
   }
 
-  public final String value;
   public final SourceRange location;
   public final Type type;
 
+  // The text of the comment is source[valueStart, valueEnd) and only copied out of the source when
+  // it is first requested. Most comments are never looked at after parsing.
+  private final String source;
+  private final int valueStart;
+  private final int valueEnd;
+  private String value;
+
   public Comment(String value, SourceRange location, Type type) {
+    this(value, 0, value.length(), location, type);
     this.value = value;
+  }
+
+  public Comment(String source, int valueStart, int valueEnd, SourceRange location, Type type) {
+    this.source = source;
+    this.valueStart = valueStart;
+    this.valueEnd = valueEnd;
     this.location = location;
     this.type = type;
   }
 
+  public String getValue() {
+    // Racing threads may both copy the text, which is harmless.
+    String result = value;
+    if (result == null) {
+      result = source.substring(valueStart, valueEnd);
+      value = result;
+    }
+    return result;
+  }
+
+  /** Whether the text of the comment contains {@code str}, without copying the text. */
+  public boolean valueContains(String str) {
+    if (value != null) {
+      return value.contains(str);
+    }
+    for (int i = valueStart, last = valueEnd - str.length(); i <= last; i++) {
+      if (source.startsWith(str, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getValueLength() {
+    return valueEnd - valueStart;
+  }
+
   public boolean isJsDoc() {
     return type == Type.JSDOC;
   }
@@ -21,6 +21,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -34,11 +35,15 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
@@ -53,26 +58,53 @@ public final class ApplySuggestedFixes {
           .compound(Ordering.natural().onResultOf(CodeReplacement::getLength))
           .compound(Ordering.natural().onResultOf(CodeReplacement::getSortKey));
 
+  private static final int NUM_PARALLEL_THREADS = Runtime.getRuntime().availableProcessors();
+
   /**
    * Applies the provided set of suggested fixes to the files listed in the suggested fixes.
    * The fixes can be provided in any order, but they may not have any overlapping modifications
    * for the same file.
+   *
+   * <p>Once the fixes to apply have been chosen, each file is read, fixed and written back on its
+   * own, in parallel, so only the files currently being fixed are held in memory.
    */
   public static void applySuggestedFixesToFiles(Iterable<SuggestedFix> fixes)
       throws IOException {
-    Set<String> filenames = new HashSet<>();
+    ReplacementMap map = new ReplacementMap();
     for (SuggestedFix fix : fixes) {
-      filenames.addAll(fix.getReplacements().keySet());
+      map.putIfNoOverlap(fix);
     }
-
-    Map<String, String> filenameToCodeMap = new HashMap<>();
-    for (String filename : filenames) {
-      filenameToCodeMap.put(filename, Files.asCharSource(new File(filename), UTF_8).read());
+    Set<Entry<String, Set<CodeReplacement>>> files = map.entrySet();
+    if (files.isEmpty()) {
+      return;
     }
 
-    Map<String, String> newCode = applySuggestedFixesToCode(fixes, filenameToCodeMap);
-    for (Map.Entry<String, String> entry : newCode.entrySet()) {
-      Files.asCharSink(new File(entry.getKey()), UTF_8).write(entry.getValue());
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(files.size(), NUM_PARALLEL_THREADS));
+    try {
+      List<Future<?>> futures = new ArrayList<>(files.size());
+      for (Map.Entry<String, Set<CodeReplacement>> entry : files) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  File file = new File(entry.getKey());
+                  String code = Files.asCharSource(file, UTF_8).read();
+                  Files.asCharSink(file, UTF_8)
+                      .write(applyCodeReplacements(entry.getValue(), code));
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -147,7 +179,11 @@ public final class ApplySuggestedFixes {
     List<CodeReplacement> sortedReplacements = ORDER_CODE_REPLACEMENTS.sortedCopy(replacements);
     validateNoOverlaps(sortedReplacements);
 
-    StringBuilder sb = new StringBuilder();
+    int newLength = code.length();
+    for (CodeReplacement replacement : sortedReplacements) {
+      newLength += replacement.getNewContent().length() - replacement.getLength();
+    }
+    StringBuilder sb = new StringBuilder(Math.max(newLength, 0));
     int lastIndex = 0;
     for (CodeReplacement replacement : sortedReplacements) {
       sb.append(code, lastIndex, replacement.getStartPosition());
@@ -190,31 +226,82 @@ public final class ApplySuggestedFixes {
     return false;
   }
 
+  /**
+   * The replacements of the fixes that can be applied together. A fix is only added if none of its
+   * replacements overlap the ones already added, which is checked in logarithmic time per
+   * replacement.
+   */
   private static class ReplacementMap {
     private final SetMultimap<String, CodeReplacement> map;
 
+    /**
+     * For each file, the end of the added replacements by their start position. Replacements that
+     * start at the same position can only all be inserts, or inserts and one replacement that
+     * removes code, so the largest end is kept.
+     */
+    private final Map<String, TreeMap<Integer, Integer>> endsByStart;
+
     ReplacementMap() {
       this.map = HashMultimap.create();
+      this.endsByStart = new HashMap<>();
     }
 
     void putIfNoOverlap(SuggestedFix fix) {
       if (canPut(fix)) {
         map.putAll(fix.getReplacements());
+        for (Map.Entry<String, CodeReplacement> entry : fix.getReplacements().entries()) {
+          CodeReplacement replacement = entry.getValue();
+          endsByStart
+              .computeIfAbsent(entry.getKey(), k -> new TreeMap<>())
+              .merge(replacement.getStartPosition(), replacement.getEndPosition(), Math::max);
+        }
       }
     }
 
     private boolean canPut(SuggestedFix fix) {
       for (String filename : fix.getReplacements().keySet()) {
-        List<CodeReplacement> replacements = new ArrayList<>(map.get(filename));
-        replacements.addAll(fix.getReplacements().get(filename));
-        replacements = ORDER_CODE_REPLACEMENTS.sortedCopy(replacements);
-        if (containsOverlaps(replacements)) {
+        Set<CodeReplacement> replacements = fix.getReplacements().get(filename);
+        if (replacements.size() > 1
+            && containsOverlaps(ORDER_CODE_REPLACEMENTS.sortedCopy(replacements))) {
           return false;
         }
+        TreeMap<Integer, Integer> ends = endsByStart.get(filename);
+        if (ends == null) {
+          continue;
+        }
+        for (CodeReplacement replacement : replacements) {
+          if (overlaps(ends, replacement)) {
+            return false;
+          }
+        }
       }
       return true;
     }
 
+    /**
+     * Returns whether the replacement overlaps any of the given non-overlapping replacements, in
+     * the same sense as {@link #containsOverlaps}: two replacements overlap if the one that sorts
+     * first ends after the other starts.
+     */
+    private static boolean overlaps(TreeMap<Integer, Integer> ends, CodeReplacement replacement) {
+      int start = replacement.getStartPosition();
+      int end = replacement.getEndPosition();
+      // Since the added replacements do not overlap, the one that starts last before this one
+      // also ends last.
+      Map.Entry<Integer, Integer> before = ends.lowerEntry(start);
+      if (before != null && before.getValue() > start) {
+        return true;
+      }
+      // Inserts sort before the code they are next to, so only replacements that remove code
+      // overlap each other when starting at the same position.
+      Integer sameStartEnd = ends.get(start);
+      if (sameStartEnd != null && sameStartEnd > start && end > start) {
+        return true;
+      }
+      Integer after = ends.higherKey(start);
+      return after != null && after < end;
+    }
+
     Set<Entry<String, Set<CodeReplacement>>> entrySet() {
       return Multimaps.asMap(map).entrySet();
     }
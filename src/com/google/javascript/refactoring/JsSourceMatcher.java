@@ -53,4 +53,9 @@ public final class JsSourceMatcher implements Matcher {
   public Map<String, Node> getTemplateNodeToMatchMap() {
     return matcher.getTemplateNodeToMatchMap();
   }
+
+  /** Returns the underlying template matcher, so that templates can be indexed by their roots. */
+  TemplateAstMatcher getTemplateAstMatcher() {
+    return matcher;
+  }
 }
@@ -16,52 +16,100 @@
 
 package com.google.javascript.refactoring;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.javascript.jscomp.BlackHoleErrorManager;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.CompilerThreadFactory;
 import com.google.javascript.jscomp.DependencyOptions;
 import com.google.javascript.jscomp.DiagnosticGroups;
 import com.google.javascript.jscomp.NodeTraversal;
 import com.google.javascript.jscomp.SourceFile;
 import com.google.javascript.jscomp.parsing.Config;
-import com.google.javascript.rhino.Node;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
  * Primary driver of a refactoring. This class collects the inputs, runs the refactoring over
  * the compiled input, and then collects the suggested fixes based on the refactoring.
  *
+ * <p>By default all inputs are compiled together. For refactorings that do not need types from
+ * other files, the inputs can instead be split into shards with {@link Builder#withShardCount}.
+ * Each shard is compiled separately, against the same externs, and the shards are compiled and
+ * scanned in parallel.
+ *
  * @author mknichel@google.com (Mark Knichel)
  */
 public final class RefactoringDriver {
 
-  private final Compiler compiler;
-  private final Node rootNode;
+  /** One compiler per shard, in the order of the inputs they were given. */
+  private final ImmutableList<Compiler> compilers;
+
+  private final int threadCount;
 
   private RefactoringDriver(
-      List<SourceFile> inputs,
+      List<List<SourceFile>> shards,
       List<SourceFile> externs,
-      CompilerOptions compilerOptions) {
-    this.compiler = createCompiler(inputs, externs, compilerOptions);
-    this.rootNode = this.compiler.getRoot();
+      Supplier<CompilerOptions> compilerOptions,
+      int threadCount) {
+    this.threadCount = threadCount;
+    if (shards.size() == 1) {
+      this.compilers =
+          ImmutableList.of(createCompiler(shards.get(0), externs, compilerOptions.get()));
+      return;
+    }
+
+    // The externs are shared by every shard, so load them once up front rather than racing to
+    // load them from each shard's compilation.
+    for (SourceFile extern : externs) {
+      try {
+        extern.getCode();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    List<Callable<Compiler>> tasks = new ArrayList<>(shards.size());
+    for (List<SourceFile> shard : shards) {
+      CompilerOptions options = compilerOptions.get();
+      tasks.add(() -> createCompiler(shard, externs, options));
+    }
+    this.compilers = ImmutableList.copyOf(runInParallel(tasks));
   }
 
-  /** Run a refactoring and return any suggested fixes as a result. */
+  /**
+   * Run a refactoring and return any suggested fixes as a result.
+   *
+   * <p>Scanners may keep state tied to the compiler they run on, so this can only be used when the
+   * inputs are not sharded. Use {@link #drive(Supplier, Pattern)} otherwise.
+   */
   public List<SuggestedFix> drive(Scanner scanner, Pattern includeFilePattern) {
-    JsFlumeCallback callback = new JsFlumeCallback(scanner, includeFilePattern);
-    NodeTraversal.traverse(compiler, rootNode, callback);
-    List<SuggestedFix> fixes = callback.getFixes();
-    fixes.addAll(scanner.processAllMatches(callback.getMatches()));
-    return fixes;
+    checkState(
+        compilers.size() == 1,
+        "A sharded driver needs a new scanner per shard, use drive(Supplier<Scanner>) instead");
+    return drive(compilers.get(0), scanner, includeFilePattern);
   }
 
   /** Run a refactoring and return any suggested fixes as a result. */
@@ -69,8 +117,86 @@ public final class RefactoringDriver {
     return drive(scanner, null);
   }
 
+  /**
+   * Run a refactoring and return any suggested fixes as a result. A new scanner is created for
+   * each shard, and the shards are scanned in parallel.
+   *
+   * <p>{@link Scanner#processAllMatches} is called once per shard, with the matches from that
+   * shard. The fixes are returned in the same order as if the shards had been scanned one after
+   * another, in the order of the inputs.
+   */
+  public List<SuggestedFix> drive(
+      Supplier<? extends Scanner> scannerFactory, Pattern includeFilePattern) {
+    if (compilers.size() == 1) {
+      return drive(compilers.get(0), scannerFactory.get(), includeFilePattern);
+    }
+    List<Callable<List<SuggestedFix>>> tasks = new ArrayList<>(compilers.size());
+    for (Compiler compiler : compilers) {
+      tasks.add(() -> drive(compiler, scannerFactory.get(), includeFilePattern));
+    }
+    List<SuggestedFix> fixes = new ArrayList<>();
+    for (List<SuggestedFix> shardFixes : runInParallel(tasks)) {
+      fixes.addAll(shardFixes);
+    }
+    return fixes;
+  }
+
+  /** Run a refactoring and return any suggested fixes as a result. */
+  public List<SuggestedFix> drive(Supplier<? extends Scanner> scannerFactory) {
+    return drive(scannerFactory, null);
+  }
+
+  private static List<SuggestedFix> drive(
+      Compiler compiler, Scanner scanner, Pattern includeFilePattern) {
+    JsFlumeCallback callback = new JsFlumeCallback(scanner, includeFilePattern);
+    NodeTraversal.traverse(compiler, compiler.getRoot(), callback);
+    List<SuggestedFix> fixes = callback.getFixes();
+    fixes.addAll(scanner.processAllMatches(callback.getMatches()));
+    return fixes;
+  }
+
+  /**
+   * Returns the compiler used for the inputs. This can only be used when the inputs are not
+   * sharded, see {@link #getCompilers}.
+   */
   public Compiler getCompiler() {
-    return compiler;
+    checkState(compilers.size() == 1, "A sharded driver has one compiler per shard");
+    return compilers.get(0);
+  }
+
+  /** Returns the compiler used for each shard, in the order of the inputs. */
+  public ImmutableList<Compiler> getCompilers() {
+    return compilers;
+  }
+
+  /** Runs the tasks on a thread pool and returns their results in the order of the tasks. */
+  private <T> List<T> runInParallel(List<Callable<T>> tasks) {
+    // Compiling is deeply recursive, so compile and scan on threads with a large stack.
+    ThreadFactory threadFactory = new CompilerThreadFactory("jscompiler-RefactoringDriver");
+    int numThreads = Math.max(1, Math.min(tasks.size(), threadCount));
+    ThreadPoolExecutor poolExecutor =
+        new ThreadPoolExecutor(
+            numThreads,
+            numThreads,
+            Integer.MAX_VALUE,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            threadFactory);
+    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
+    List<ListenableFuture<T>> futureList = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      futureList.add(executorService.submit(task));
+    }
+
+    poolExecutor.shutdown();
+    try {
+      return Futures.allAsList(futureList).get();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
   }
 
   private static Compiler createCompiler(
@@ -118,7 +244,10 @@ public final class RefactoringDriver {
 
     private final ImmutableList.Builder<SourceFile> inputs = ImmutableList.builder();
     private final ImmutableList.Builder<SourceFile> externs = ImmutableList.builder();
-    private CompilerOptions compilerOptions = getCompilerOptions();
+    private Supplier<CompilerOptions> compilerOptions = RefactoringDriver::getCompilerOptions;
+    private boolean sharedCompilerOptions = false;
+    private int shardCount = 1;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
 
     public Builder() {}
 
@@ -167,12 +296,57 @@ public final class RefactoringDriver {
     }
 
     public Builder withCompilerOptions(CompilerOptions compilerOptions) {
+      checkNotNull(compilerOptions);
+      this.compilerOptions = () -> compilerOptions;
+      this.sharedCompilerOptions = true;
+      return this;
+    }
+
+    /**
+     * Sets the options to compile with. Compiling modifies the options, so a sharded driver needs
+     * new options for each shard.
+     */
+    public Builder withCompilerOptions(Supplier<CompilerOptions> compilerOptions) {
       this.compilerOptions = checkNotNull(compilerOptions);
+      this.sharedCompilerOptions = false;
+      return this;
+    }
+
+    /**
+     * Splits the inputs into this many shards, each compiled on its own so that only types from
+     * the same shard and the externs are known. The inputs are split into runs of consecutive
+     * inputs of about the same size. Defaults to 1, which compiles all inputs together.
+     */
+    public Builder withShardCount(int shardCount) {
+      checkArgument(shardCount > 0, "shardCount must be positive: %s", shardCount);
+      this.shardCount = shardCount;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads used to compile and scan the shards. Defaults to the number of
+     * available processors.
+     */
+    public Builder withThreadCount(int threadCount) {
+      checkArgument(threadCount > 0, "threadCount must be positive: %s", threadCount);
+      this.threadCount = threadCount;
       return this;
     }
 
     public RefactoringDriver build() {
-      return new RefactoringDriver(inputs.build(), externs.build(), compilerOptions);
+      ImmutableList<SourceFile> inputs = this.inputs.build();
+      int numShards = Math.max(1, Math.min(shardCount, inputs.size()));
+      checkState(
+          numShards == 1 || !sharedCompilerOptions,
+          "A sharded driver needs new compiler options for each shard, use "
+              + "withCompilerOptions(Supplier<CompilerOptions>) instead");
+      List<List<SourceFile>> shards = new ArrayList<>(numShards);
+      for (int i = 0; i < numShards; i++) {
+        shards.add(
+            inputs.subList(
+                i * inputs.size() / numShards, (i + 1) * inputs.size() / numShards));
+      }
+      return new RefactoringDriver(shards, externs.build(), compilerOptions, threadCount);
     }
   }
 }
@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.javascript.jscomp.CommandLineRunner;
+import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
 import com.google.javascript.jscomp.ErrorManager;
 import com.google.javascript.jscomp.TypeMatchingStrategy;
@@ -83,6 +84,13 @@ final class RefasterJs {
   @Option(name = "--verbose", usage = "Use this to print verbose statements from RefasterJS.")
   private boolean verbose = false;
 
+  @Option(
+      name = "--shards",
+      usage = "Number of shards to split the inputs into. Each shard is compiled and refactored "
+          + "on its own, in parallel, so only use this when the template does not depend on types "
+          + "from other inputs. Defaults to 1.")
+  private int shards = 1;
+
   @Argument
   private List<String> arguments = new ArrayList<>();
 
@@ -111,9 +119,7 @@ final class RefasterJs {
       errorManagerLogger.setLevel(Level.OFF);
     }
 
-    RefasterJsScanner scanner = new RefasterJsScanner();
-    scanner.setTypeMatchingStrategy(typeMatchingStrategy);
-    scanner.loadRefasterJsTemplate(refasterJsTemplate);
+    checkArgument(shards > 0, "--shards must be positive");
     CompilerOptions options = new CompilerOptions();
     options.setEnvironment(environment);
     RefactoringDriver driver =
@@ -121,17 +127,24 @@ final class RefasterJs {
             .addExterns(CommandLineRunner.getBuiltinExterns(environment))
             .addExternsFromFile(getExterns())
             .addInputsFromFile(fileInputs)
+            .withShardCount(shards)
             .build();
     System.out.println("Compiling JavaScript code and searching for suggested fixes.");
     // TODO(bangert): allow picking a non-default choice in RefasterJS, e.g. via a switch.
-    List<SuggestedFix> fixes = driver.drive(scanner);
+    List<SuggestedFix> fixes = driver.drive(this::createScanner);
 
     if (!verbose) {
       // When running in quiet mode, the Compiler's error manager will not have printed
       // this information itself.
-      ErrorManager errorManager = driver.getCompiler().getErrorManager();
-      System.out.println("Compiler results: " + errorManager.getErrorCount()
-          + " errors and " + errorManager.getWarningCount() + " warnings.");
+      int errorCount = 0;
+      int warningCount = 0;
+      for (Compiler compiler : driver.getCompilers()) {
+        ErrorManager errorManager = compiler.getErrorManager();
+        errorCount += errorManager.getErrorCount();
+        warningCount += errorManager.getWarningCount();
+      }
+      System.out.println("Compiler results: " + errorCount
+          + " errors and " + warningCount + " warnings.");
     }
     System.out.println("Found " + fixes.size() + " suggested fixes.");
     if (dryRun) {
@@ -148,6 +161,18 @@ final class RefasterJs {
     }
   }
 
+  /** Creates a scanner for the template. Each shard of the inputs needs its own scanner. */
+  private RefasterJsScanner createScanner() {
+    RefasterJsScanner scanner = new RefasterJsScanner();
+    scanner.setTypeMatchingStrategy(typeMatchingStrategy);
+    try {
+      scanner.loadRefasterJsTemplate(refasterJsTemplate);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return scanner;
+  }
+
   private List<String> getInputs() throws IOException {
     Set<String> patterns = new HashSet<>();
     // The args4j library can't handle multiple files provided within the same flag option,
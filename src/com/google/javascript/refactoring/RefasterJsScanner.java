@@ -25,17 +25,22 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.common.primitives.Ints;
 import com.google.javascript.jscomp.AbstractCompiler;
 import com.google.javascript.jscomp.JsAst;
 import com.google.javascript.jscomp.NodeUtil;
 import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.jscomp.TemplateAstMatcher;
 import com.google.javascript.jscomp.TypeMatchingStrategy;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -47,6 +52,7 @@ import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 
 /**
  * Class that drives the RefasterJs refactoring by matching against a provided
@@ -70,7 +76,7 @@ public final class RefasterJsScanner extends Scanner {
    * Each 'before' template has multiple RefasterJsTemplate instances that correspond to the
    * multiple alternative fixes.
    */
-  private LinkedHashMap<JsSourceMatcher, ImmutableList<RefasterJsTemplate>> templates;
+  private TemplateIndex templates;
 
   /** The RefasterJsTemplates that matched the last match. */
   private ImmutableList<RefasterJsTemplate> matchedTemplates;
@@ -127,14 +133,8 @@ public final class RefasterJsScanner extends Scanner {
         throw new RuntimeException(e);
       }
     }
-    matchedTemplates = null;
-    for (Map.Entry<JsSourceMatcher, ImmutableList<RefasterJsTemplate>> e : templates.entrySet()) {
-      if (e.getKey().matches(node, metadata)) {
-        this.matchedTemplates = e.getValue();
-        return true;
-      }
-    }
-    return false;
+    matchedTemplates = templates.findMatch(node, metadata);
+    return matchedTemplates != null;
   }
 
   @Override
@@ -324,7 +324,8 @@ public final class RefasterJsScanner extends Scanner {
             + "with the same name, one with a \"before_\" prefix and one with a \"after_\" prefix");
 
     // TODO(bangert): Get ImmutableLinkedMap into Guava?
-    this.templates = new LinkedHashMap<>();
+    LinkedHashMap<JsSourceMatcher, ImmutableList<RefasterJsTemplate>> templates =
+        new LinkedHashMap<>();
     for (String templateName : beforeTemplates.keySet()) {
       Preconditions.checkState(
           afterTemplates.containsKey(templateName) && !afterTemplates.get(templateName).isEmpty(),
@@ -342,12 +343,115 @@ public final class RefasterJsScanner extends Scanner {
                 afterTemplateOption));
       }
       ImmutableList<RefasterJsTemplate> afterOptions = builder.build();
-      this.templates.put(afterOptions.get(0).matcher, afterOptions);
+      templates.put(afterOptions.get(0).matcher, afterOptions);
     }
+    this.templates = new TemplateIndex(templates);
   }
 
   private static final Pattern AFTER_CHOICE_PATTERN = Pattern.compile("^after_option_(\\d*)_(.*)");
 
+  /**
+   * Indexes the before templates by the token, child count and name of the nodes they can match,
+   * like a shallow discrimination tree, so that each node is only matched against the templates
+   * that could match it rather than against every template. The candidates are still tried in the
+   * order in which they appear in the template JS file.
+   */
+  private static final class TemplateIndex {
+    private static final int[] NO_TEMPLATES = new int[0];
+
+    private final ImmutableList<JsSourceMatcher> matchers;
+    private final ImmutableList<ImmutableList<RefasterJsTemplate>> templates;
+
+    /** The templates whose root can match nodes with any token, such as a template parameter. */
+    private final int[] forAllTokens;
+
+    /** The templates whose root only matches nodes with a given token, but with any name. */
+    private final EnumMap<Token, int[]> byToken = new EnumMap<>(Token.class);
+
+    /** The templates whose root only matches nodes with a given token and index name. */
+    private final EnumMap<Token, Map<String, int[]>> byTokenAndName = new EnumMap<>(Token.class);
+
+    TemplateIndex(LinkedHashMap<JsSourceMatcher, ImmutableList<RefasterJsTemplate>> templates) {
+      this.matchers = ImmutableList.copyOf(templates.keySet());
+      this.templates = ImmutableList.copyOf(templates.values());
+
+      List<Integer> forAllTokens = new ArrayList<>();
+      Map<Token, List<Integer>> byToken = new EnumMap<>(Token.class);
+      Map<Token, Map<String, List<Integer>>> byTokenAndName = new EnumMap<>(Token.class);
+      for (int i = 0; i < matchers.size(); i++) {
+        TemplateAstMatcher matcher = matchers.get(i).getTemplateAstMatcher();
+        Token token = matcher.getRootToken();
+        String name = matcher.getRootIndexName();
+        if (token == null) {
+          forAllTokens.add(i);
+        } else if (name == null) {
+          byToken.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+        } else {
+          byTokenAndName
+              .computeIfAbsent(token, k -> new HashMap<>())
+              .computeIfAbsent(name, k -> new ArrayList<>())
+              .add(i);
+        }
+      }
+      this.forAllTokens = Ints.toArray(forAllTokens);
+      for (Map.Entry<Token, List<Integer>> entry : byToken.entrySet()) {
+        this.byToken.put(entry.getKey(), Ints.toArray(entry.getValue()));
+      }
+      for (Map.Entry<Token, Map<String, List<Integer>>> entry : byTokenAndName.entrySet()) {
+        Map<String, int[]> byName = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> named : entry.getValue().entrySet()) {
+          byName.put(named.getKey(), Ints.toArray(named.getValue()));
+        }
+        this.byTokenAndName.put(entry.getKey(), byName);
+      }
+    }
+
+    /**
+     * Returns the templates of the first before template that matches the node, or null if none
+     * does.
+     */
+    @Nullable
+    ImmutableList<RefasterJsTemplate> findMatch(Node node, NodeMetadata metadata) {
+      int[] tokenCandidates = byToken.getOrDefault(node.getToken(), NO_TEMPLATES);
+      int[] namedCandidates = NO_TEMPLATES;
+      Map<String, int[]> byName = byTokenAndName.get(node.getToken());
+      if (byName != null) {
+        String name = TemplateAstMatcher.getIndexName(node);
+        if (name != null) {
+          namedCandidates = byName.getOrDefault(name, NO_TEMPLATES);
+        }
+      }
+
+      // Merge the three sorted candidate lists, so that the templates are tried in order.
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < forAllTokens.length
+          || j < tokenCandidates.length
+          || k < namedCandidates.length) {
+        int a = i < forAllTokens.length ? forAllTokens[i] : Integer.MAX_VALUE;
+        int b = j < tokenCandidates.length ? tokenCandidates[j] : Integer.MAX_VALUE;
+        int c = k < namedCandidates.length ? namedCandidates[k] : Integer.MAX_VALUE;
+        int next;
+        if (a < b && a < c) {
+          next = a;
+          i++;
+        } else if (b < c) {
+          next = b;
+          j++;
+        } else {
+          next = c;
+          k++;
+        }
+        JsSourceMatcher matcher = matchers.get(next);
+        if (matcher.getTemplateAstMatcher().mayMatch(node) && matcher.matches(node, metadata)) {
+          return templates.get(next);
+        }
+      }
+      return null;
+    }
+  }
+
   /** Class that holds the before and after templates for a given RefasterJs refactoring. */
   private static class RefasterJsTemplate {
     private static final Pattern ADD_GOOG_REQUIRE_PATTERN =
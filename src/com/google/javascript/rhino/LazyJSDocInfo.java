@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.rhino;
+
+import com.google.common.annotations.GwtIncompatible;
+import java.io.Serializable;
+import javax.annotation.Nullable;
+
+/**
+ * A JSDoc comment that is only parsed into {@link JSDocInfo} the first time it is requested.
+ *
+ * <p>Attached to a node with {@link Node#setLazyJSDocInfo}, after which {@link
+ * Node#getJSDocInfo} parses it on demand. The result is memoized and may be requested from
+ * several threads.
+ */
+public abstract class LazyJSDocInfo implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private transient volatile boolean parsed = false;
+  private transient JSDocInfo info;
+
+  /** Returns the parsed JSDocInfo, parsing the comment on the first call. */
+  @Nullable
+  public final JSDocInfo get() {
+    if (!parsed) {
+      synchronized (this) {
+        if (!parsed) {
+          info = parse();
+          parsed = true;
+        }
+      }
+    }
+    return info;
+  }
+
+  /** Parses the comment. Called at most once. */
+  @Nullable
+  protected abstract JSDocInfo parse();
+
+  /**
+   * Serializes the parsed JSDocInfo instead of what is needed to parse it. This is protected, not
+   * private, so that serialization also uses it for subclasses.
+   */
+  @GwtIncompatible("ObjectOutputStream")
+  protected final Object writeReplace() {
+    return get();
+  }
+}
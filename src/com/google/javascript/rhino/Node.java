@@ -2464,7 +2464,11 @@ public class Node implements Serializable {
    */
   @Nullable
   public final JSDocInfo getJSDocInfo() {
-    return (JSDocInfo) getProp(Prop.JSDOC_INFO);
+    Object info = getProp(Prop.JSDOC_INFO);
+    if (info instanceof LazyJSDocInfo) {
+      return ((LazyJSDocInfo) info).get();
+    }
+    return (JSDocInfo) info;
   }
 
   /**
@@ -2475,6 +2479,14 @@ public class Node implements Serializable {
     return this;
   }
 
+  /**
+   * Attaches JSDoc that is parsed the first time {@link #getJSDocInfo} is called.
+   */
+  public final Node setLazyJSDocInfo(LazyJSDocInfo info) {
+    putProp(Prop.JSDOC_INFO, info);
+    return this;
+  }
+
   /** This node was last changed at {@code time} */
   public final void setChangeTime(int time) {
     putIntProp(Prop.CHANGE_TIME, time);
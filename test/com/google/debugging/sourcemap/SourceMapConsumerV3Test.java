@@ -19,9 +19,11 @@ package com.google.debugging.sourcemap;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import java.util.Collection;
 import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -134,4 +136,90 @@ public final class SourceMapConsumerV3Test {
     assertThat(((JsonElement) exts.get("x_org_int")).getAsInt()).isEqualTo(2);
     assertThat((JsonArray) exts.get("x_org_array")).isEmpty();
   }
+
+  @Test
+  public void testMappingLookups() throws Exception {
+    consumer.parse(
+        GSON.toJson(
+            TestJsonBuilder.create()
+                .setVersion(3)
+                .setFile("testcode")
+                .setLineCount(3)
+                .setMappings("AAAA,IAACA;;ACAA")
+                .setSources("a.js", "b.js")
+                .setNames("foo")
+                .build()));
+
+    OriginalMapping mapping = consumer.getMappingForLine(1, 6);
+    assertThat(mapping.getOriginalFile()).isEqualTo("a.js");
+    assertThat(mapping.getLineNumber()).isEqualTo(1);
+    assertThat(mapping.getColumnPosition()).isEqualTo(2);
+    assertThat(mapping.getIdentifier()).isEqualTo("foo");
+
+    // An empty line uses the last mapping of the line before it.
+    assertThat(consumer.getMappingForLine(2, 1)).isEqualTo(mapping);
+
+    mapping = consumer.getMappingForLine(3, 1);
+    assertThat(mapping.getOriginalFile()).isEqualTo("b.js");
+    assertThat(mapping.getLineNumber()).isEqualTo(1);
+    assertThat(mapping.getColumnPosition()).isEqualTo(2);
+    assertThat(mapping.hasIdentifier()).isFalse();
+
+    assertThat(consumer.getMappingForLine(4, 1)).isNull();
+  }
+
+  @Test
+  public void testMappingsForLinesMatchSingleLookups() throws Exception {
+    consumer.parse(
+        GSON.toJson(
+            TestJsonBuilder.create()
+                .setVersion(3)
+                .setFile("testcode")
+                .setLineCount(3)
+                .setMappings("AAAA,IAACA,EAAC;;ACAA")
+                .setSources("a.js", "b.js")
+                .setNames("foo")
+                .build()));
+
+    // Sorted positions, repeated positions, and one out of order.
+    int[] lines = {1, 1, 1, 1, 1, 2, 3, 3, 4, 1};
+    int[] columns = {1, 5, 6, 6, 9, 1, 1, 7, 1, 2};
+    OriginalMapping[] mappings = consumer.getMappingsForLines(lines, columns);
+    assertThat(mappings).hasLength(lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      assertThat(mappings[i]).isEqualTo(consumer.getMappingForLine(lines[i], columns[i]));
+    }
+    assertThat(mappings[3]).isSameAs(mappings[2]);
+    assertThat(mappings[8]).isNull();
+  }
+
+  @Test
+  public void testReverseMapping() throws Exception {
+    consumer.parse(
+        GSON.toJson(
+            TestJsonBuilder.create()
+                .setVersion(3)
+                .setFile("testcode")
+                .setLineCount(3)
+                .setMappings("AAAA,IAAC;;ACAA,EDCA")
+                .setSources("a.js", "b.js")
+                .setNames()
+                .build()));
+
+    Collection<OriginalMapping> mappings = consumer.getReverseMapping("a.js", 0, 0);
+    assertThat(mappings).hasSize(2);
+    assertThat(mappings)
+        .containsExactly(
+            OriginalMapping.newBuilder().setLineNumber(0).setColumnPosition(0).build(),
+            OriginalMapping.newBuilder().setLineNumber(0).setColumnPosition(4).build())
+        .inOrder();
+    assertThat(consumer.getReverseMapping("a.js", 1, 0))
+        .containsExactly(
+            OriginalMapping.newBuilder().setLineNumber(2).setColumnPosition(2).build());
+    assertThat(consumer.getReverseMapping("b.js", 0, 0))
+        .containsExactly(
+            OriginalMapping.newBuilder().setLineNumber(2).setColumnPosition(0).build());
+    assertThat(consumer.getReverseMapping("b.js", 1, 0)).isEmpty();
+    assertThat(consumer.getReverseMapping("c.js", 0, 0)).isEmpty();
+  }
 }
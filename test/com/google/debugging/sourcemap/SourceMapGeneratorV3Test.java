@@ -660,6 +660,56 @@ public final class SourceMapGeneratorV3Test extends SourceMapTestCase {
     assertThat(mapping.get("sourceRoot").getAsString()).isEqualTo("http://url/path");
   }
 
+  @Test
+  public void testAppendToWhileAddingMappings() throws Exception {
+    SourceMapGeneratorV3 mapper = new SourceMapGeneratorV3();
+    mapper.setWrapperPrefix("(function(){\nvar x;");
+    mapper.addMapping(
+        "a.js", null, new FilePosition(1, 0), new FilePosition(0, 2), new FilePosition(1, 10));
+    mapper.addMapping(
+        "a.js", "foo", new FilePosition(1, 4), new FilePosition(0, 4), new FilePosition(0, 7));
+
+    StringBuilder out = new StringBuilder();
+    mapper.appendTo(out, "out.js");
+    JsonObject mapping = parseJsonObject(out.toString());
+    assertThat(mapping.get("lineCount").getAsInt()).isEqualTo(3);
+    assertThat(mapping.get("mappings").getAsString()).isEqualTo("A;QACA,EAAIA,GAAJ;;");
+
+    // The mappings that were still open are extended by the ones added later.
+    mapper.addMapping(
+        "b.js", "bar", new FilePosition(3, 2), new FilePosition(1, 0), new FilePosition(1, 3));
+    mapper.addMapping(
+        "a.js", null, new FilePosition(2, 0), new FilePosition(2, 0), new FilePosition(2, 5));
+
+    out = new StringBuilder();
+    mapper.appendTo(out, "out.js");
+    mapping = parseJsonObject(out.toString());
+    assertThat(mapping.get("lineCount").getAsInt()).isEqualTo(4);
+    assertThat(mapping.get("mappings").getAsString())
+        .isEqualTo("A;QACA,EAAIA,GAAJ;ACEEC,GDFF,O;AACA;");
+    assertThat(mapping.getAsJsonArray("sources").toString()).isEqualTo("[\"a.js\",\"b.js\"]");
+    assertThat(mapping.getAsJsonArray("names").toString()).isEqualTo("[\"foo\",\"bar\"]");
+  }
+
+  @Test
+  public void testNoSegmentsAfterLastMappedLine() throws Exception {
+    SourceMapGeneratorV3 mapper = new SourceMapGeneratorV3();
+    mapper.addMapping(
+        "a.js", null, new FilePosition(1, 0), new FilePosition(0, 0), new FilePosition(0, 5));
+    // Empty mappings on the next line leave an unmapped segment between them, which is beyond the
+    // last mapped line and so is not written.
+    mapper.addMapping(
+        "a.js", null, new FilePosition(2, 0), new FilePosition(1, 3), new FilePosition(1, 3));
+    mapper.addMapping(
+        "a.js", null, new FilePosition(2, 4), new FilePosition(1, 7), new FilePosition(1, 7));
+
+    StringBuilder out = new StringBuilder();
+    mapper.appendTo(out, "out.js");
+    JsonObject mapping = parseJsonObject(out.toString());
+    assertThat(mapping.get("lineCount").getAsInt()).isEqualTo(1);
+    assertThat(mapping.get("mappings").getAsString()).isEqualTo("AACA,K;;");
+  }
+
   FilePosition count(String js) {
     int line = 0;
     int column = 0;
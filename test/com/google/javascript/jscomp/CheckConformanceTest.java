@@ -19,12 +19,14 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.CheckConformance.InvalidRequirementSpec;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.jscomp.ConformanceRules.AbstractRule;
 import com.google.javascript.jscomp.ConformanceRules.ConformanceResult;
 import com.google.javascript.jscomp.Requirement.WhitelistEntry;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.TextFormat;
 import com.google.protobuf.TextFormat.ParseException;
 import java.util.List;
@@ -260,6 +262,48 @@ public final class CheckConformanceTest extends CompilerTestCase {
         "eval()");
   }
 
+  @Test
+  public void testWhitelistPrefixesSharedBetweenRules() {
+    configuration =
+        "requirement: {\n"
+            + "  type: BANNED_NAME\n"
+            + "  value: 'eval'\n"
+            + "  error_message: 'eval is not allowed'\n"
+            + "  whitelist: 'gen/'\n"
+            + "}\n"
+            + "requirement: {\n"
+            + "  type: BANNED_NAME\n"
+            + "  value: 'alert'\n"
+            + "  error_message: 'alert is not allowed'\n"
+            + "  whitelist: 'gen/a'\n"
+            + "  only_apply_to: 'gen/'\n"
+            + "}";
+
+    testNoWarning(
+        ImmutableList.of(
+            SourceFile.fromCode("gen/a.js", "eval(); alert(1);"),
+            SourceFile.fromCode("src/b.js", "alert(1);")));
+    testWarning(
+        ImmutableList.of(SourceFile.fromCode("gen/b.js", "eval(); alert(1);")),
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: alert is not allowed");
+  }
+
+  @Test
+  public void testWhitelistPrefixesMatchEveryPrefixOfAPath() {
+    ConformanceRules.WhitelistPrefixes prefixes = new ConformanceRules.WhitelistPrefixes();
+    int gen = prefixes.add("gen/");
+    int genA = prefixes.add("gen/a");
+    int src = prefixes.add("src/");
+    assertThat(prefixes.add("gen/")).isEqualTo(gen);
+
+    assertThat(prefixes.getMatches("gen/a.js").get(gen)).isTrue();
+    assertThat(prefixes.getMatches("gen/a.js").get(genA)).isTrue();
+    assertThat(prefixes.getMatches("gen/a.js").get(src)).isFalse();
+    assertThat(prefixes.getMatches("gen/b.js").get(genA)).isFalse();
+    assertThat(prefixes.getMatches("gen").isEmpty()).isTrue();
+  }
+
   @Test
   public void testFileOnOnlyApplyToIsChecked() {
     configuration =
@@ -1166,6 +1210,46 @@ public final class CheckConformanceTest extends CompilerTestCase {
     }
   }
 
+  // A custom rule that reports every node it is offered.
+  public static class CustomIndexedRule extends AbstractRule
+      implements CheckConformance.IndexableRule {
+    public CustomIndexedRule(AbstractCompiler compiler, Requirement requirement)
+        throws InvalidRequirementSpec {
+      super(compiler, requirement);
+    }
+
+    @Override
+    public ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.NAME);
+    }
+
+    @Override
+    public ImmutableSet<String> getCandidateStrings() {
+      return ImmutableSet.of("reported");
+    }
+
+    @Override
+    protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
+      return ConformanceResult.VIOLATION;
+    }
+  }
+
+  @Test
+  public void testIndexedRuleIsOnlyOfferedCandidateNodes() {
+    configuration =
+        "requirement: {\n"
+            + "  type: CUSTOM\n"
+            + "  java_class: 'com.google.javascript.jscomp.CheckConformanceTest$"
+            + "CustomIndexedRule'\n"
+            + "  error_message: 'placeholder'\n"
+            + "}";
+
+    testWarning(
+        "var reported = 1; var other = {reported: 2}; other.reported;",
+        CheckConformance.CONFORMANCE_VIOLATION);
+    testNoWarning("var other = 1; other;");
+  }
+
   @Test
   public void testCustom4() {
     allowSourcelessWarnings();
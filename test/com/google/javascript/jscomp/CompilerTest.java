@@ -96,6 +96,45 @@ public final class CompilerTest {
     assertThat(cb.getColumnIndex()).isEqualTo(6);
   }
 
+  @Test
+  public void testCodeBuilderWritesThrough() {
+    StringBuilder out = new StringBuilder();
+    Compiler.CodeBuilder cb = new Compiler.CodeBuilder(out);
+    cb.append("foo();\n");
+    cb.append("goo();");
+
+    assertThat(out.toString()).isEqualTo("foo();\ngoo();");
+    assertThat(cb.getLength()).isEqualTo(13);
+    assertThat(cb.getLineIndex()).isEqualTo(1);
+    assertThat(cb.getColumnIndex()).isEqualTo(6);
+    assertThat(cb.endsWith("goo();")).isTrue();
+    assertThat(cb.endsWith("\n")).isFalse();
+  }
+
+  @Test
+  public void testToSourceModuleWritesThrough() {
+    JSModule m1 = new JSModule("m1");
+    m1.add(SourceFile.fromCode("a.js", "/** @license A */ var a = 1;"));
+    m1.add(SourceFile.fromCode("b.js", "var b = a + 1"));
+    JSModule m2 = new JSModule("m2");
+    m2.addDependency(m1);
+    m2.add(SourceFile.fromCode("c.js", "/** @license C */ alert(b);"));
+
+    CompilerOptions options = new CompilerOptions();
+    options.setPrintInputDelimiter(true);
+    Compiler compiler = new Compiler();
+    compiler.compileModules(ImmutableList.of(), ImmutableList.of(m1, m2), options);
+
+    for (JSModule module : ImmutableList.of(m1, m2)) {
+      StringBuilder out = new StringBuilder();
+      compiler.toSource(module, out);
+      assertThat(out.toString()).isEqualTo(compiler.toSource(module));
+    }
+    StringBuilder out = new StringBuilder();
+    compiler.toSource(out);
+    assertThat(out.toString()).isEqualTo(compiler.toSource());
+  }
+
   @Test
   public void testCyclicalDependencyInInputs() {
     List<SourceFile> inputs = ImmutableList.of(
@@ -185,6 +224,29 @@ public final class CompilerTest {
     assertThat(compiler.getSourceLine(origSourceName, 1)).isEqualTo("<div ng-show='foo()'>");
   }
 
+  @Test
+  public void testInputSourceMapsResolvedTogether() throws Exception {
+    ImmutableMap<String, SourceMapInput> inputSourceMaps = ImmutableMap.of(
+        "input.js", sourcemap("input.js.map", "input.ts", new FilePosition(17, 25)));
+    CompilerOptions options = new CompilerOptions();
+    options.inputSourceMaps = inputSourceMaps;
+    Compiler compiler = new Compiler();
+    compiler.init(new ArrayList<SourceFile>(), new ArrayList<SourceFile>(), options);
+
+    int[] lines = {1, 2, 3, 3, 200};
+    int[] columns = {0, 0, 3, 4, 0};
+    OriginalMapping[] mappings = compiler.getSourceMappings("input.js", lines, columns);
+    for (int i = 0; i < lines.length; i++) {
+      assertThat(mappings[i])
+          .isEqualTo(compiler.getSourceMapping("input.js", lines[i], columns[i]));
+    }
+    assertThat(mappings[2].getOriginalFile()).isEqualTo("input.ts");
+    assertThat(mappings[3]).isSameAs(mappings[2]);
+    for (OriginalMapping mapping : compiler.getSourceMappings("other.js", lines, columns)) {
+      assertThat(mapping).isNull();
+    }
+  }
+
   private SourceMapInput sourcemap(String sourceMapPath, String originalSource,
       FilePosition originalSourcePosition) throws Exception {
     SourceMapGeneratorV3 sourceMap = new SourceMapGeneratorV3();
@@ -97,6 +97,38 @@ public final class CrossChunkCodeMotionTest extends CompilerTestCase {
         });
   }
 
+  @Test
+  public void testSymbolsReferencedFromTheSameChunks() {
+    // Symbols with references from the same set of chunks each move or stay on their own.
+    JSModule[] modules =
+        createModuleStar(
+            // m1
+            lines(
+                "function f1(a) { alert(a); }",
+                "function f2(a) { alert(a); }",
+                "function f3(a) { alert(a); }",
+                "function f4(a) { alert(a); }",
+                "f4(0);"),
+            // m2
+            "f1(1); f2(2); f3(3); f4(4);",
+            // m3
+            "f3(5); f4(6);");
+
+    test(
+        modules,
+        new String[] {
+          // m1
+          "function f3(a) { alert(a); } function f4(a) { alert(a); } f4(0);",
+          // m2
+          lines(
+              "function f1(a) { alert(a); }",
+              "function f2(a) { alert(a); }",
+              "f1(1); f2(2); f3(3); f4(4);"),
+          // m3
+          "f3(5); f4(6);",
+        });
+  }
+
   @Test
   public void testFunctionMovement2() {
     // having f declared as a local variable should block the migration to m2
@@ -37,6 +37,7 @@ import com.google.javascript.rhino.JSTypeExpression;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.jstype.JSType;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import javax.annotation.Nullable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -90,6 +91,73 @@ public final class GlobalNamespaceTest {
     assertThat(n.getGlobalSets()).isEqualTo(0);
   }
 
+  @Test
+  public void refsKeepTheirOrderAcrossRemovalsAndAdditions() {
+    Name n = Name.createForTesting("a");
+    ImmutableList.Builder<Ref> expectedRefs = ImmutableList.builder();
+    for (int i = 0; i < 20; i++) {
+      Ref ref = n.addSingleRefForTesting(Ref.Type.DIRECT_GET, i);
+      if (i % 3 == 0) {
+        expectedRefs.add(ref);
+      } else {
+        n.removeRef(ref);
+      }
+    }
+    // Enough additions to force the removed slots to be reclaimed.
+    for (int i = 20; i < 40; i++) {
+      expectedRefs.add(n.addSingleRefForTesting(Ref.Type.DIRECT_GET, i));
+    }
+
+    assertThat(n.getRefs()).containsExactlyElementsIn(expectedRefs.build()).inOrder();
+    assertThat(n.getTotalGets()).isEqualTo(27);
+    assertThat(n.getFirstRef()).isEqualTo(expectedRefs.build().get(0));
+  }
+
+  @Test
+  public void refsIterationFailsAfterModification() {
+    Name n = Name.createForTesting("a");
+    Ref set1 = n.addSingleRefForTesting(Ref.Type.SET_FROM_GLOBAL, 0);
+    n.addSingleRefForTesting(Ref.Type.SET_FROM_GLOBAL, 1);
+
+    assertThrows(
+        ConcurrentModificationException.class,
+        () -> {
+          for (Ref ref : n.getRefs()) {
+            n.removeRef(set1);
+          }
+        });
+  }
+
+  @Test
+  public void getRefsForNodeOnNameWithManyRefs() {
+    GlobalNamespace namespace =
+        parse(
+            lines(
+                "let A;", //
+                "A; A; A; A; A; A; A; A; A; A;",
+                "const B = A = 3;")); // A will have twin refs here
+
+    Name nameA = namespace.getOwnSlot("A");
+    for (Ref ref : nameA.getRefs()) {
+      if (ref.getTwin() == null) {
+        assertThat(nameA.getRefsForNode(ref.getNode())).containsExactly(ref);
+      }
+    }
+    Ref setTwinRef = Iterables.get(nameA.getRefs(), 11);
+    Ref getTwinRef = Iterables.get(nameA.getRefs(), 12);
+    Node twinNode = setTwinRef.getNode();
+    assertThat(nameA.getRefsForNode(twinNode)).containsExactly(setTwinRef, getTwinRef).inOrder();
+
+    Node newNode = IR.name("A");
+    nameA.updateRefNode(getTwinRef, newNode);
+    assertThat(nameA.getRefsForNode(newNode)).containsExactly(getTwinRef);
+    assertThat(nameA.getRefsForNode(twinNode)).containsExactly(setTwinRef);
+
+    nameA.removeRef(setTwinRef);
+    assertThat(nameA.getRefsForNode(twinNode)).isEmpty();
+    assertThat(nameA.getRefs()).doesNotContain(setTwinRef);
+  }
+
   @Test
   public void firstDeclarationJSDocAlwaysWins() {
     GlobalNamespace namespace =
@@ -216,6 +284,24 @@ public final class GlobalNamespaceTest {
     assertThat(nameA.getRefsForNode(newNode)).containsExactly(refA);
   }
 
+  @Test
+  public void updateRefNodeCanMoveRefBackToOldNode() {
+    GlobalNamespace namespace = parse("const A = 3;");
+
+    Name nameA = namespace.getOwnSlot("A");
+    Ref refA = nameA.getFirstRef();
+
+    Node oldNode = refA.getNode();
+    Node newNode = IR.name("A");
+
+    nameA.updateRefNode(refA, newNode);
+    nameA.updateRefNode(refA, oldNode);
+
+    assertThat(refA.getNode()).isEqualTo(oldNode);
+    assertThat(nameA.getRefsForNode(oldNode)).containsExactly(refA);
+    assertThat(nameA.getRefsForNode(newNode)).isEmpty();
+  }
+
   @Test
   public void updateRefNodeCanSetNodeToNullButPreventsFurtherUpdates() {
     GlobalNamespace namespace = parse("const A = 3;");
@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -68,6 +69,60 @@ public final class InlineCostEstimatorTest {
               "function xx(){return\"monkey\"}");
   }
 
+  @Test
+  public void testFunctionCostCache() {
+    Node fn = parse("function a() {return \"monkey\"}").getFirstChild();
+    int expectedCost = "function xx(){return\"monkey\"}".length();
+    InlineCostEstimator.FunctionCostCache cache = new InlineCostEstimator.FunctionCostCache();
+
+    // Estimation stops at the threshold, but the full cost is still computed when needed.
+    assertThat(cache.getCost(fn, 5)).isAtLeast(5);
+    assertThat(cache.getCost(fn, 100)).isEqualTo(expectedCost);
+
+    // Unchanged functions aren't estimated again.
+    Node string = fn.getLastChild().getFirstChild().getFirstChild();
+    string.setString("m");
+    assertThat(cache.getCost(fn, 100)).isEqualTo(expectedCost);
+
+    // A new change time invalidates the cached cost.
+    fn.setChangeTime(fn.getChangeTime() + 1);
+    assertThat(cache.getCost(fn, 100)).isEqualTo(expectedCost - "onkey".length());
+  }
+
+  @Test
+  public void testFunctionCostCacheSkipsFunctionsWithInnerFunctions() {
+    Node fn = parse("function a() {return function() {}}").getFirstChild();
+    InlineCostEstimator.FunctionCostCache cache = new InlineCostEstimator.FunctionCostCache();
+    int cost = cache.getCost(fn, 100);
+
+    // A change to the inner function isn't recorded on the outer one.
+    Node innerFn = fn.getLastChild().getFirstChild().getFirstChild();
+    innerFn.getLastChild().addChildToFront(IR.returnNode());
+    assertThat(cache.getCost(fn, 100)).isGreaterThan(cost);
+  }
+
+  @Test
+  public void testFunctionCostCacheRemovesStaleEntries() {
+    Node script = parse("function a() {return 1} function b() {return 2}");
+    IR.root(script);
+    Node a = script.getFirstChild();
+    Node b = a.getNext();
+    InlineCostEstimator.FunctionCostCache cache = new InlineCostEstimator.FunctionCostCache();
+    cache.getCost(a, 100);
+    cache.getCost(b, 100);
+
+    cache.removeStaleEntries();
+    assertThat(cache.size()).isEqualTo(2);
+
+    b.detach();
+    cache.removeStaleEntries();
+    assertThat(cache.size()).isEqualTo(1);
+
+    a.setChangeTime(a.getChangeTime() + 1);
+    cache.removeStaleEntries();
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
   private void checkCost(String source, String example) {
 
     // The example string should have been minified already.
@@ -71,7 +71,8 @@ public class InlineFunctionsTest extends CompilerTestCase {
         inliningReach,
         assumeStrictThis,
         assumeMinimumCapture,
-        maxSizeAfterInlining);
+        maxSizeAfterInlining,
+        new InlineCostEstimator.FunctionCostCache());
   }
 
   /**
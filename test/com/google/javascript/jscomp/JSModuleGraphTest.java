@@ -32,6 +32,7 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
@@ -324,6 +325,53 @@ public final class JSModuleGraphTest {
     assertSmallestCoveringSubtree(moduleF, moduleA, moduleF, moduleF);
   }
 
+  @Test
+  public void testSmallestCoveringSubtreeIsCachedByValue() {
+    makeDeps();
+    makeGraph();
+    BitSet modules = new BitSet();
+    modules.set(moduleD.getIndex());
+    assertSmallestCoveringSubtree(moduleD, graph, moduleA, modules);
+    // Changing the BitSet after the query must not change the cached answer for its old value.
+    modules.set(moduleE.getIndex());
+    assertSmallestCoveringSubtree(moduleB, graph, moduleA, modules);
+    modules.set(moduleC.getIndex());
+    assertSmallestCoveringSubtree(moduleA, graph, moduleA, modules);
+    assertSmallestCoveringSubtree(moduleD, moduleA, moduleD);
+    assertSmallestCoveringSubtree(moduleB, moduleA, moduleD, moduleE);
+  }
+
+  @Test
+  public void testDeepestCommonDepOnLargeGraph() {
+    Random random = new Random(42);
+    JSModule[] modules = new JSModule[1200];
+    for (int i = 0; i < modules.length; i++) {
+      modules[i] = new JSModule("m" + i);
+      for (int j = 0; i > 0 && j < 3; j++) {
+        JSModule dep = modules[random.nextInt(i)];
+        if (!modules[i].getDependencies().contains(dep)) {
+          modules[i].addDependency(dep);
+        }
+      }
+    }
+    graph = new JSModuleGraph(modules);
+
+    for (int i = 0; i < 2000; i++) {
+      JSModule m1 = modules[random.nextInt(modules.length)];
+      JSModule m2 = modules[random.nextInt(modules.length)];
+      // The deepest common dependency, preferring later modules at the same depth.
+      JSModule expected = null;
+      for (JSModule m : modules) {
+        if (graph.dependsOn(m1, m)
+            && graph.dependsOn(m2, m)
+            && (expected == null || m.getDepth() >= expected.getDepth())) {
+          expected = m;
+        }
+      }
+      assertDeepestCommonDep(expected, m1, m2);
+    }
+  }
+
   @Test
   public void testGetTransitiveDepsDeepestFirst() {
     makeDeps();
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link MultiLocaleCompiler}. */
+@RunWith(JUnit4.class)
+public final class MultiLocaleCompilerTest {
+
+  private static CompilerOptions createOptions() {
+    CompilerOptions options = new CompilerOptions();
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+    options.setEmitUseStrict(false);
+    return options;
+  }
+
+  private static JSModule createModule() {
+    JSModule module = new JSModule("m");
+    module.add(
+        SourceFile.fromCode(
+            "greeting.js",
+            "/** @desc A greeting. */ var MSG_HELLO = goog.getMsg('Hello'); alert(MSG_HELLO);"));
+    return module;
+  }
+
+  @Test
+  public void testCompilesEachLocaleWithItsOwnMessages() {
+    MultiLocaleCompiler multiLocaleCompiler =
+        new MultiLocaleCompiler(Compiler::new, MultiLocaleCompilerTest::createOptions, 2);
+
+    Compiler checker =
+        multiLocaleCompiler.check(ImmutableList.of(), ImmutableList.of(createModule()));
+    assertThat(checker.hasErrors()).isFalse();
+
+    ImmutableMap<String, Compiler> compilers =
+        multiLocaleCompiler.compileForLocales(
+            ImmutableMap.of(
+                "fr", new FixedMessageBundle("MSG_HELLO", "Bonjour"),
+                "de", new FixedMessageBundle("MSG_HELLO", "Hallo")));
+
+    assertThat(compilers.keySet()).containsExactly("fr", "de").inOrder();
+    for (Compiler compiler : compilers.values()) {
+      assertThat(compiler.hasErrors()).isFalse();
+      assertThat(Iterables.getOnlyElement(compiler.getModules()).getName()).isEqualTo("m");
+    }
+    String fr = toSource(compilers.get("fr"));
+    String de = toSource(compilers.get("de"));
+    assertThat(fr).contains("Bonjour");
+    assertThat(fr).doesNotContain("Hello");
+    assertThat(de).contains("Hallo");
+    assertThat(de).doesNotContain("Hello");
+  }
+
+  @Test
+  public void testCreatesSourceMapForEachLocale() {
+    MultiLocaleCompiler multiLocaleCompiler =
+        new MultiLocaleCompiler(
+            Compiler::new,
+            () -> {
+              CompilerOptions options = createOptions();
+              options.setSourceMapOutputPath("greeting.js.map");
+              return options;
+            },
+            2);
+
+    Compiler checker =
+        multiLocaleCompiler.check(ImmutableList.of(), ImmutableList.of(createModule()));
+    assertThat(checker.hasErrors()).isFalse();
+
+    ImmutableMap<String, Compiler> compilers =
+        multiLocaleCompiler.compileForLocales(
+            ImmutableMap.of(
+                "fr", new FixedMessageBundle("MSG_HELLO", "Bonjour"),
+                "de", new FixedMessageBundle("MSG_HELLO", "Hallo")));
+
+    for (Compiler compiler : compilers.values()) {
+      assertThat(compiler.hasErrors()).isFalse();
+      assertThat(compiler.getSourceMap()).isNotNull();
+    }
+    assertThat(compilers.get("fr").getSourceMap()).isNotSameAs(compilers.get("de").getSourceMap());
+  }
+
+  @Test
+  public void testCannotCompileLocalesAfterErrors() {
+    MultiLocaleCompiler multiLocaleCompiler =
+        new MultiLocaleCompiler(Compiler::new, MultiLocaleCompilerTest::createOptions, 1);
+    JSModule module = new JSModule("m");
+    module.add(SourceFile.fromCode("broken.js", "var x = ;"));
+
+    Compiler checker = multiLocaleCompiler.check(ImmutableList.of(), ImmutableList.of(module));
+    assertThat(checker.hasErrors()).isTrue();
+
+    try {
+      multiLocaleCompiler.compileForLocales(ImmutableMap.of("fr", new EmptyMessageBundle()));
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  private static String toSource(Compiler compiler) {
+    return compiler.toSource(Iterables.getOnlyElement(compiler.getModules()));
+  }
+
+  /** A bundle with a single message, whose id is its key. */
+  private static final class FixedMessageBundle implements MessageBundle {
+    private final JsMessage message;
+
+    FixedMessageBundle(String key, String text) {
+      this.message = new JsMessage.Builder(key).appendStringPart(text).build();
+    }
+
+    @Override
+    public JsMessage getMessage(String id) {
+      return message.getId().equals(id) ? message : null;
+    }
+
+    @Override
+    public Iterable<JsMessage> getAllMessages() {
+      return ImmutableList.of(message);
+    }
+
+    @Override
+    public JsMessage.IdGenerator idGenerator() {
+      return null;
+    }
+  }
+}
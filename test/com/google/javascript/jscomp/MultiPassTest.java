@@ -418,6 +418,7 @@ public final class MultiPassTest extends CompilerTestCase {
   }
 
   private void addInlineFunctions() {
+    InlineCostEstimator.FunctionCostCache costCache = new InlineCostEstimator.FunctionCostCache();
     passes.add(
         new PassFactory("inlineFunctions", false) {
           @Override
@@ -428,7 +429,8 @@ public final class MultiPassTest extends CompilerTestCase {
                 CompilerOptions.Reach.ALL,
                 true,
                 true,
-                CompilerOptions.UNLIMITED_FUN_SIZE_AFTER_INLINING);
+                CompilerOptions.UNLIMITED_FUN_SIZE_AFTER_INLINING,
+                costCache);
           }
 
           @Override
@@ -106,6 +106,19 @@ public final class PerformanceTrackerTest {
     assertThat(st.changes).isEqualTo(0);
   }
 
+  @Test
+  public void testComponentRuntimes() {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, null);
+    tracker.recordComponentRuntime("pass:a", 5);
+    tracker.recordComponentRuntime("pass:b", 3);
+    tracker.recordComponentRuntime("pass:a", 2);
+
+    assertThat(tracker.getComponentRuntimes())
+        .containsExactly("pass:a", 7L, "pass:b", 3L)
+        .inOrder();
+  }
+
   @Test
   public void testOutputFormat() {
     ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -28,6 +28,7 @@ public final class RemoveUnusedCodeTest extends CompilerTestCase {
 
   private boolean removeGlobal;
   private boolean preserveFunctionExpressionNames;
+  private boolean removeOnlyInChangedScopes;
 
   public RemoveUnusedCodeTest() {
     // Set up externs to be used in the test cases.
@@ -70,6 +71,7 @@ public final class RemoveUnusedCodeTest extends CompilerTestCase {
     enableGatherExternProperties();
     removeGlobal = true;
     preserveFunctionExpressionNames = false;
+    removeOnlyInChangedScopes = false;
   }
 
   @Override
@@ -84,17 +86,78 @@ public final class RemoveUnusedCodeTest extends CompilerTestCase {
     return new CompilerPass() {
       @Override
       public void process(Node externs, Node root) {
+        if (removeOnlyInChangedScopes) {
+          // Pretend the pass already ran once and only functions named "changed" changed since.
+          compiler.getChangedScopeNodesForPass(PassNames.REMOVE_UNUSED_CODE);
+          NodeUtil.visitPreOrder(
+              root,
+              n -> {
+                if (n.isFunction() && n.getFirstChild().getString().equals("changed")) {
+                  compiler.reportChangeToChangeScope(n);
+                }
+              });
+        }
         new RemoveUnusedCode.Builder(compiler)
             .removeLocalVars(true)
             .removeGlobals(removeGlobal)
-            .removeUnusedPolyfills(true)
+            .removeUnusedPolyfills(!removeOnlyInChangedScopes)
             .preserveFunctionExpressionNames(preserveFunctionExpressionNames)
+            .removeOnlyInChangedScopes(removeOnlyInChangedScopes)
             .build()
             .process(externs, root);
       }
     };
   }
 
+  @Test
+  public void testRemoveOnlyInChangedScopes() {
+    removeGlobal = false;
+    removeOnlyInChangedScopes = true;
+    test(
+        lines(
+            "function changed() { var a = 1; var b = 2; use(b); }",
+            "function unchanged() { var c = 1; }"),
+        lines(
+            "function changed() { var b = 2; use(b); }", // preserve formatting
+            "function unchanged() { var c = 1; }"));
+  }
+
+  @Test
+  public void testRemoveOnlyInChangedScopesWidensToOutermostFunction() {
+    removeGlobal = false;
+    removeOnlyInChangedScopes = true;
+    // The change to the inner function removed the only use of `a`.
+    test(
+        lines(
+            "function outer() {", // preserve formatting
+            "  var a = 1;",
+            "  var b = 2;",
+            "  return function changed() { return b; };",
+            "}"),
+        lines(
+            "function outer() {", // preserve formatting
+            "  var b = 2;",
+            "  return function() { return b; };",
+            "}"));
+  }
+
+  @Test
+  public void testRemoveOnlyInChangedScopesKeepsEnclosingBlockScopedVars() {
+    removeGlobal = false;
+    removeOnlyInChangedScopes = true;
+    test(
+        lines(
+            "{", // preserve formatting
+            "  let x;",
+            "  use(function changed() { x = 1; });",
+            "}"),
+        lines(
+            "{", // preserve formatting
+            "  let x;",
+            "  use(function() { x = 1; });",
+            "}"));
+  }
+
   @Test
   public void testUnusedPrototypeFieldReference() {
     // Simply mentioning a prototype property without using it doesn't count as a reference.
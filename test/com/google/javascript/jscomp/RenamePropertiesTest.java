@@ -444,6 +444,16 @@ public final class RenamePropertiesTest extends CompilerTestCase {
         "foo.a = 1; foo.d = 2; foo.e = 3;");
   }
 
+  @Test
+  public void testStableRenamingOnlyAssignsNamesToNewProperties() {
+    // "other" is now the most frequent property, but "prop" keeps its name.
+    testStableRenaming(
+        "foo.prop = 1;",
+        "foo.a = 1;",
+        "foo.other = 1; foo.other = 2; foo.other = 3; foo.prop = 1;",
+        "foo.b = 1; foo.b = 2; foo.b = 3; foo.a = 1;");
+  }
+
   private void testStableRenaming(String input1, String expected1,
                                   String input2, String expected2) {
     test(input1, expected1);
@@ -435,6 +435,19 @@ public final class RenameVarsTest extends CompilerTestCase {
         expectedVariableMap);
   }
 
+  @Test
+  public void testStableRenameOnlyAssignsNamesToNewGlobals() {
+    VariableMap expectedVariableMap = makeVariableMap("Foo", "a");
+    testRenameMap("var Foo; Foo = 1;", "var a; a = 1;", expectedVariableMap);
+
+    // Bar is now the most frequent var, but Foo keeps its previous name.
+    expectedVariableMap = makeVariableMap("Foo", "a", "Bar", "b");
+    testRenameMapUsingOldMap(
+        "var Bar; Bar = 1; Bar = 2; Bar = 3; var Foo; Foo = 1;",
+        "var b; b = 1; b = 2; b = 3; var a; a = 1;",
+        expectedVariableMap);
+  }
+
   @Test
   public void testStableRenameWithPointlesslyAnonymousFunctions() {
     VariableMap expectedVariableMap = makeVariableMap("L 0", "a", "L 1", "b");
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Strings;
 import com.google.common.io.MoreFiles;
 import com.google.javascript.rhino.StaticSourceFile.SourceKind;
 import java.io.FileOutputStream;
@@ -29,6 +30,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.junit.Test;
@@ -173,6 +176,92 @@ public final class SourceFileTest {
     assertThat(sourceFileFromPathCharset.getCode()).isEqualTo(expectedContent);
   }
 
+  @Test
+  public void testFromZipFileReadsStoredAndDeflatedEntries() throws IOException {
+    String storedContent = "var stored = '\u00e9';";
+    String deflatedContent = "var deflated = 1;\n" + Strings.repeat("// filler\n", 100);
+    Path jsZipPath = Files.createTempFile("test", ".js.zip");
+    try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jsZipPath.toFile()))) {
+      byte[] storedBytes = storedContent.getBytes(UTF_8);
+      ZipEntry storedEntry = new ZipEntry("stored.js");
+      storedEntry.setMethod(ZipEntry.STORED);
+      storedEntry.setSize(storedBytes.length);
+      storedEntry.setCompressedSize(storedBytes.length);
+      CRC32 crc = new CRC32();
+      crc.update(storedBytes);
+      storedEntry.setCrc(crc.getValue());
+      zos.putNextEntry(storedEntry);
+      zos.write(storedBytes);
+      zos.closeEntry();
+
+      zos.putNextEntry(new ZipEntry("dir/deflated.js"));
+      zos.write(deflatedContent.getBytes(UTF_8));
+      zos.closeEntry();
+
+      zos.putNextEntry(new ZipEntry("ignored.txt"));
+      zos.closeEntry();
+    }
+
+    List<SourceFile> sourceFiles = SourceFile.fromZipFile(jsZipPath.toString(), UTF_8);
+
+    assertThat(sourceFiles).hasSize(2);
+    assertThat(sourceFiles.get(0).getName()).isEqualTo(jsZipPath + "!/stored.js");
+    assertThat(sourceFiles.get(0).getCode()).isEqualTo(storedContent);
+    assertThat(sourceFiles.get(1).getName()).isEqualTo(jsZipPath + "!/dir/deflated.js");
+    assertThat(sourceFiles.get(1).getCode()).isEqualTo(deflatedContent);
+  }
+
+  @Test
+  public void testZipStatChecksAreBatched() throws IOException {
+    String expectedContent = "// content content content";
+    String newExpectedContent = "// new content new content new content";
+    Path jsZipFile = Files.createTempFile("test", ".js.zip");
+    createZipWithContent(jsZipFile, expectedContent);
+    SourceFile zipSourceFile =
+        SourceFile.fromZipEntry(
+            jsZipFile.toString(),
+            jsZipFile.toAbsolutePath().toString(),
+            "foo.js",
+            StandardCharsets.UTF_8);
+
+    try (ZipEntryReader.StatCheckBatch batch = ZipEntryReader.batchStatChecks()) {
+      assertThat(zipSourceFile.getCode()).isEqualTo(expectedContent);
+
+      // The zip was already checked in this batch, so the change is not noticed.
+      createZipWithContent(jsZipFile, newExpectedContent);
+      zipSourceFile.clearCachedSource();
+      assertThat(zipSourceFile.getCode()).isEqualTo(expectedContent);
+    }
+
+    zipSourceFile.clearCachedSource();
+    assertThat(zipSourceFile.getCode()).isEqualTo(newExpectedContent);
+  }
+
+  @Test
+  public void testZipStatChecksAreRepeatedInOverlappingBatches() throws IOException {
+    String expectedContent = "// content content content";
+    String newExpectedContent = "// new content new content new content";
+    Path jsZipFile = Files.createTempFile("test", ".js.zip");
+    createZipWithContent(jsZipFile, expectedContent);
+    SourceFile zipSourceFile =
+        SourceFile.fromZipEntry(
+            jsZipFile.toString(),
+            jsZipFile.toAbsolutePath().toString(),
+            "foo.js",
+            StandardCharsets.UTF_8);
+
+    try (ZipEntryReader.StatCheckBatch first = ZipEntryReader.batchStatChecks()) {
+      assertThat(zipSourceFile.getCode()).isEqualTo(expectedContent);
+
+      // A batch that starts while the first one is still open checks the zip again.
+      createZipWithContent(jsZipFile, newExpectedContent);
+      try (ZipEntryReader.StatCheckBatch second = ZipEntryReader.batchStatChecks()) {
+        zipSourceFile.clearCachedSource();
+        assertThat(zipSourceFile.getCode()).isEqualTo(newExpectedContent);
+      }
+    }
+  }
+
   private static void createZipWithContent(Path zipFile, String content) throws IOException {
     Instant lastModified = Instant.now();
     if (zipFile.toFile().exists()) {
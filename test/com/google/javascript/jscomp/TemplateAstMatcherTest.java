@@ -16,11 +16,13 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 
 import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -533,6 +535,47 @@ public final class TemplateAstMatcherTest {
         TypeMatchingStrategy.EXACT);
   }
 
+  @Test
+  public void testRootIndexKeys() {
+    String externs = ""
+        + "/** @return {string} */\n"
+        + "function foo() {};\n"
+        + "var obj = {};\n"
+        + "/** @return {string} */\n"
+        + "obj.bar = function() {};\n";
+    String template = ""
+        + "/** @param {?} a */\n"
+        + "function template(a) {\n"
+        + "  a.bar();\n"
+        + "}\n";
+    TestNodePair pair = compile(externs, template, "obj.bar(); foo();");
+    TemplateAstMatcher matcher =
+        new TemplateAstMatcher(
+            lastCompiler.getTypeRegistry(),
+            pair.templateNode.getFirstChild(),
+            TypeMatchingStrategy.LOOSE);
+    assertThat(matcher.getRootToken()).isEqualTo(Token.CALL);
+    assertThat(matcher.getRootChildCount()).isEqualTo(1);
+    assertThat(matcher.getRootIndexName()).isEqualTo("bar");
+
+    Node barCall = pair.testNode.getFirstFirstChild();
+    Node fooCall = pair.testNode.getSecondChild().getFirstChild();
+    assertThat(TemplateAstMatcher.getIndexName(barCall)).isEqualTo("bar");
+    assertThat(TemplateAstMatcher.getIndexName(fooCall)).isEqualTo("foo");
+    assertThat(matcher.mayMatch(barCall)).isTrue();
+    assertThat(matcher.mayMatch(fooCall)).isFalse();
+    assertThat(matcher.mayMatch(barCall.getFirstChild())).isFalse();
+
+    pair = compile(externs, "/** @param {?} a */ function template(a) { a; }", "foo();");
+    matcher =
+        new TemplateAstMatcher(
+            lastCompiler.getTypeRegistry(),
+            pair.templateNode.getFirstChild(),
+            TypeMatchingStrategy.LOOSE);
+    assertThat(matcher.getRootToken()).isNull();
+    assertThat(matcher.mayMatch(pair.testNode.getFirstFirstChild())).isTrue();
+  }
+
   private void assertMatch(Node templateRoot, Node testNode, boolean shouldMatch) {
     assertMatch(templateRoot, testNode, shouldMatch, TypeMatchingStrategy.LOOSE);
   }
@@ -550,6 +593,10 @@ public final class TemplateAstMatcherTest {
     sb.append("Template node:\n").append(templateRoot.toStringTree()).append("\n");
     sb.append("Test node:\n").append(testNode.getParent().toStringTree()).append("\n");
     assertWithMessage(sb.toString()).that(matcher.matches(testNode)).isEqualTo(shouldMatch);
+    if (shouldMatch) {
+      // The index keys of a template must never rule out a node that it matches.
+      assertWithMessage(sb.toString()).that(matcher.mayMatch(testNode)).isTrue();
+    }
   }
 
   private void assertMatch(Node templateRoot, Node testNode) {
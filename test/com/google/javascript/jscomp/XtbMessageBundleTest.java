@@ -19,9 +19,12 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -158,4 +161,51 @@ public final class XtbMessageBundleTest {
     assertThat(bundle.getMessage("987654").toString())
         .isEqualTo(bundle.getMessage("123456").toString());
   }
+
+  @Test
+  public void testXtbBundle_adjacentTextIsOnePart() {
+    String xtb =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<translationbundle lang=\"fr\">\n"
+            + "<translation id=\"123\">Pommes &amp; <![CDATA[poires]]><ph name=\"NUM\"/>"
+            + "</translation>\n"
+            + "</translationbundle>";
+    InputStream stream = new ByteArrayInputStream(xtb.getBytes(UTF_8));
+    XtbMessageBundle bundle = new XtbMessageBundle(stream, PROJECT_ID);
+
+    JsMessage message = bundle.getMessage("123");
+    assertThat(message.parts()).hasSize(2);
+    assertThat(message.toString()).isEqualTo("Pommes & poires{$num}");
+  }
+
+  @Test
+  public void testLoadAll() throws IOException {
+    Path fr = Files.createTempFile("fr", ".xtb");
+    Files.write(
+        fr,
+        ("<translationbundle lang=\"fr\">"
+                + "<translation id=\"123\">Bonjour <ph name=\"USER_NAME\"/></translation>"
+                + "</translationbundle>")
+            .getBytes(UTF_8));
+    Path de = Files.createTempFile("de", ".xtb");
+    Files.write(
+        de,
+        ("<translationbundle lang=\"de\">"
+                + "<translation id=\"123\">Hallo <ph name=\"USER_NAME\"/></translation>"
+                + "</translationbundle>")
+            .getBytes(UTF_8));
+
+    ImmutableMap<String, XtbMessageBundle> bundles =
+        XtbMessageBundle.loadAll(ImmutableMap.of("fr", fr, "de", de), PROJECT_ID, 2);
+
+    assertThat(bundles.keySet()).containsExactly("fr", "de").inOrder();
+    JsMessage frMessage = bundles.get("fr").getMessage("123");
+    JsMessage deMessage = bundles.get("de").getMessage("123");
+    assertThat(frMessage.toString()).isEqualTo("Bonjour {$userName}");
+    assertThat(deMessage.toString()).isEqualTo("Hallo {$userName}");
+
+    // The bundles share what their messages have in common.
+    assertThat(deMessage.getKey()).isSameAs(frMessage.getKey());
+    assertThat(deMessage.parts().get(1)).isSameAs(frMessage.parts().get(1));
+  }
 }
@@ -26,6 +26,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.ErrorManager;
 import com.google.javascript.jscomp.PrintStreamErrorManager;
 import com.google.javascript.jscomp.SourceFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.Before;
@@ -604,6 +606,74 @@ public final class DepsGeneratorTest {
         "Could not find file \"./missing.js\".");
   }
 
+  @Test
+  public void testCachedScanResultsAreReused() throws Exception {
+    SourceFile a = SourceFile.fromCode("/base/a.js", "goog.provide('a');\ngoog.require('b');");
+    SourceFile b = SourceFile.fromCode("/base/b.js", "goog.module('b');\nlet x = 1;");
+    String expected =
+        LINE_JOINER.join(
+            "goog.addDependency('a.js', ['a'], ['b']);",
+            "goog.addDependency('b.js', ['b'], [], {'lang': 'es6', 'module': 'goog'});",
+            "");
+    Path cacheFile = Files.createTempFile("deps", ".cache");
+    try {
+      DepsCache cache = new DepsCache();
+      assertThat(computeDependencyCalls(cache, a, b)).isEqualTo(expected);
+      assertThat(cache.size()).isEqualTo(2);
+      cache.save(cacheFile);
+
+      // The same contents at another path are found in the cache.
+      cache = DepsCache.load(cacheFile);
+      assertThat(cache.size()).isEqualTo(2);
+      SourceFile movedB = SourceFile.fromCode("/base/c.js", b.getCode());
+      SourceFile changedA = SourceFile.fromCode("/base/a.js", "goog.provide('a');");
+      assertThat(computeDependencyCalls(cache, changedA, movedB))
+          .isEqualTo(
+              LINE_JOINER.join(
+                  "goog.addDependency('a.js', ['a'], []);",
+                  "goog.addDependency('c.js', ['b'], [], {'lang': 'es6', 'module': 'goog'});",
+                  ""));
+      assertThat(cache.size()).isEqualTo(3);
+
+      // Only the results used since loading are saved.
+      cache.save(cacheFile);
+      assertThat(DepsCache.load(cacheFile).size()).isEqualTo(2);
+      assertNoWarnings();
+    } finally {
+      Files.delete(cacheFile);
+    }
+  }
+
+  @Test
+  public void testUnreadableCacheIsEmpty() throws Exception {
+    Path cacheFile = Files.createTempFile("deps", ".cache");
+    try {
+      Files.write(cacheFile, new byte[] {1, 2, 3});
+      assertThat(DepsCache.load(cacheFile).size()).isEqualTo(0);
+    } finally {
+      Files.delete(cacheFile);
+    }
+    assertThat(DepsCache.load(cacheFile).size()).isEqualTo(0);
+  }
+
+  private String computeDependencyCalls(DepsCache cache, SourceFile... srcs) throws Exception {
+    return new DepsGenerator(
+            ImmutableList.of(),
+            ImmutableList.copyOf(srcs),
+            DepsGenerator.InclusionStrategy.ALWAYS,
+            "/base",
+            errorManager,
+            new ModuleLoader(
+                null,
+                ImmutableList.of("/base/"),
+                ImmutableList.of(),
+                BrowserModuleResolver.FACTORY,
+                ModuleLoader.PathResolver.ABSOLUTE))
+        .setThreadCount(2)
+        .setCache(cache)
+        .computeDependencyCalls();
+  }
+
   private void assertNoWarnings() {
     assertThat(errorManager.getWarnings()).isEmpty();
     assertThat(errorManager.getErrors()).isEmpty();
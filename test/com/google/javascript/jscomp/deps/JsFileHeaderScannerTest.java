@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.javascript.jscomp.deps.DependencyInfo.Require.es6Import;
+import static com.google.javascript.jscomp.deps.DependencyInfo.Require.googRequireSymbol;
+import static com.google.javascript.jscomp.testing.JSCompCorrespondences.DIAGNOSTIC_EQUALITY;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.javascript.jscomp.ErrorManager;
+import com.google.javascript.jscomp.PrintStreamErrorManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link JsFileHeaderScanner}. */
+@RunWith(JUnit4.class)
+public final class JsFileHeaderScannerTest {
+
+  private JsFileHeaderScanner scanner;
+  private ErrorManager errorManager;
+
+  private static final String SRC_PATH = "a";
+  private static final String CLOSURE_PATH = "b";
+
+  @Before
+  public void setUp() {
+    errorManager = new PrintStreamErrorManager(System.err);
+    scanner = new JsFileHeaderScanner(errorManager);
+  }
+
+  @Test
+  public void testParseFile() {
+    String contents = "/*"
+        + "goog.provide('no1');*//*\n"
+        + "goog.provide('no2');\n"
+        + "*/goog.provide('yes1');\n"
+        + "/* blah */goog.provide(\"yes2\")/* blah*/\n"
+        + "goog.require('yes3'); // goog.provide('no3');\n"
+        + "// goog.provide('no4');\n"
+        + "goog.require(\"bar.data.SuperstarAddStarThreadActionRequestDelegate\"); "
+        + "//no new line at EOF";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("yes1", "yes2"))
+            .setRequires(
+                googRequireSymbol("yes3"),
+                googRequireSymbol("bar.data.SuperstarAddStarThreadActionRequestDelegate"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testParseGoogModule() {
+    String contents = ""
+        + "goog.module('yes1');\n"
+        + "goog.module.declareLegacyNamespace();\n"
+        + "goog.setTestOnly();\n"
+        + "var yes2=goog.require('yes2');\n"
+        + "const {\n  D,\n  E\n}=goog.require(\"a.b.d\");\n"
+        + "const T = goog.requireType('a.b.T');";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("yes1"))
+            .setRequires(googRequireSymbol("yes2"), googRequireSymbol("a.b.d"))
+            .setTypeRequires(ImmutableList.of("a.b.T"))
+            .setLoadFlags(ImmutableMap.of("module", "goog"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testParseWrappedGoogModuleWithoutUseStrict() {
+    String contents = ""
+        + "goog.loadModule(function(exports) {goog.module('yes1');\n"
+        + "var yes2 = goog.require('yes2');\n"
+        + "return exports;});";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("yes1"))
+            .setRequires(googRequireSymbol("yes2"))
+            .setLoadFlags(ImmutableMap.of())
+            .build(); // wrapped modules aren't marked as modules
+
+    assertDeps(expected, scanner.parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testParseEs6Module() {
+    String contents = ""
+        + "import def, {yes2} from './yes2';\n"
+        + "import C from './a/b/C';\n"
+        + "import * as d from './a/b/d';\n"
+        + "import \"./dquote\";\n"
+        + "export * from './exported';\n";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder("a.js", "b.js")
+            .setProvides(ImmutableList.of("module$b"))
+            .setRequires(
+                es6Import("module$yes2", "./yes2"),
+                es6Import("module$a$b$C", "./a/b/C"),
+                es6Import("module$a$b$d", "./a/b/d"),
+                es6Import("module$dquote", "./dquote"),
+                es6Import("module$exported", "./exported"))
+            .setLoadFlags(ImmutableMap.of("module", "es6"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile("b.js", "a.js", contents));
+  }
+
+  @Test
+  public void testParseEs6ModuleWithoutSemicolonsOrOnSeveralLines() {
+    String contents = ""
+        + "import {\n  a,\n  b,\n} from './x'\n"
+        + "import 'goog:foo.bar'\n"
+        + "export {c} from\n  './y'\n"
+        + "const z = import('./not_a_static_import');\n";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder("a.js", "b.js")
+            .setProvides(ImmutableList.of("module$b"))
+            .setRequires(
+                es6Import("module$x", "./x"),
+                googRequireSymbol("foo.bar"),
+                es6Import("module$y", "./y"))
+            .setLoadFlags(ImmutableMap.of("module", "es6"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile("b.js", "a.js", contents));
+  }
+
+  @Test
+  public void testIgnoresHeadersInStringsTemplatesAndRegexes() {
+    String contents = ""
+        + "goog.provide('yes1');\n"
+        + "var s = 'goog.provide(\"no1\");';\n"
+        + "var t = `${a}\n"
+        + "goog.provide('no2');\n"
+        + "${ {b: 1}.b }`;\n"
+        + "var r = /goog.provide('no3');/;\n"
+        + "var u = '/* not a comment';\n"
+        + "goog.provide('yes2');\n";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("yes1", "yes2"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testExportWithoutImportIsEs6Module() {
+    String contents = "export default class Foo {}\nvar exports = {};";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder("a.js", "b.js")
+            .setProvides(ImmutableList.of("module$b"))
+            .setLoadFlags(ImmutableMap.of("module", "es6"))
+            .build();
+
+    assertDeps(expected, scanner.parseFile("b.js", "a.js", contents));
+  }
+
+  @Test
+  public void testShortcutModeStopsAfterPrologue() {
+    String contents = " // hi ! \n /* this is a comment */ "
+        + "'use strict';\n"
+        + "goog.provide('yes1');\n /* and another comment */ \n"
+        + "goog.provide('yes2'); // include this\n"
+        + "foo = function() {};\n"
+        + "goog.provide('no1');";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("yes1", "yes2"))
+            .build();
+
+    assertDeps(
+        expected,
+        scanner.setShortcutMode(true).parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testIncludeGoog() {
+    String contents = "/**\n * @provideGoog\n */\ngoog.require('yes1');";
+
+    DependencyInfo expected =
+        SimpleDependencyInfo.builder(CLOSURE_PATH, SRC_PATH)
+            .setProvides(ImmutableList.of("goog"))
+            .setRequires(DependencyInfo.Require.BASE, googRequireSymbol("yes1"))
+            .build();
+
+    assertDeps(
+        expected,
+        scanner.setIncludeGoogBase(true).parseFile(SRC_PATH, CLOSURE_PATH, contents));
+  }
+
+  @Test
+  public void testAnnotationsOnlyInJsDoc() {
+    assertThat(scanner.parseFile(SRC_PATH, CLOSURE_PATH, "/**\n * @externs\n */\n")
+            .getHasExternsAnnotation())
+        .isTrue();
+    assertThat(scanner.parseFile(SRC_PATH, CLOSURE_PATH, "/* @externs */\n")
+            .getHasExternsAnnotation())
+        .isFalse();
+    assertThat(scanner.parseFile(SRC_PATH, CLOSURE_PATH, "/** @nocompile */\n")
+            .getHasNoCompileAnnotation())
+        .isTrue();
+    assertThat(scanner.parseFile(SRC_PATH, CLOSURE_PATH, "// @nocompile\n")
+            .getHasNoCompileAnnotation())
+        .isFalse();
+  }
+
+  @Test
+  public void testNonLiteralArgumentIsError() {
+    scanner.parseFile(SRC_PATH, CLOSURE_PATH, "goog.require(foo);");
+
+    assertThat(errorManager.getWarnings()).isEmpty();
+    assertThat(errorManager.getErrors())
+        .comparingElementsUsing(DIAGNOSTIC_EQUALITY)
+        .containsExactly(JsFileLineParser.PARSE_ERROR);
+  }
+
+  @Test
+  public void testEs6AndWrappedGoogModuleIsError() {
+    String contents =
+        "goog.loadModule(function(){\"use strict\";goog.module('yes1');});\n" + "export {};";
+
+    scanner.parseFile(SRC_PATH, CLOSURE_PATH, contents);
+
+    assertThat(errorManager.getErrors()).isEmpty();
+    assertThat(errorManager.getWarnings())
+        .comparingElementsUsing(DIAGNOSTIC_EQUALITY)
+        .containsExactly(ModuleLoader.MODULE_CONFLICT);
+  }
+
+  @Test
+  public void testHeaderOnlyDependsOnContents() {
+    String contents = "goog.module('a');\nconst b = goog.require('b');";
+
+    JsFileHeaderScanner.Header header = scanner.scan(contents);
+
+    assertThat(new JsFileHeaderScanner(errorManager).scan(contents)).isEqualTo(header);
+    assertThat(scanner.toDependencyInfo(header, "x.js", "x.js").getProvides())
+        .containsExactly("a");
+    assertThat(scanner.toDependencyInfo(header, "y.js", "y.js").getName()).isEqualTo("y.js");
+  }
+
+  /** Asserts the deps match without errors */
+  private void assertDeps(DependencyInfo expected, DependencyInfo actual) {
+    assertThat(actual).isEqualTo(expected);
+    assertThat(errorManager.getErrors()).isEmpty();
+    assertThat(errorManager.getWarnings()).isEmpty();
+  }
+}
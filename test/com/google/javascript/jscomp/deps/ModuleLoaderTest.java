@@ -637,6 +637,56 @@ public final class ModuleLoaderTest {
     assertUri("file.js", loader.resolve("/path/to/project/file.js"));
   }
 
+  @Test
+  public void testResolutionsAreCachedPerDirectory() {
+    List<JSError> errors = new ArrayList<>();
+    ModuleLoader loader =
+        new ModuleLoader(
+            (CheckLevel level, JSError error) -> errors.add(error),
+            ImmutableList.of("."),
+            inputs("js/a.js", "js/b.js", "js/c.js", "other/d.js"),
+            new NodeModuleResolver.Factory(),
+            ModuleLoader.PathResolver.RELATIVE);
+
+    assertUri("js/b.js", loader.resolve("js/a.js").resolveJsModule("./b"));
+    assertUri("js/b.js", loader.resolve("js/c.js").resolveJsModule("./b"));
+    assertThat(loader.resolve("other/d.js").resolveJsModule("./b")).isNull();
+    assertThat(loader.getResolutionCacheMissCount()).isEqualTo(2);
+    assertThat(loader.getResolutionCacheHitCount()).isEqualTo(1);
+
+    // Failed resolutions are cached too, and report their diagnostic at each location.
+    assertThat(loader.resolve("js/a.js").resolveJsModule("./missing", "js/a.js", 1, 2)).isNull();
+    assertThat(loader.resolve("js/c.js").resolveJsModule("./missing", "js/c.js", 3, 4)).isNull();
+    assertThat(loader.getResolutionCacheMissCount()).isEqualTo(3);
+    assertThat(loader.getResolutionCacheHitCount()).isEqualTo(2);
+
+    assertThat(errors).hasSize(3);
+    JSError first = errors.get(1);
+    JSError second = errors.get(2);
+    assertThat(second.getType()).isEqualTo(ModuleLoader.LOAD_WARNING);
+    assertThat(second.description).isEqualTo(first.description);
+    assertThat(first.sourceName).isEqualTo("js/a.js");
+    assertThat(first.getLineNumber()).isEqualTo(1);
+    assertThat(second.sourceName).isEqualTo("js/c.js");
+    assertThat(second.getLineNumber()).isEqualTo(3);
+    assertThat(second.getCharno()).isEqualTo(4);
+  }
+
+  @Test
+  public void testRootsOnlyMatchWholeDirectories() {
+    ModuleLoader loader =
+        new ModuleLoader(
+            /* errorHandler= */ null,
+            /* moduleRoots= */ ImmutableList.of("/foo", "/foo/bar"),
+            inputs(),
+            BrowserModuleResolver.FACTORY);
+
+    assertUri("test.js", loader.resolve("/foo/test.js"));
+    assertUri("baz/test.js", loader.resolve("/foo/bar/baz/test.js"));
+    assertUri("/foobar/test.js", loader.resolve("/foobar/test.js"));
+    assertUri("/other/test.js", loader.resolve("/other/test.js"));
+  }
+
   CompilerInput input(String name) {
     return new CompilerInput(SourceFile.fromCode(name, ""), false);
   }
@@ -41,6 +41,10 @@ import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSType;
 import com.google.javascript.rhino.testing.BaseJSTypeTestCase;
 import com.google.javascript.rhino.testing.TestErrorReporter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayDeque;
 import java.util.List;
 import org.junit.Before;
@@ -82,6 +86,7 @@ public final class ParserTest extends BaseJSTypeTestCase {
   private Config.LanguageMode mode;
   private Config.StrictMode strictMode;
   private boolean isIdeMode = false;
+  private boolean lazyJsDoc = false;
   private FeatureSet expectedFeatures;
 
   @Override
@@ -91,6 +96,7 @@ public final class ParserTest extends BaseJSTypeTestCase {
     mode = LanguageMode.ES_NEXT;
     strictMode = SLOPPY;
     isIdeMode = false;
+    lazyJsDoc = false;
     expectedFeatures = FeatureSet.BARE_MINIMUM;
   }
 
@@ -1069,6 +1075,59 @@ public final class ParserTest extends BaseJSTypeTestCase {
     assertTypeEquals(STRING_TYPE, info.getType());
   }
 
+  @Test
+  public void testLazyJSDoc() {
+    lazyJsDoc = true;
+    Node varNode = parse("/** @type {string} */ var x = 'a';").getFirstChild();
+    JSDocInfo info = varNode.getJSDocInfo();
+    assertThat(info).isNotNull();
+    assertTypeEquals(STRING_TYPE, info.getType());
+    assertThat(varNode.getJSDocInfo()).isSameAs(info);
+  }
+
+  @Test
+  public void testLazyInlineJSDoc() {
+    lazyJsDoc = true;
+    Node letNode = parse("let /** string */ x = 'a';").getFirstChild();
+    JSDocInfo info = letNode.getFirstChild().getJSDocInfo();
+    assertThat(info).isNotNull();
+    assertTypeEquals(STRING_TYPE, info.getType());
+  }
+
+  @Test
+  public void testLazyJSDocSurvivesSerialization() throws Exception {
+    lazyJsDoc = true;
+    Node varNode = parse("/** @type {string} */ var x = 'a';").getFirstChild();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(varNode);
+    }
+    Node restored;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      restored = (Node) in.readObject();
+    }
+
+    JSDocInfo info = restored.getJSDocInfo();
+    assertThat(info).isNotNull();
+    assertTypeEquals(STRING_TYPE, info.getType());
+  }
+
+  @Test
+  public void testLazyJSDocDoesNotReportWarnings() {
+    lazyJsDoc = true;
+    parse("/** @type {Array<number} */var a = [1,2]");
+  }
+
+  @Test
+  public void testLazyJSDocParsesFileOverviewEagerly() {
+    lazyJsDoc = true;
+    Node n = parse("/** @fileoverview Hi mom! */ function Foo() {}");
+    assertThat(n.getJSDocInfo()).isNotNull();
+    assertThat(n.getFirstChild().getJSDocInfo()).isNull();
+  }
+
   @Test
   public void testInlineJSDocAttachmentToObjPatNormalProp() {
     Node letNode =
@@ -5227,8 +5286,9 @@ public final class ParserTest extends BaseJSTypeTestCase {
   }
 
   private Config createConfig() {
+    Config config;
     if (isIdeMode) {
-      return ParserRunner.createConfig(
+      config = ParserRunner.createConfig(
           mode,
           Config.JsDocParsing.INCLUDE_DESCRIPTIONS_NO_WHITESPACE,
           Config.RunMode.KEEP_GOING,
@@ -5236,8 +5296,9 @@ public final class ParserTest extends BaseJSTypeTestCase {
           true,
           strictMode);
     } else {
-      return ParserRunner.createConfig(mode, null, strictMode);
+      config = ParserRunner.createConfig(mode, null, strictMode);
     }
+    return lazyJsDoc ? config.toBuilder().setLazyJsDoc(true).build() : config;
   }
 
   /** Sets expectedFeatures based on the list of features. */
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp.parsing.parser;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IdentifierTable}. */
+@RunWith(JUnit4.class)
+public final class IdentifierTableTest {
+  @Test
+  public void testRepeatedNamesAreShared() {
+    IdentifierTable table = new IdentifierTable();
+    String source = "foo bar foo";
+    String first = table.intern(source, 0, 3);
+    assertThat(first).isEqualTo("foo");
+    assertThat(table.intern(source, 4, 7)).isEqualTo("bar");
+    assertThat(table.intern(source, 8, 11)).isSameAs(first);
+  }
+
+  @Test
+  public void testPrefixesAreDistinct() {
+    IdentifierTable table = new IdentifierTable();
+    String source = "foobar";
+    assertThat(table.intern(source, 0, 3)).isEqualTo("foo");
+    assertThat(table.intern(source, 0, 6)).isEqualTo("foobar");
+    assertThat(table.intern(source, 0, 1)).isEqualTo("f");
+  }
+
+  @Test
+  public void testGrowKeepsNames() {
+    IdentifierTable table = new IdentifierTable();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append('v').append(i).append(' ');
+    }
+    String source = sb.toString();
+
+    String[] interned = new String[1000];
+    int start = 0;
+    for (int i = 0; i < 1000; i++) {
+      int end = source.indexOf(' ', start);
+      interned[i] = table.intern(source, start, end);
+      start = end + 1;
+    }
+
+    start = 0;
+    for (int i = 0; i < 1000; i++) {
+      int end = source.indexOf(' ', start);
+      assertThat(table.intern(source, start, end)).isSameAs(interned[i]);
+      assertThat(interned[i]).isEqualTo("v" + i);
+      start = end + 1;
+    }
+  }
+}
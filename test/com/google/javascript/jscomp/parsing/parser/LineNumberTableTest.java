@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp.parsing.parser;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LineNumberTable}. */
+@RunWith(JUnit4.class)
+public final class LineNumberTableTest {
+  @Test
+  public void testLines() {
+    LineNumberTable table = new SourceFile("a.js", "ab\ncd\r\nef\rg").lineNumberTable;
+    assertThat(table.getLine(0)).isEqualTo(0);
+    assertThat(table.getLine(2)).isEqualTo(0);
+    assertThat(table.getLine(3)).isEqualTo(1);
+    assertThat(table.getLine(7)).isEqualTo(2);
+    assertThat(table.getLine(10)).isEqualTo(3);
+    assertThat(table.offsetOfLine(3)).isEqualTo(10);
+    assertThat(table.getLine(Integer.MAX_VALUE - 1)).isEqualTo(3);
+  }
+
+  @Test
+  public void testLineFeedOffsetsAreShared() {
+    LineNumberTable table = new SourceFile("a.js", "ab\ncd\n\nef\n").lineNumberTable;
+    assertThat(table.getLineFeedOffsets()).asList().containsExactly(0, 3, 6, 7, 10).inOrder();
+    assertThat(LineNumberTable.computeLineFeedOffsets("ab\ncd\n\nef\n"))
+        .asList()
+        .containsExactly(0, 3, 6, 7, 10)
+        .inOrder();
+  }
+
+  @Test
+  public void testLineFeedOffsetsNotSharedWithOtherTerminators() {
+    assertThat(new SourceFile("a.js", "ab\r\ncd").lineNumberTable.getLineFeedOffsets()).isNull();
+    assertThat(new SourceFile("a.js", "ab\u2028cd").lineNumberTable.getLineFeedOffsets()).isNull();
+    assertThat(LineNumberTable.computeLineFeedOffsets("ab\r\ncd")).asList().containsExactly(0, 4);
+  }
+
+  @Test
+  public void testEmptySource() {
+    assertThat(new SourceFile("a.js", "").lineNumberTable.getLineFeedOffsets())
+        .asList()
+        .containsExactly(0);
+    assertThat(LineNumberTable.computeLineFeedOffsets("")).asList().containsExactly(0);
+  }
+}
@@ -109,6 +109,34 @@ public class ApplySuggestedFixesTest {
     assertThat(newCodeMap).containsEntry("test", "");
   }
 
+  @Test
+  public void testApplySuggestedFixes_overlappingFixesAreSkipped() throws Exception {
+    String code = "var a = 1; var b = 2;";
+    Compiler compiler = getCompiler(code);
+    Node root = compileToScriptRoot(compiler);
+    Node firstVar = root.getFirstChild();
+    Node secondVar = root.getSecondChild();
+    SuggestedFix renameA = new SuggestedFix.Builder().rename(firstVar.getFirstChild(), "c").build();
+    SuggestedFix deleteFirst = new SuggestedFix.Builder().delete(firstVar).build();
+    SuggestedFix insertBeforeSecond =
+        new SuggestedFix.Builder().insertBefore(secondVar, "/* x */ ").build();
+    SuggestedFix renameB =
+        new SuggestedFix.Builder().rename(secondVar.getFirstChild(), "d").build();
+    Map<String, String> codeMap = ImmutableMap.of("test", code);
+
+    // The first of two overlapping fixes wins, and inserts do not overlap the code they precede.
+    assertThat(
+            ApplySuggestedFixes.applySuggestedFixesToCode(
+                ImmutableList.of(renameA, deleteFirst, insertBeforeSecond, renameB), codeMap))
+        .containsExactly("test", "var c = 1; /* x */ var d = 2;");
+    assertThat(
+            ApplySuggestedFixes.applySuggestedFixesToCode(
+                ImmutableList.of(deleteFirst, renameA, insertBeforeSecond, renameB), codeMap))
+        .isEqualTo(
+            ApplySuggestedFixes.applySuggestedFixesToCode(
+                ImmutableList.of(deleteFirst, insertBeforeSecond, renameB), codeMap));
+  }
+
   @Test
   public void testApplySuggestedFixes_insideJSDoc() throws Exception {
     String code = "/** @type {Foo} */\nvar foo = new Foo()";
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.refactoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.javascript.jscomp.CompilerOptions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RefactoringDriver}. */
+@RunWith(JUnit4.class)
+public final class RefactoringDriverTest {
+
+  private static final String EXTERNS =
+      "function Symbol() {};\n"
+          + "/** @param {number} n */ function foo(n) {}\n"
+          + "/** @param {number} n */ function bar(n) {}\n";
+
+  private static final String TEMPLATE =
+      ""
+          + "/** @param {number} n */\n"
+          + "function before_foo(n) {\n"
+          + "  foo(n);\n"
+          + "}\n"
+          + "/** @param {number} n */\n"
+          + "function after_foo(n) {\n"
+          + "  bar(n);\n"
+          + "}\n";
+
+  @BeforeClass
+  public static void noLogSpam() {
+    Logger.getLogger("com.google").setLevel(Level.OFF);
+  }
+
+  @Test
+  public void testShardedDriverFindsTheSameFixesInOrder() {
+    ImmutableMap.Builder<String, String> code = ImmutableMap.builder();
+    for (int i = 0; i < 7; i++) {
+      code.put("input" + i + ".js", "foo(" + i + "); foo(" + (i + 10) + ");");
+    }
+    ImmutableMap<String, String> inputs = code.build();
+
+    List<SuggestedFix> unsharded = driverBuilder(inputs).build().drive(this::createScanner);
+    RefactoringDriver sharded =
+        driverBuilder(inputs).withShardCount(3).withThreadCount(2).build();
+    List<SuggestedFix> shardedFixes = sharded.drive(this::createScanner);
+
+    assertThat(sharded.getCompilers()).hasSize(3);
+    assertThat(unsharded).hasSize(14);
+    assertThat(fileNames(shardedFixes)).containsExactlyElementsIn(fileNames(unsharded)).inOrder();
+    assertThat(ApplySuggestedFixes.applySuggestedFixesToCode(shardedFixes, inputs))
+        .isEqualTo(ApplySuggestedFixes.applySuggestedFixesToCode(unsharded, inputs));
+    assertThat(ApplySuggestedFixes.applySuggestedFixesToCode(shardedFixes, inputs))
+        .containsEntry("input3.js", "bar(3); bar(13);");
+  }
+
+  @Test
+  public void testShardedDriverNeedsAScannerPerShard() {
+    RefactoringDriver driver =
+        driverBuilder(ImmutableMap.of("a.js", "foo(1);", "b.js", "foo(2);"))
+            .withShardCount(2)
+            .build();
+    try {
+      driver.drive(createScanner());
+      fail("A sharded driver should not reuse one scanner for every shard.");
+    } catch (IllegalStateException expected) {}
+    try {
+      driver.getCompiler();
+      fail("A sharded driver has no single compiler.");
+    } catch (IllegalStateException expected) {}
+  }
+
+  @Test
+  public void testShardedDriverNeedsCompilerOptionsPerShard() {
+    CompilerOptions options = RefactoringDriver.getCompilerOptions();
+    try {
+      driverBuilder(ImmutableMap.of("a.js", "foo(1);", "b.js", "foo(2);"))
+          .withCompilerOptions(options)
+          .withShardCount(2)
+          .build();
+      fail("Compiler options should not be shared between shards.");
+    } catch (IllegalStateException expected) {}
+
+    // A single input is never sharded.
+    RefactoringDriver driver =
+        driverBuilder(ImmutableMap.of("a.js", "foo(1);"))
+            .withCompilerOptions(options)
+            .withShardCount(2)
+            .build();
+    assertThat(driver.getCompilers()).containsExactly(driver.getCompiler());
+  }
+
+  private RefasterJsScanner createScanner() {
+    RefasterJsScanner scanner = new RefasterJsScanner();
+    try {
+      scanner.loadRefasterJsTemplateFromCode(TEMPLATE);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    return scanner;
+  }
+
+  private static RefactoringDriver.Builder driverBuilder(ImmutableMap<String, String> inputs) {
+    RefactoringDriver.Builder builder = new RefactoringDriver.Builder().addExternsFromCode(EXTERNS);
+    for (Map.Entry<String, String> input : inputs.entrySet()) {
+      builder.addInputsFromCode(input.getValue(), input.getKey());
+    }
+    return builder;
+  }
+
+  private static ImmutableList<String> fileNames(List<SuggestedFix> fixes) {
+    List<String> names = new ArrayList<>();
+    for (SuggestedFix fix : fixes) {
+      names.addAll(fix.getReplacements().keySet());
+    }
+    return ImmutableList.copyOf(names);
+  }
+}
@@ -621,6 +621,47 @@ public class RefasterJsScannerTest {
     assertChanges(externs, originalCode, template, expectedCode);
   }
 
+  @Test
+  public void test_indexedTemplatesEvaluatedInOrder() throws Exception {
+    String externs = ""
+        + "/** @param {string} s \n @return {string} */ function foo(s) {}\n"
+        + "/** @param {string} s \n @return {string} */ function qux(s) {}\n"
+        + "function bar(s) {}\n"
+        + "function baz(s) {}\n";
+    String namedTemplate = ""
+        + "/** @param {string} s */\n"
+        + "function before_named(s) {\n"
+        + "  foo(s);\n"
+        + "}\n"
+        + "/** @param {string} s */\n"
+        + "function after_named(s) {\n"
+        + "  bar(s);\n"
+        + "}\n";
+    String anyCalleeTemplate = ""
+        + "/**\n"
+        + " * @param {function(string):string} fn\n"
+        + " * @param {string} s\n"
+        + " */\n"
+        + "function before_anyCallee(fn, s) {\n"
+        + "  fn(s);\n"
+        + "}\n"
+        + "/**\n"
+        + " * @param {function(string):string} fn\n"
+        + " * @param {string} s\n"
+        + " */\n"
+        + "function after_anyCallee(fn, s) {\n"
+        + "  baz(s);\n"
+        + "}\n";
+    String originalCode = "foo('a'); qux('b');";
+
+    // The templates are indexed separately, one by its callee's name and one by its token only,
+    // but are still tried in the order in which they are declared.
+    assertChanges(
+        externs, originalCode, namedTemplate + anyCalleeTemplate, "bar('a'); baz('b');");
+    assertChanges(
+        externs, originalCode, anyCalleeTemplate + namedTemplate, "baz('a'); baz('b');");
+  }
+
   @Test
   public void test_es6() throws Exception {
     String externs = ""